@@ -18,11 +18,14 @@ class AudioLoadResult {
 	private final List<AudioTrack> loadedTracks;
 	private final String playlistName;
 	private final FriendlyException exception;
+	private final PlaylistLoadProgress playlistLoadProgress;
 
-	public AudioLoadResult(List<AudioTrack> loadedTracks, String playlistName, FriendlyException exception) {
+	public AudioLoadResult(List<AudioTrack> loadedTracks, String playlistName, FriendlyException exception,
+			PlaylistLoadProgress playlistLoadProgress) {
 		this.loadedTracks = loadedTracks != null ? ImmutableList.copyOf(loadedTracks) : null;
 		this.playlistName = playlistName;
 		this.exception = exception;
+		this.playlistLoadProgress = playlistLoadProgress;
 
 		if (this.loadedTracks != null) {
 			Preconditions.checkArgument(exception == null, "exception must be null if loadedTracks is not null.");
@@ -43,4 +46,15 @@ class AudioLoadResult {
 		return Optional.ofNullable(exception);
 	}
 
+	/**
+	 * Gets the progress of the rest of the playlist, if only the first part of it
+	 * was loaded so far. In that case, {@link #getLoadedTracks()} only contains the
+	 * first part.
+	 * 
+	 * @return The {@link PlaylistLoadProgress}, if the playlist is still loading.
+	 */
+	public Optional<PlaylistLoadProgress> getPlaylistLoadProgress() {
+		return Optional.ofNullable(playlistLoadProgress);
+	}
+
 }
@@ -1,15 +1,28 @@
 package net.tonbot.plugin.music;
 
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ExecutionException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Predicate;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import com.sedmelluq.discord.lavaplayer.player.AudioLoadResultHandler;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
 import com.sedmelluq.discord.lavaplayer.player.event.AudioEventAdapter;
@@ -21,36 +34,59 @@ import com.sedmelluq.discord.lavaplayer.track.AudioTrackEndReason;
 import lombok.Getter;
 import net.tonbot.common.BotUtils;
 import net.tonbot.common.TonbotBusinessException;
-import net.tonbot.common.TonbotTechnicalFault;
 import sx.blah.discord.api.IDiscordClient;
 import sx.blah.discord.handle.obj.IChannel;
 import sx.blah.discord.handle.obj.IUser;
 
 class AudioSession extends AudioEventAdapter {
 
+	private static final Logger LOG = LoggerFactory.getLogger(AudioSession.class);
+
+	// The number of upcoming tracks to resolve ahead of time.
+	private static final int LOOK_AHEAD = 3;
+
+	// How long before the end of a track to start preloading the next one.
+	private static final long PRELOAD_MS = 5000;
+
 	private final IDiscordClient discordClient;
 	private final AudioPlayerManager audioPlayerManager;
-	private final AudioPlayer audioPlayer;
+	private final LavaplayerAudioProvider audioProvider;
 
 	@Getter
 	private final long defaultChannelId;
 
 	private final BotUtils botUtils;
-
-	private TrackManager trackManager;
-	private PlayMode playMode;
-	private RepeatMode repeatMode;
-
-	public AudioSession(IDiscordClient discordClient, AudioPlayerManager audioPlayerManager, AudioPlayer audioPlayer,
-			long defaultChannelId, BotUtils botUtils) {
+	private final ScheduledExecutorService scheduler;
+	private final ExecutorService playlistLoader;
+
+	private final TrackStore trackManager;
+	private final LookAheadResolver lookAheadResolver;
+	private volatile RepeatMode repeatMode;
+	private volatile boolean destroyed;
+	// Guarded by this. Null if no preload is coming up.
+	private ScheduledFuture<?> scheduledPreload;
+	// Playlists whose remaining chunks are still being added. Guarded by itself.
+	private final Set<ChunkLoad> chunkLoads;
+	// Null if Enhanced Now Playing is disabled.
+	private final YouTubeSnippetCache snippetCache;
+
+	public AudioSession(IDiscordClient discordClient, AudioPlayerManager audioPlayerManager,
+			LavaplayerAudioProvider audioProvider, long defaultChannelId, BotUtils botUtils,
+			ScheduledExecutorService scheduler, ExecutorService playlistLoader, TrackResolverService resolverService,
+			YouTubeSnippetCache snippetCache) {
 		this.discordClient = Preconditions.checkNotNull(discordClient, "discordClient must be non-null.");
 		this.audioPlayerManager = Preconditions.checkNotNull(audioPlayerManager,
 				"audioPlayerManager must be non-null.");
-		this.audioPlayer = Preconditions.checkNotNull(audioPlayer, "audioPlayer must be non-null.");
+		this.audioProvider = Preconditions.checkNotNull(audioProvider, "audioProvider must be non-null.");
 		this.defaultChannelId = defaultChannelId;
 		this.botUtils = Preconditions.checkNotNull(botUtils, "botUtils must be non-null.");
+		this.scheduler = Preconditions.checkNotNull(scheduler, "scheduler must be non-null.");
+		this.playlistLoader = Preconditions.checkNotNull(playlistLoader, "playlistLoader must be non-null.");
+		this.chunkLoads = Sets.newIdentityHashSet();
+		this.trackManager = new TrackStore(PlayMode.STANDARD);
+		this.lookAheadResolver = new LookAheadResolver(resolverService, () -> trackManager.slice(0, LOOK_AHEAD));
+		this.snippetCache = snippetCache;
 		this.repeatMode = RepeatMode.OFF;
-		setPlayMode(PlayMode.STANDARD);
 	}
 
 	@Override
@@ -61,15 +97,47 @@ class AudioSession extends AudioEventAdapter {
 	@Override
 	public void onPlayerResume(AudioPlayer player) {
 		// Player was resumed
+		if (player == audioProvider.getActivePlayer()) {
+			// Preloads are skipped while paused.
+			schedulePreload();
+		}
 	}
 
 	@Override
 	public void onTrackStart(AudioPlayer player, AudioTrack audioTrack) {
-		// A track started playing
+		if (player != audioProvider.getActivePlayer()) {
+			// A track is being preloaded. It isn't playing yet.
+			return;
+		}
+
+		// A track started playing on the active player, so whatever was preloaded
+		// wasn't used.
+		audioProvider.cancelPreload();
+		trackStarted(audioTrack);
+	}
+
+	/**
+	 * Prepares for the tracks after one that has just started playing on the
+	 * active player.
+	 */
+	private void trackStarted(AudioTrack audioTrack) {
+		lookAheadResolver.refresh();
+
+		// Lazy tracks only have a video to prefetch once they're resolved.
+		prefetchSnippets(ImmutableList.<AudioTrack>builder().add(audioTrack)
+				.addAll(trackManager.slice(0, LOOK_AHEAD)).build());
+
+		schedulePreload();
 	}
 
 	@Override
 	public void onTrackEnd(AudioPlayer player, AudioTrack audioTrack, AudioTrackEndReason endReason) {
+		if (player != audioProvider.getActivePlayer()) {
+			// A preloaded track was stopped or cleaned up. It's not playing, so there's
+			// nothing to move on from.
+			return;
+		}
+
 		if (endReason.mayStartNext) {
 
 			if (repeatMode == RepeatMode.ONE) {
@@ -101,6 +169,10 @@ class AudioSession extends AudioEventAdapter {
 	public void onTrackException(AudioPlayer player, AudioTrack track, FriendlyException exception) {
 		// An already playing track threw an exception (track end event will still be
 		// received separately)
+		if (player != audioProvider.getActivePlayer()) {
+			return;
+		}
+
 		IChannel channel = discordClient.getChannelByID(defaultChannelId);
 		botUtils.sendMessage(channel,
 				"Failed to play **" + track.getInfo().title + "**: " + formatFriendlyException(exception));
@@ -110,6 +182,9 @@ class AudioSession extends AudioEventAdapter {
 	public void onTrackStuck(AudioPlayer player, AudioTrack track, long thresholdMs) {
 		// Audio track has been unable to provide us any audio, might want to just start
 		// a new track.
+		if (player != audioProvider.getActivePlayer()) {
+			return;
+		}
 
 		IChannel channel = discordClient.getChannelByID(defaultChannelId);
 		botUtils.sendMessage(channel, "Track **" + track.getInfo().title + "** is stuck. Moving right along...");
@@ -118,73 +193,174 @@ class AudioSession extends AudioEventAdapter {
 	}
 
 	/**
-	 * Enqueues a song with an identifier. If the track is added successfully, it is
-	 * up to the audio event adapter to determine what happens to the track (e.g. if
-	 * it gets queued, or if it plays immediately, etc.).
+	 * Loads a song or playlist by identifier and enqueues the loaded tracks,
+	 * without blocking the calling thread. If the tracks are added successfully, it
+	 * is up to the audio event adapter to determine what happens to them (e.g. if
+	 * they get queued, or if one plays immediately, etc.). <br/>
+	 * Cancelling the returned future, or letting it time out, stops the load. Tracks
+	 * are only enqueued if the load completes before then. Once the load has
+	 * completed and its tracks are being enqueued, the timeout no longer applies.
 	 * 
 	 * @param identifier
 	 *            An identifier for the track. Non-null.
 	 * @param user
 	 *            The {@link IUser} that queued the track. Non-null.
-	 * @throws IllegalStateException
-	 *             If there is no session.
-	 * @return {@link AudioLoadResult}. Not null.
+	 * @param timeout
+	 *            How long to wait for the load before giving up. Must be positive.
+	 * @param unit
+	 *            The {@link TimeUnit} of {@code timeout}. Non-null.
+	 * @return A future {@link AudioLoadResult}. Completes exceptionally with a
+	 *         {@link TimeoutException} if the load took too long.
 	 */
-	public AudioLoadResult enqueue(String identifier, IUser user) {
+	public CompletableFuture<AudioLoadResult> enqueue(String identifier, IUser user, long timeout, TimeUnit unit) {
 		Preconditions.checkNotNull(identifier, "identifier must be non-null.");
 		Preconditions.checkNotNull(user, "user must be non-null.");
+		Preconditions.checkArgument(timeout > 0, "timeout must be positive.");
+		Preconditions.checkNotNull(unit, "unit must be non-null.");
 
 		IChannel channel = discordClient.getChannelByID(defaultChannelId);
+		CompletableFuture<AudioLoadResult> resultFuture = new CompletableFuture<>();
+
+		// Whichever of the load and the timeout claims the result first decides it.
+		// The load claims it before enqueuing anything, so tracks are never enqueued
+		// for a load that timed out.
+		AtomicBoolean resultClaimed = new AtomicBoolean(false);
 
-		TonbotAudioLoadResultHandler resultHandler = new TonbotAudioLoadResultHandler() {
+		AudioLoadResultHandler resultHandler = new AudioLoadResultHandler() {
 
 			@Override
 			public void trackLoaded(AudioTrack audioTrack) {
+				if (!claimResult()) {
+					return;
+				}
+
 				enqueue(audioTrack, user);
 
-				this.result = AudioLoadResult.builder().loadedTracks(ImmutableList.of(audioTrack)).build();
+				resultFuture.complete(AudioLoadResult.builder().loadedTracks(ImmutableList.of(audioTrack)).build());
 			}
 
 			@Override
 			public void playlistLoaded(AudioPlaylist loadedPlaylist) {
+				if (!claimResult()) {
+					if (loadedPlaylist instanceof IncrementalAudioPlaylist) {
+						((IncrementalAudioPlaylist) loadedPlaylist).close();
+					}
+					return;
+				}
+
 				List<AudioTrack> tracks = loadedPlaylist.getTracks();
 				if (tracks.isEmpty()) {
 					botUtils.sendMessage(channel, "There were no songs in that playlist. :thinking:");
+					resultFuture.complete(AudioLoadResult.builder().loadedTracks(ImmutableList.of()).build());
 				} else {
-					tracks.forEach(track -> {
-						ExtraTrackInfo extraTrackInfo = ExtraTrackInfo.builder().addedByUserId(user.getLongID())
-								.addTimestamp(System.currentTimeMillis()).build();
-						track.setUserData(extraTrackInfo);
-					});
+					ExtraTrackInfo extraTrackInfo = ExtraTrackInfo.builder().addedByUserId(user.getLongID()).build();
+					tracks.forEach(track -> track.setUserData(extraTrackInfo));
 
 					trackManager.putAll(tracks);
-
-					this.result = AudioLoadResult.builder().loadedTracks(tracks).playlistName(loadedPlaylist.getName())
-							.build();
+					lookAheadResolver.refresh();
+					prefetchSnippets(tracks);
+
+					if (loadedPlaylist instanceof IncrementalAudioPlaylist) {
+						// The first chunk starts playing now, rather than whenever the caller gets
+						// around to it, since the rest of the playlist may take a while.
+						play();
+
+						PlaylistLoadProgress progress = new PlaylistLoadProgress(tracks.size());
+						resultFuture.complete(AudioLoadResult.builder().loadedTracks(tracks)
+								.playlistName(loadedPlaylist.getName()).playlistLoadProgress(progress).build());
+
+						// The rest is fetched by the playlist loader, so that this loader thread is
+						// free for other loads.
+						loadRemainingChunks((IncrementalAudioPlaylist) loadedPlaylist, extraTrackInfo, progress);
+					} else {
+						resultFuture.complete(AudioLoadResult.builder().loadedTracks(tracks)
+								.playlistName(loadedPlaylist.getName()).build());
+					}
 				}
 			}
 
 			@Override
 			public void noMatches() {
-				this.result = AudioLoadResult.builder().loadedTracks(ImmutableList.of()).build();
+				if (claimResult()) {
+					resultFuture.complete(AudioLoadResult.builder().loadedTracks(ImmutableList.of()).build());
+				}
 			}
 
 			@Override
 			public void loadFailed(FriendlyException exception) {
-				this.result = AudioLoadResult.builder().exception(exception).build();
+				if (claimResult()) {
+					resultFuture.complete(AudioLoadResult.builder().exception(exception).build());
+				}
+			}
+
+			/**
+			 * @return True if the load may complete the result. False if it timed out or
+			 *         was cancelled.
+			 */
+			private boolean claimResult() {
+				return resultClaimed.compareAndSet(false, true) && !resultFuture.isDone();
 			}
 
 		};
 
-		try {
-			audioPlayerManager.loadItem(identifier, resultHandler).get();
+		Future<Void> loadFuture = audioPlayerManager.loadItem(identifier, resultHandler);
+
+		ScheduledFuture<?> timeoutFuture = scheduler.schedule(() -> {
+			if (resultClaimed.compareAndSet(false, true)) {
+				resultFuture.completeExceptionally(new TimeoutException("Timed out while loading " + identifier));
+			}
+		}, timeout, unit);
 
-			return resultHandler.getResult();
-		} catch (InterruptedException | ExecutionException e) {
-			throw new TonbotTechnicalFault("Failed to load track(s).", e);
+		resultFuture.whenComplete((result, e) -> {
+			timeoutFuture.cancel(false);
+
+			if (e != null) {
+				// Cancelled or timed out. There's no point in continuing to load.
+				loadFuture.cancel(true);
+			}
+		});
+
+		return resultFuture;
+	}
+
+	private void loadRemainingChunks(IncrementalAudioPlaylist playlist, ExtraTrackInfo extraTrackInfo,
+			PlaylistLoadProgress progress) {
+		ChunkLoad chunkLoad = new ChunkLoad(playlist, extraTrackInfo, progress);
+
+		RejectedExecutionException rejection = null;
+		synchronized (chunkLoads) {
+			if (!destroyed) {
+				try {
+					// The load can't finish and remove itself until the lock is released.
+					chunkLoad.future = playlistLoader.submit(chunkLoad::run);
+					chunkLoads.add(chunkLoad);
+					return;
+				} catch (RejectedExecutionException e) {
+					rejection = e;
+				}
+			}
+		}
+
+		if (rejection != null) {
+			chunkLoad.finish(rejection);
+		} else {
+			chunkLoad.cancel();
 		}
 	}
 
+	/**
+	 * Stops adding the rest of any playlists that are still loading. Tracks that
+	 * have already been added stay in the queue.
+	 */
+	private void cancelChunkLoads() {
+		List<ChunkLoad> cancelledLoads;
+		synchronized (chunkLoads) {
+			cancelledLoads = new ArrayList<>(chunkLoads);
+		}
+
+		cancelledLoads.forEach(ChunkLoad::cancel);
+	}
+
 	/**
 	 * Enqueues a given track, while appending extra track info.
 	 * 
@@ -198,10 +374,17 @@ class AudioSession extends AudioEventAdapter {
 		Preconditions.checkNotNull(user, "user must be non-null.");
 
 		AudioTrack clonedTrack = track.makeClone();
-		clonedTrack.setUserData(ExtraTrackInfo.builder().addedByUserId(user.getLongID())
-				.addTimestamp(System.currentTimeMillis()).build());
+		clonedTrack.setUserData(ExtraTrackInfo.builder().addedByUserId(user.getLongID()).build());
 
 		trackManager.put(clonedTrack);
+		lookAheadResolver.refresh();
+		prefetchSnippets(ImmutableList.of(clonedTrack));
+	}
+
+	private void prefetchSnippets(List<AudioTrack> tracks) {
+		if (snippetCache != null) {
+			snippetCache.prefetch(tracks);
+		}
 	}
 
 	/**
@@ -210,6 +393,7 @@ class AudioSession extends AudioEventAdapter {
 	 * playing, then no-op.
 	 */
 	public void play() {
+		AudioPlayer audioPlayer = audioProvider.getActivePlayer();
 		if (audioPlayer.isPaused()) {
 			audioPlayer.setPaused(false);
 		}
@@ -221,33 +405,201 @@ class AudioSession extends AudioEventAdapter {
 
 	private void playNext() {
 		trackManager.next().ifPresent(nextTrack -> {
-			audioPlayer.playTrack(nextTrack);
+			playNow(nextTrack);
 			botUtils.sendMessage(discordClient.getChannelByID(defaultChannelId), "Now playing **" + nextTrack.getInfo().title + "**");
 		});
 	}
 
+	/**
+	 * Plays a track that was just taken from the queue, replacing the current
+	 * track. If the track was preloaded, the preloaded copy takes over instead.
+	 */
+	private void playNow(AudioTrack nextTrack) {
+		AudioPlayer previousPlayer = audioProvider.getActivePlayer();
+
+		if (audioProvider.handOver(nextTrack)) {
+			// Stops the replaced track, if it hasn't ended already.
+			previousPlayer.stopTrack();
+
+			// The preloaded track started on the standby player, so there won't be a
+			// start event for it now.
+			trackStarted(audioProvider.getActivePlayer().getPlayingTrack());
+		} else {
+			audioProvider.cancelPreload();
+			previousPlayer.playTrack(nextTrack);
+		}
+	}
+
+	/**
+	 * Schedules the next track to be preloaded shortly before the current one
+	 * ends, replacing any preload that was scheduled before. Should be called
+	 * whenever the current track, its position, or whether it's advancing
+	 * changes.
+	 */
+	private synchronized void schedulePreload() {
+		if (scheduledPreload != null) {
+			scheduledPreload.cancel(false);
+			scheduledPreload = null;
+		}
+
+		if (!audioProvider.isPreloadEnabled() || destroyed) {
+			return;
+		}
+
+		AudioTrack nowPlaying = audioProvider.getActivePlayer().getPlayingTrack();
+		if (nowPlaying == null || nowPlaying.getInfo().isStream || nowPlaying.getDuration() == Long.MAX_VALUE) {
+			return;
+		}
+
+		long delayMs = Math.max(0, nowPlaying.getDuration() - nowPlaying.getPosition() - PRELOAD_MS);
+		scheduledPreload = scheduler.schedule(this::preloadNext, delayMs, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Preloads the next track if the current one is about to end. Drops the
+	 * preloaded track if it's no longer next.
+	 */
+	private void preloadNext() {
+		try {
+			AudioPlayer audioPlayer = audioProvider.getActivePlayer();
+			AudioTrack nowPlaying = audioPlayer.getPlayingTrack();
+			if (nowPlaying == null || audioPlayer.isPaused() || repeatMode == RepeatMode.ONE) {
+				// Rescheduled when the next track starts or the player is resumed.
+				return;
+			}
+
+			if (nowPlaying.getDuration() - nowPlaying.getPosition() > PRELOAD_MS) {
+				// Playback fell behind, such as while buffering.
+				schedulePreload();
+				return;
+			}
+
+			List<AudioTrack> upcoming = trackManager.slice(0, 1);
+			AudioTrack nextTrack = upcoming.isEmpty() ? null : upcoming.get(0);
+
+			AudioTrack preloadedSource = audioProvider.getPreloadedSource();
+			if (preloadedSource != null && preloadedSource != nextTrack) {
+				audioProvider.cancelPreload();
+				preloadedSource = null;
+			}
+
+			if (nextTrack != null && preloadedSource == null) {
+				audioProvider.preload(nextTrack, clone(nextTrack));
+			}
+		} catch (Exception e) {
+			LOG.warn("Unable to preload the next track.", e);
+		}
+	}
+
+	/**
+	 * Drops the preloaded track if it's no longer the next one, such as after it
+	 * was skipped, so that the standby player doesn't keep streaming it. The new
+	 * next track is preloaded when it's time.
+	 */
+	private void dropStalePreload() {
+		AudioTrack preloadedSource = audioProvider.getPreloadedSource();
+		if (preloadedSource == null) {
+			return;
+		}
+
+		List<AudioTrack> upcoming = trackManager.slice(0, 1);
+		if (upcoming.isEmpty() || upcoming.get(0) != preloadedSource) {
+			audioProvider.cancelPreload();
+			schedulePreload();
+		}
+	}
+
 	/**
 	 * Gets information about this {@link AudioSession}.
 	 * 
 	 * @return {@link AudioSessionStatus}. Never null.
 	 */
 	public AudioSessionStatus getStatus() {
-		return AudioSessionStatus.builder().nowPlaying(audioPlayer.getPlayingTrack())
-				.upcomingTracks(trackManager.getView()).playMode(playMode).repeatMode(repeatMode).build();
+		TrackQueueSnapshot snapshot = trackManager.getSnapshot();
+
+		return AudioSessionStatus.builder().nowPlaying(audioProvider.getActivePlayer().getPlayingTrack())
+				.upcomingTracks(snapshot.getTracks()).queueVersion(snapshot.getVersion()).playMode(trackManager.getPlayMode())
+				.repeatMode(repeatMode).build();
+	}
+
+	/**
+	 * Gets the currently playing track.
+	 * 
+	 * @return The currently playing track, if any.
+	 */
+	public Optional<AudioTrack> getNowPlaying() {
+		return Optional.ofNullable(audioProvider.getActivePlayer().getPlayingTrack());
 	}
 
 	/**
-	 * Destroys the audio player.
+	 * Gets a range of the upcoming tracks. Unlike {@link #getStatus()}, this does
+	 * not copy the entire queue.
+	 * 
+	 * @param offset
+	 *            The index of the first track to include. Must be non-negative.
+	 * @param limit
+	 *            The maximum number of tracks to include. Must be non-negative.
+	 * @return An immutable list of the upcoming tracks in the given range.
+	 */
+	public List<AudioTrack> getUpcomingTracks(int offset, int limit) {
+		return trackManager.slice(offset, limit);
+	}
+
+	/**
+	 * Gets aggregate figures about the upcoming tracks.
+	 * 
+	 * @return {@link TrackQueueStats}. Never null.
+	 */
+	public TrackQueueStats getQueueStats() {
+		return trackManager.getStats();
+	}
+
+	/**
+	 * Gets aggregate figures about the upcoming tracks that were added by a given
+	 * user.
+	 * 
+	 * @param userId
+	 *            The ID of the user who added the tracks.
+	 * @return {@link TrackQueueStats}. Never null.
+	 */
+	public TrackQueueStats getQueueStats(long userId) {
+		return trackManager.getStats(userId);
+	}
+
+	/**
+	 * Whether this session has been destroyed.
+	 * 
+	 * @return True if {@link #destroy()} has been called.
+	 */
+	public boolean isDestroyed() {
+		return destroyed;
+	}
+
+	/**
+	 * Destroys the audio player. Playlists that are still loading stop being added
+	 * to the queue.
 	 */
 	public void destroy() {
-		audioPlayer.destroy();
+		destroyed = true;
+		cancelChunkLoads();
+		lookAheadResolver.shutdown();
+		// Only cancels the scheduled preload, now that this session is destroyed.
+		schedulePreload();
+		audioProvider.destroy();
 	}
 
 	/**
-	 * Stops playing the current track. The songs up next are preserved.
+	 * Stops playing the current track, and stops adding the rest of any playlists
+	 * that are still loading. The songs up next are preserved.
 	 */
 	public void stop() {
-		audioPlayer.stopTrack();
+		cancelChunkLoads();
+		stopPlaying();
+	}
+
+	private void stopPlaying() {
+		audioProvider.cancelPreload();
+		audioProvider.getActivePlayer().stopTrack();
 	}
 
 	/**
@@ -257,7 +609,7 @@ class AudioSession extends AudioEventAdapter {
 	 *            True if the player should be paused. False to resume.
 	 */
 	public void setPaused(boolean paused) {
-		audioPlayer.setPaused(paused);
+		audioProvider.getActivePlayer().setPaused(paused);
 	}
 
 	/**
@@ -266,11 +618,12 @@ class AudioSession extends AudioEventAdapter {
 	 * @return
 	 */
 	public boolean isPaused() {
-		return audioPlayer.isPaused();
+		return audioProvider.getActivePlayer().isPaused();
 	}
 
 	/**
-	 * Sets the {@link PlayMode}.
+	 * Sets the {@link PlayMode}. The upcoming tracks are kept; only their order
+	 * changes.
 	 * 
 	 * @param mode
 	 *            {@link PlayMode}. Non-null.
@@ -278,25 +631,9 @@ class AudioSession extends AudioEventAdapter {
 	public void setPlayMode(PlayMode mode) {
 		Preconditions.checkNotNull(mode, "mode must be non-null.");
 
-		List<AudioTrack> audioTracks;
-		if (this.trackManager == null) {
-			audioTracks = new ArrayList<>();
-		} else {
-			audioTracks = this.trackManager.getView();
-		}
-
-		if (mode == PlayMode.STANDARD) {
-			this.trackManager = TrackManagers.sortedByAddTimestamp(audioTracks);
-		} else if (mode == PlayMode.SHUFFLE) {
-			this.trackManager = TrackManagers.shuffled(audioTracks);
-		} else if (mode == PlayMode.ROUND_ROBIN) {
-			// TODO: Switching mode away from Round robin will only grab a subset of tracks.
-			this.trackManager = TrackManagers.roundRobin(audioTracks);
-		} else {
-			throw new IllegalArgumentException("Unknown PlayMode " + mode);
-		}
-
-		this.playMode = mode;
+		trackManager.setPlayMode(mode);
+		lookAheadResolver.refresh();
+		dropStalePreload();
 	}
 
 	/**
@@ -309,6 +646,13 @@ class AudioSession extends AudioEventAdapter {
 		Preconditions.checkNotNull(mode, "mode must be non-null.");
 
 		this.repeatMode = mode;
+
+		if (mode == RepeatMode.ONE) {
+			// The current track will be played again instead of the preloaded one.
+			audioProvider.cancelPreload();
+		} else {
+			schedulePreload();
+		}
 	}
 
 	/**
@@ -319,7 +663,7 @@ class AudioSession extends AudioEventAdapter {
 	 * @return The skipped track.
 	 */
 	public Optional<AudioTrack> skip() {
-		AudioTrack skipTrack = audioPlayer.getPlayingTrack();
+		AudioTrack skipTrack = audioProvider.getActivePlayer().getPlayingTrack();
 		if (skipTrack == null) {
 			return Optional.empty();
 		}
@@ -332,14 +676,28 @@ class AudioSession extends AudioEventAdapter {
 				trackManager.put(clone(skipTrack));
 			}
 
-			audioPlayer.playTrack(nextTrack.get());
+			playNow(nextTrack.get());
 		} else {
-			this.stop();
+			stopPlaying();
 		}
 
 		return Optional.of(skipTrack);
 	}
 
+	/**
+	 * Skips all of the upcoming tracks, including the rest of any playlists that
+	 * are still loading.
+	 * 
+	 * @return The skipped tracks.
+	 */
+	public List<AudioTrack> skipAll() {
+		// No more chunks are added once this returns, so none of them are left
+		// behind in the queue.
+		cancelChunkLoads();
+
+		return skip(track -> true);
+	}
+
 	/**
 	 * Skips tracks by {@link Predicate}. Tracks which satisfy the predicate will be
 	 * removed.
@@ -351,7 +709,51 @@ class AudioSession extends AudioEventAdapter {
 	public List<AudioTrack> skip(Predicate<AudioTrack> predicate) {
 		Preconditions.checkNotNull(predicate, "predicate must be non-null.");
 
-		return this.trackManager.removeAll(predicate);
+		List<AudioTrack> skippedTracks = this.trackManager.removeAll(predicate);
+		lookAheadResolver.refresh();
+		dropStalePreload();
+
+		return skippedTracks;
+	}
+
+	/**
+	 * Skips the upcoming tracks that were added by a given user.
+	 * 
+	 * @param userId
+	 *            The ID of the user who added the tracks.
+	 * @return The skipped tracks.
+	 */
+	public List<AudioTrack> skipTracksAddedBy(long userId) {
+		List<AudioTrack> skippedTracks = this.trackManager.removeByOwner(userId);
+		lookAheadResolver.refresh();
+		dropStalePreload();
+
+		return skippedTracks;
+	}
+
+	/**
+	 * Skips upcoming tracks by position.
+	 * 
+	 * @param sortedIndices
+	 *            Zero-based positions in the upcoming tracks, in strictly ascending
+	 *            order. Non-null.
+	 * @param expectedTracks
+	 *            The tracks that were at those positions in the
+	 *            {@link AudioSessionStatus#getUpcomingTracks()} that the positions
+	 *            were read from. Non-null.
+	 * @return The skipped tracks.
+	 * @throws QueueChangedException
+	 *             If any of those tracks has moved since.
+	 */
+	public List<AudioTrack> skip(int[] sortedIndices, List<AudioTrack> expectedTracks) {
+		Preconditions.checkNotNull(sortedIndices, "sortedIndices must be non-null.");
+		Preconditions.checkNotNull(expectedTracks, "expectedTracks must be non-null.");
+
+		List<AudioTrack> skippedTracks = this.trackManager.removeAt(sortedIndices, expectedTracks);
+		lookAheadResolver.refresh();
+		dropStalePreload();
+
+		return skippedTracks;
 	}
 
 	/**
@@ -384,7 +786,7 @@ class AudioSession extends AudioEventAdapter {
 			Preconditions.checkArgument(time >= 0, "time must be non-negative when seekType is ABSOLUTE.");
 		}
 
-		AudioTrack nowPlaying = audioPlayer.getPlayingTrack();
+		AudioTrack nowPlaying = audioProvider.getActivePlayer().getPlayingTrack();
 		if (nowPlaying == null) {
 			return Optional.empty();
 		}
@@ -397,16 +799,16 @@ class AudioSession extends AudioEventAdapter {
 		newPosition = Math.min(nowPlaying.getDuration(), newPosition);
 
 		nowPlaying.setPosition(newPosition);
+		schedulePreload();
 
 		return Optional.of(nowPlaying);
 	}
 
 	private AudioTrack clone(AudioTrack originalAudioTrack) {
 		AudioTrack clonedAudioTrack = originalAudioTrack.makeClone();
-		ExtraTrackInfo originalExtraTrackInfo = originalAudioTrack.getUserData(ExtraTrackInfo.class);
 
-		clonedAudioTrack.setUserData(ExtraTrackInfo.builder().addedByUserId(originalExtraTrackInfo.getAddedByUserId())
-				.addTimestamp(System.currentTimeMillis()).build());
+		// ExtraTrackInfo is immutable, so the clone can share it.
+		clonedAudioTrack.setUserData(originalAudioTrack.getUserData());
 
 		return clonedAudioTrack;
 	}
@@ -420,40 +822,103 @@ class AudioSession extends AudioEventAdapter {
 		}
 	}
 
-	private static class TrackManagers {
+	/**
+	 * Adds the remaining chunks of a playlist to the queue. <br/>
+	 * Chunks are only added while holding the lock on {@link #chunkLoads}, and
+	 * only if the load hasn't been cancelled. So once {@link #cancelChunkLoads()}
+	 * returns, no more of the playlist will be added.
+	 */
+	private class ChunkLoad {
+
+		private final IncrementalAudioPlaylist playlist;
+		private final ExtraTrackInfo extraTrackInfo;
+		private final PlaylistLoadProgress progress;
+		private final AtomicBoolean finished;
+
+		// Both are guarded by chunkLoads.
+		private Future<?> future;
+		private boolean cancelled;
+
+		public ChunkLoad(IncrementalAudioPlaylist playlist, ExtraTrackInfo extraTrackInfo,
+				PlaylistLoadProgress progress) {
+			this.playlist = playlist;
+			this.extraTrackInfo = extraTrackInfo;
+			this.progress = progress;
+			this.finished = new AtomicBoolean(false);
+		}
 
-		public static SortingTrackManager sortedByAddTimestamp(Collection<AudioTrack> tracks) {
-			SortingTrackManager trackManager = new SortingTrackManager(new Comparator<AudioTrack>() {
+		public void run() {
+			Iterator<List<AudioTrack>> chunks = playlist.getRemainingChunks();
 
-				@Override
-				public int compare(AudioTrack t1, AudioTrack t2) {
+			try {
+				while (chunks.hasNext()) {
+					List<AudioTrack> chunk = chunks.next();
+					if (chunk.isEmpty()) {
+						continue;
+					}
+
+					chunk.forEach(track -> track.setUserData(extraTrackInfo));
+					synchronized (chunkLoads) {
+						if (cancelled) {
+							return;
+						}
 
-					long diff = t1.getUserData(ExtraTrackInfo.class).getAddTimestamp()
-							- t2.getUserData(ExtraTrackInfo.class).getAddTimestamp();
-					if (diff < 0) {
-						return -1;
-					} else if (diff > 0) {
-						return 1;
+						trackManager.putAll(chunk);
 					}
 
-					return 0;
+					lookAheadResolver.refresh();
+					prefetchSnippets(chunk);
+					progress.chunkLoaded(chunk.size());
 				}
-			});
-			trackManager.putAll(tracks);
-
-			return trackManager;
+			} catch (Exception e) {
+				finish(e);
+			} finally {
+				finish(null);
+			}
 		}
 
-		public static ShufflingTrackManager shuffled(Collection<AudioTrack> tracks) {
-			ShufflingTrackManager trackManager = new ShufflingTrackManager();
-			trackManager.putAll(tracks);
-			return trackManager;
+		/**
+		 * Stops the load. The playlist is closed right away, even if the load is
+		 * still waiting on it.
+		 */
+		public void cancel() {
+			Future<?> future;
+			synchronized (chunkLoads) {
+				cancelled = true;
+				future = this.future;
+			}
+
+			if (future != null) {
+				future.cancel(true);
+			}
+
+			finish(null);
 		}
 
-		public static RoundRobinTrackManager roundRobin(Collection<AudioTrack> tracks) {
-			RoundRobinTrackManager trackManager = new RoundRobinTrackManager();
-			trackManager.putAll(tracks);
-			return trackManager;
+		/**
+		 * Closes the playlist and reports how the load ended. Only the first call
+		 * has any effect.
+		 */
+		private void finish(Exception failure) {
+			if (!finished.compareAndSet(false, true)) {
+				return;
+			}
+
+			boolean wasCancelled;
+			synchronized (chunkLoads) {
+				chunkLoads.remove(this);
+				wasCancelled = cancelled;
+			}
+
+			playlist.close();
+
+			if (wasCancelled) {
+				progress.cancelled();
+			} else if (failure != null) {
+				progress.failed(failure);
+			} else {
+				progress.done();
+			}
 		}
 	}
 }
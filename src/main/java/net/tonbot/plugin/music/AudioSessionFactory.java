@@ -1,7 +1,9 @@
 package net.tonbot.plugin.music;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
 import com.google.common.base.Preconditions;
-import com.google.inject.Inject;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
 
@@ -14,24 +16,41 @@ class AudioSessionFactory {
 	private final IDiscordClient discordClient;
 	private final AudioPlayerManager audioPlayerManager;
 	private final BotUtils botUtils;
-
-	@Inject
-	public AudioSessionFactory(IDiscordClient discordClient, AudioPlayerManager audioPlayerManager, BotUtils botUtils) {
+	private final ScheduledExecutorService scheduler;
+	private final ExecutorService playlistLoader;
+	private final TrackResolverService resolverService;
+	private final boolean gaplessPlayback;
+	private final YouTubeSnippetCache snippetCache;
+
+	public AudioSessionFactory(IDiscordClient discordClient, AudioPlayerManager audioPlayerManager, BotUtils botUtils,
+			ScheduledExecutorService scheduler, ExecutorService playlistLoader, TrackResolverService resolverService,
+			boolean gaplessPlayback, YouTubeSnippetCache snippetCache) {
 		this.discordClient = Preconditions.checkNotNull(discordClient, "discordClient must be non-null.");
 		this.audioPlayerManager = Preconditions.checkNotNull(audioPlayerManager,
 				"audioPlayerManager must be non-null.");
 		this.botUtils = Preconditions.checkNotNull(botUtils, "botUtils must be non-null.");
+		this.scheduler = Preconditions.checkNotNull(scheduler, "scheduler must be non-null.");
+		this.playlistLoader = Preconditions.checkNotNull(playlistLoader, "playlistLoader must be non-null.");
+		this.resolverService = Preconditions.checkNotNull(resolverService, "resolverService must be non-null.");
+		this.gaplessPlayback = gaplessPlayback;
+		this.snippetCache = snippetCache;
 	}
 
 	public AudioSession create(long guildId, long textChannelId) {
 		IGuild guild = discordClient.getGuildByID(guildId);
 
 		AudioPlayer audioPlayer = audioPlayerManager.createPlayer();
-		guild.getAudioManager().setAudioProvider(new LavaplayerAudioProvider(audioPlayer));
+		// A second player is needed to preload the next track.
+		AudioPlayer standbyPlayer = gaplessPlayback ? audioPlayerManager.createPlayer() : null;
+		LavaplayerAudioProvider audioProvider = new LavaplayerAudioProvider(audioPlayer, standbyPlayer);
+		guild.getAudioManager().setAudioProvider(audioProvider);
 
-		AudioSession audioSession = new AudioSession(discordClient, audioPlayerManager, audioPlayer, textChannelId,
-				botUtils);
+		AudioSession audioSession = new AudioSession(discordClient, audioPlayerManager, audioProvider, textChannelId,
+				botUtils, scheduler, playlistLoader, resolverService, snippetCache);
 		audioPlayer.addListener(audioSession);
+		if (standbyPlayer != null) {
+			standbyPlayer.addListener(audioSession);
+		}
 
 		return audioSession;
 	}
@@ -15,16 +15,18 @@ class AudioSessionStatus {
 
 	private final AudioTrack nowPlaying;
 	private final List<AudioTrack> upcomingTracks;
+	private final long queueVersion;
 	private final PlayMode playMode;
 	private final RepeatMode repeatMode;
 
 	@Builder
-	private AudioSessionStatus(AudioTrack nowPlaying, List<AudioTrack> upcomingTracks, PlayMode playMode,
-			RepeatMode repeatMode) {
+	private AudioSessionStatus(AudioTrack nowPlaying, List<AudioTrack> upcomingTracks, long queueVersion,
+			PlayMode playMode, RepeatMode repeatMode) {
 		this.nowPlaying = nowPlaying;
 
 		Preconditions.checkNotNull(upcomingTracks, "upcomingTracks must be non-null.");
 		this.upcomingTracks = ImmutableList.copyOf(upcomingTracks);
+		this.queueVersion = queueVersion;
 
 		this.playMode = Preconditions.checkNotNull(playMode, "playMode must be non-null.");
 		this.repeatMode = Preconditions.checkNotNull(repeatMode, "repeatMode must be non-null.");
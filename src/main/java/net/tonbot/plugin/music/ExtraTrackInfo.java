@@ -2,15 +2,14 @@ package net.tonbot.plugin.music;
 
 import lombok.Builder;
 import lombok.Data;
-import lombok.NonNull;
 
+/**
+ * Attached to every queued track as its user data. Immutable, so clones of a
+ * track (e.g. when repeating) share the same instance.
+ */
 @Data
 @Builder
 class ExtraTrackInfo {
 
-	@NonNull
-	private final Long addedByUserId;
-
-	@NonNull
-	private final Long addTimestamp;
+	private final long addedByUserId;
 }
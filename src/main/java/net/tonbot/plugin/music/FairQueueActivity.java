@@ -0,0 +1,33 @@
+package net.tonbot.plugin.music;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Inject;
+
+import net.tonbot.common.ActivityDescriptor;
+import net.tonbot.common.BotUtils;
+
+class FairQueueActivity extends BinaryModeChangingActivity {
+
+	private static final ActivityDescriptor ACTIVITY_DESCRIPTOR = ActivityDescriptor.builder().route("music fair")
+			.parameters(ImmutableList.of("[on/off]")).description("Toggles fair queue mode.")
+			.usageDescription("Fair queue is like round robin, except that users take turns by play time instead "
+					+ "of by track count. Someone who queues long tracks will get fewer plays than someone who "
+					+ "queues short tracks, so that everyone gets a fair share of listening time. "
+					+ "Streams count as 5 minutes each.")
+			.build();
+
+	@Inject
+	public FairQueueActivity(GuildMusicManager guildMusicManager, BotUtils botUtils) {
+		super(guildMusicManager, botUtils);
+	}
+
+	@Override
+	public ActivityDescriptor getDescriptor() {
+		return ACTIVITY_DESCRIPTOR;
+	}
+
+	@Override
+	protected PlayMode onMode() {
+		return PlayMode.FAIR_QUEUE;
+	}
+}
@@ -0,0 +1,209 @@
+package net.tonbot.plugin.music;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import net.tonbot.plugin.music.OwnerIndex.OwnerQueue;
+
+/**
+ * Shares play time fairly between users, regardless of how long their tracks
+ * are (start-time fair queuing). Each user has a virtual start time which
+ * advances by the length of every track of theirs that plays. The user with the
+ * earliest virtual start time goes next, so a user who queues long tracks
+ * plays less often than one who queues short tracks. <br/>
+ * Users who join (or rejoin) start at the current virtual time, so they can't
+ * save up credit while they have nothing queued. <br/>
+ * Users are kept in a tree ordered by virtual start time, so add, remove and
+ * poll are O(log users). Each user's entries come from the store's
+ * {@link OwnerIndex}, under the same contract as {@link RoundRobinTrackIndex}.
+ */
+class FairQueueTrackIndex implements TrackIndex {
+
+	/**
+	 * Streams have no length, so they are charged as if they were this long.
+	 */
+	static final long STREAM_CHARGE_MS = TimeUnit.MINUTES.toMillis(5);
+
+	private static final Comparator<UserState> SCHEDULING_ORDER = Comparator
+			.comparingLong((UserState state) -> state.virtualStart).thenComparingLong(state -> state.joinOrder);
+
+	private final OwnerIndex owners;
+	private final Map<Long, UserState> statesByUserId;
+	private final TreeSet<UserState> schedule;
+
+	private long virtualTime;
+	private long nextJoinOrder;
+
+	public FairQueueTrackIndex(OwnerIndex owners) {
+		this.owners = Preconditions.checkNotNull(owners, "owners must be non-null.");
+		this.statesByUserId = new HashMap<>();
+		this.schedule = new TreeSet<>(SCHEDULING_ORDER);
+		this.virtualTime = 0;
+		this.nextJoinOrder = 0;
+	}
+
+	@Override
+	public void add(QueueEntry entry) {
+		long userId = entry.getOwnerId();
+		if (!statesByUserId.containsKey(userId)) {
+			// New user! They start now, behind users who are already waiting at this time.
+			UserState state = new UserState(userId, virtualTime, nextJoinOrder++);
+			statesByUserId.put(userId, state);
+			schedule.add(state);
+		}
+	}
+
+	@Override
+	public void addAll(List<QueueEntry> entries) {
+		entries.forEach(entry -> add(entry));
+	}
+
+	@Override
+	public void remove(QueueEntry entry) {
+		if (queueOf(entry).size() == 1) {
+			// This is the user's last entry.
+			leave(entry.getOwnerId());
+		}
+	}
+
+	@Override
+	public void removeAll(Set<QueueEntry> entries) {
+		Map<OwnerQueue, Integer> removalCounts = new IdentityHashMap<>();
+		entries.forEach(entry -> removalCounts.merge(queueOf(entry), 1, Integer::sum));
+
+		removalCounts.forEach((ownerQueue, removalCount) -> {
+			if (ownerQueue.size() == removalCount) {
+				leave(ownerQueue.getOwnerId());
+			}
+		});
+	}
+
+	@Override
+	public QueueEntry poll() {
+		UserState state = schedule.pollFirst();
+		if (state == null) {
+			return null;
+		}
+
+		OwnerQueue ownerQueue = owners.get(state.userId).get();
+		QueueEntry nextEntry = ownerQueue.first();
+
+		virtualTime = state.virtualStart;
+
+		if (ownerQueue.size() == 1) {
+			statesByUserId.remove(state.userId);
+		} else {
+			state.virtualStart += charge(nextEntry);
+			schedule.add(state);
+		}
+
+		return nextEntry;
+	}
+
+	/**
+	 * Simulates {@link #poll()} on a copy of the schedule. O(users + to * log
+	 * users).
+	 */
+	@Override
+	public List<QueueEntry> slice(int from, int to) {
+		PriorityQueue<Cursor> cursors = new PriorityQueue<>(Math.max(1, schedule.size()));
+		for (UserState state : schedule) {
+			Iterator<QueueEntry> entries = owners.get(state.userId).get().getEntries().iterator();
+			cursors.add(new Cursor(state.virtualStart, state.joinOrder, entries));
+		}
+
+		ImmutableList.Builder<QueueEntry> builder = ImmutableList.builder();
+		int index = 0;
+		while (!cursors.isEmpty() && index < to) {
+			Cursor cursor = cursors.poll();
+			QueueEntry entry = cursor.entries.next();
+			if (index >= from) {
+				builder.add(entry);
+			}
+			index++;
+
+			if (cursor.entries.hasNext()) {
+				cursor.virtualStart += charge(entry);
+				cursors.add(cursor);
+			}
+		}
+
+		return builder.build();
+	}
+
+	/**
+	 * Gets how much virtual time an entry costs its owner.
+	 */
+	private static long charge(QueueEntry entry) {
+		if (entry.isStream() || entry.getDuration() <= 0 || entry.getDuration() == Long.MAX_VALUE) {
+			return STREAM_CHARGE_MS;
+		}
+
+		return entry.getDuration();
+	}
+
+	private void leave(long userId) {
+		UserState state = statesByUserId.remove(userId);
+		Preconditions.checkState(state != null, "user is not in the schedule.");
+
+		schedule.remove(state);
+	}
+
+	private OwnerQueue queueOf(QueueEntry entry) {
+		OwnerQueue ownerQueue = owners.get(entry.getOwnerId()).orElse(null);
+		Preconditions.checkState(ownerQueue != null && ownerQueue.getEntries().contains(entry),
+				"entry is not in the owner index.");
+
+		return ownerQueue;
+	}
+
+	/**
+	 * A user's place in the schedule. Must be taken out of the schedule before
+	 * its virtual start time is changed.
+	 */
+	private static class UserState {
+		private final long userId;
+		private final long joinOrder;
+
+		private long virtualStart;
+
+		public UserState(long userId, long virtualStart, long joinOrder) {
+			this.userId = userId;
+			this.virtualStart = virtualStart;
+			this.joinOrder = joinOrder;
+		}
+	}
+
+	/**
+	 * A user's place in a simulated schedule.
+	 */
+	private static class Cursor implements Comparable<Cursor> {
+		private final long joinOrder;
+		private final Iterator<QueueEntry> entries;
+
+		private long virtualStart;
+
+		public Cursor(long virtualStart, long joinOrder, Iterator<QueueEntry> entries) {
+			this.virtualStart = virtualStart;
+			this.joinOrder = joinOrder;
+			this.entries = entries;
+		}
+
+		@Override
+		public int compareTo(Cursor other) {
+			int result = Long.compare(virtualStart, other.virtualStart);
+			return result != 0 ? result : Long.compare(joinOrder, other.joinOrder);
+		}
+	}
+}
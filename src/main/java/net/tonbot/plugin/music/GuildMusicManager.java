@@ -4,6 +4,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
@@ -12,7 +13,6 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
-import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -98,25 +98,35 @@ class GuildMusicManager {
 	 *             if an IOException occurs.
 	 */
 	public void save() {
+		saveDirLock.lock();
 		try {
-			// Write to a temp dir first and then atomically move it to the target
-			File tmpDir = new File(Files.createTempDirectory("gmm").toString());
-			System.out.println("Temp directory created at: " + tmpDir.getAbsolutePath());
+			Files.createDirectories(saveDir.toPath());
+
 			for (Entry<Long, MusicState> entry : states.entrySet()) {
 				long guildId = entry.getKey();
-				File guildFile = new File(tmpDir, Long.toString(guildId));
-				guildFile.createNewFile();
-
-				MusicState state = entry.getValue();
-				objectMapper.writeValue(guildFile, state.getPermissionManager().getPermissions());
+				File guildFile = new File(saveDir, Long.toString(guildId));
+
+				// Write to a temp file first and then atomically move it to the target. Only
+				// the guild's own file is replaced since the save directory is shared with
+				// other files, such as caches.
+				File tmpFile = File.createTempFile("gmm", ".tmp", saveDir);
+				try {
+					MusicState state = entry.getValue();
+					objectMapper.writeValue(tmpFile, state.getPermissionManager().getPermissions());
+
+					Files.move(tmpFile.toPath(), guildFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+							StandardCopyOption.ATOMIC_MOVE);
+				} finally {
+					// Only left behind if the write or the move failed.
+					Files.deleteIfExists(tmpFile.toPath());
+				}
 			}
 
-			FileUtils.deleteDirectory(saveDir);
-			FileUtils.moveDirectory(tmpDir, saveDir);
-
 			System.out.println("Permissions saved to: " + saveDir.getAbsolutePath());
 		} catch (IOException e) {
 			throw new UncheckedIOException(e);
+		} finally {
+			saveDirLock.unlock();
 		}
 	}
 
@@ -0,0 +1,144 @@
+package net.tonbot.plugin.music;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.BasicAudioPlaylist;
+
+/**
+ * An {@link AudioPlaylist} whose tracks arrive in chunks, so that the first
+ * tracks can be played while the rest of the playlist is still being fetched.
+ * {@link #getTracks()} only returns the first chunk. The remaining chunks are
+ * fetched on demand by {@link #getRemainingChunks()}, which may perform I/O on
+ * every call to {@code next()}. <br/>
+ * Whoever consumes the remaining chunks must {@link #close()} the playlist when
+ * they are done with it, whether or not every chunk was consumed, so that the
+ * source can stop fetching and release what it holds.
+ */
+public class IncrementalAudioPlaylist implements AudioPlaylist {
+
+	private static final Logger LOG = LoggerFactory.getLogger(IncrementalAudioPlaylist.class);
+
+	private final String name;
+	private final List<AudioTrack> firstChunk;
+	private final Iterator<List<AudioTrack>> remainingChunks;
+	private final Runnable onClose;
+	private final AtomicBoolean closed;
+
+	private IncrementalAudioPlaylist(String name, List<AudioTrack> firstChunk,
+			Iterator<List<AudioTrack>> remainingChunks, Runnable onClose) {
+		this.name = name;
+		this.firstChunk = ImmutableList.copyOf(firstChunk);
+		this.remainingChunks = remainingChunks;
+		this.onClose = onClose;
+		this.closed = new AtomicBoolean(false);
+	}
+
+	/**
+	 * Creates a playlist from chunks of tracks. Chunks are fetched until a
+	 * non-empty one is found. If that was the only chunk, then a regular
+	 * {@link BasicAudioPlaylist} is returned instead.
+	 * 
+	 * @param name
+	 *            The playlist name. Nullable.
+	 * @param chunks
+	 *            The chunks of tracks, in play order. Non-null.
+	 * @return An {@link AudioPlaylist}.
+	 */
+	public static AudioPlaylist of(String name, Iterator<List<AudioTrack>> chunks) {
+		return of(name, chunks, () -> {
+		});
+	}
+
+	/**
+	 * Creates a playlist from chunks of tracks, like
+	 * {@link #of(String, Iterator)}. {@code onClose} is run when the playlist is
+	 * closed. If a regular {@link BasicAudioPlaylist} is returned instead, or
+	 * fetching the first chunk fails, then it is run right away.
+	 * 
+	 * @param name
+	 *            The playlist name. Nullable.
+	 * @param chunks
+	 *            The chunks of tracks, in play order. Non-null.
+	 * @param onClose
+	 *            Stops fetching chunks and releases anything held for them. May be
+	 *            run from any thread, including while another thread is waiting
+	 *            on {@code chunks}. Non-null.
+	 * @return An {@link AudioPlaylist}.
+	 */
+	public static AudioPlaylist of(String name, Iterator<List<AudioTrack>> chunks, Runnable onClose) {
+		Preconditions.checkNotNull(chunks, "chunks must be non-null.");
+		Preconditions.checkNotNull(onClose, "onClose must be non-null.");
+
+		List<AudioTrack> firstChunk = ImmutableList.of();
+		try {
+			while (firstChunk.isEmpty() && chunks.hasNext()) {
+				firstChunk = chunks.next();
+			}
+
+			if (!chunks.hasNext()) {
+				onClose.run();
+				return new BasicAudioPlaylist(name, firstChunk, null, false);
+			}
+		} catch (RuntimeException e) {
+			onClose.run();
+			throw e;
+		}
+
+		return new IncrementalAudioPlaylist(name, firstChunk, chunks, onClose);
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public List<AudioTrack> getTracks() {
+		return firstChunk;
+	}
+
+	@Override
+	public AudioTrack getSelectedTrack() {
+		return null;
+	}
+
+	@Override
+	public boolean isSearchResult() {
+		return false;
+	}
+
+	/**
+	 * Gets the chunks after the first one. Must only be consumed once, by a
+	 * single thread.
+	 * 
+	 * @return The remaining chunks of tracks.
+	 */
+	public Iterator<List<AudioTrack>> getRemainingChunks() {
+		return remainingChunks;
+	}
+
+	/**
+	 * Stops fetching the remaining chunks. Only the first call has any effect.
+	 * May be called from any thread.
+	 */
+	public void close() {
+		if (!closed.compareAndSet(false, true)) {
+			return;
+		}
+
+		try {
+			onClose.run();
+		} catch (RuntimeException e) {
+			LOG.warn("Unable to close playlist {}", name, e);
+		}
+	}
+}
@@ -0,0 +1,356 @@
+package net.tonbot.plugin.music;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A list backed by a randomized binary search tree (Martínez and Roura) whose
+ * nodes are augmented with subtree sizes. Positional insertion, removal and
+ * access are all O(log n) expected. <br/>
+ * The tree can also be kept in sorted order by only inserting at the positions
+ * returned by {@link #upperBound(Object, Comparator)}. <br/>
+ * This class is NOT thread-safe.
+ *
+ * @param <T>
+ *            The element type.
+ */
+class IndexedTree<T> {
+
+	private Node<T> root;
+
+	public IndexedTree() {
+		this.root = null;
+	}
+
+	/**
+	 * Gets the number of elements.
+	 *
+	 * @return The number of elements.
+	 */
+	public int size() {
+		return size(root);
+	}
+
+	public boolean isEmpty() {
+		return root == null;
+	}
+
+	/**
+	 * Gets the element at the given position.
+	 *
+	 * @param index
+	 *            Zero-based position. Must be within bounds.
+	 * @return The element at {@code index}.
+	 * @throws IndexOutOfBoundsException
+	 *             if the index is out of bounds.
+	 */
+	public T get(int index) {
+		Preconditions.checkElementIndex(index, size());
+
+		Node<T> node = root;
+		while (true) {
+			int leftSize = size(node.left);
+			if (index < leftSize) {
+				node = node.left;
+			} else if (index > leftSize) {
+				index -= leftSize + 1;
+				node = node.right;
+			} else {
+				return node.value;
+			}
+		}
+	}
+
+	/**
+	 * Inserts an element at the given position. Elements at or after that
+	 * position are shifted back by one.
+	 *
+	 * @param index
+	 *            Zero-based position. Must be between 0 and {@link #size()},
+	 *            inclusive.
+	 * @param value
+	 *            The element.
+	 */
+	public void add(int index, T value) {
+		Preconditions.checkPositionIndex(index, size());
+
+		this.root = insert(root, index, new Node<>(value));
+	}
+
+	/**
+	 * Removes the element at the given position.
+	 *
+	 * @param index
+	 *            Zero-based position. Must be within bounds.
+	 * @return The removed element.
+	 * @throws IndexOutOfBoundsException
+	 *             if the index is out of bounds.
+	 */
+	public T removeAt(int index) {
+		Preconditions.checkElementIndex(index, size());
+
+		Removal<T> removal = new Removal<>();
+		this.root = remove(root, index, removal);
+		return removal.value;
+	}
+
+	/**
+	 * Removes every element that satisfies the given predicate. Runs in O(n).
+	 *
+	 * @param predicate
+	 *            {@link Predicate}. Non-null.
+	 * @return The removed elements, in list order.
+	 */
+	public List<T> removeIf(Predicate<? super T> predicate) {
+		Preconditions.checkNotNull(predicate, "predicate must be non-null.");
+
+		List<T> kept = new ArrayList<>(size());
+		ImmutableList.Builder<T> removed = ImmutableList.builder();
+		for (T value : toList()) {
+			if (predicate.test(value)) {
+				removed.add(value);
+			} else {
+				kept.add(value);
+			}
+		}
+
+		this.root = build(kept, 0, kept.size());
+
+		return removed.build();
+	}
+
+	/**
+	 * Replaces the contents of this tree with the given elements, in iteration
+	 * order. Runs in O(n).
+	 *
+	 * @param values
+	 *            The new elements. Non-null.
+	 */
+	public void reset(Collection<T> values) {
+		Preconditions.checkNotNull(values, "values must be non-null.");
+
+		List<T> list = new ArrayList<>(values);
+		this.root = build(list, 0, list.size());
+	}
+
+	public void clear() {
+		this.root = null;
+	}
+
+	/**
+	 * Counts the elements which are less than or equal to the given element. In a
+	 * tree which is sorted by {@code comparator}, this is the position at which
+	 * {@code value} should be inserted so that it goes after all of its equals.
+	 *
+	 * @param value
+	 *            The element to compare against.
+	 * @param comparator
+	 *            The {@link Comparator} which this tree is sorted by. Non-null.
+	 * @return The insertion position.
+	 */
+	public int upperBound(T value, Comparator<? super T> comparator) {
+		int index = 0;
+		Node<T> node = root;
+		while (node != null) {
+			if (comparator.compare(value, node.value) < 0) {
+				node = node.left;
+			} else {
+				index += size(node.left) + 1;
+				node = node.right;
+			}
+		}
+
+		return index;
+	}
+
+	/**
+	 * Gets the elements as an immutable list, in order. Runs in O(n).
+	 *
+	 * @return An immutable list of the elements.
+	 */
+	public List<T> toList() {
+		return sublist(0, size());
+	}
+
+	/**
+	 * Gets the elements in the range {@code [from, to)} as an immutable list.
+	 * Runs in O(log n + (to - from)).
+	 *
+	 * @param from
+	 *            The inclusive start position.
+	 * @param to
+	 *            The exclusive end position.
+	 * @return An immutable list of the elements in range.
+	 */
+	public List<T> sublist(int from, int to) {
+		Preconditions.checkPositionIndexes(from, to, size());
+
+		ImmutableList.Builder<T> builder = ImmutableList.builder();
+		collect(root, from, to, builder);
+		return builder.build();
+	}
+
+	private void collect(Node<T> node, int from, int to, ImmutableList.Builder<T> builder) {
+		// "from" and "to" are relative to the first element of this subtree.
+		if (node == null || from >= to) {
+			return;
+		}
+
+		int leftSize = size(node.left);
+		if (from < leftSize) {
+			collect(node.left, from, Math.min(to, leftSize), builder);
+		}
+
+		if (from <= leftSize && leftSize < to) {
+			builder.add(node.value);
+		}
+
+		if (to > leftSize + 1) {
+			collect(node.right, Math.max(0, from - leftSize - 1), to - leftSize - 1, builder);
+		}
+	}
+
+	private Node<T> insert(Node<T> node, int index, Node<T> newNode) {
+		if (node == null) {
+			return newNode;
+		}
+
+		// The new node becomes the root of this subtree with probability 1/(n+1).
+		// This is what keeps the tree balanced in expectation, regardless of the
+		// insertion positions.
+		if (ThreadLocalRandom.current().nextInt(node.size + 1) == 0) {
+			Split<T> split = split(node, index);
+			newNode.left = split.left;
+			newNode.right = split.right;
+			newNode.update();
+			return newNode;
+		}
+
+		int leftSize = size(node.left);
+		if (index <= leftSize) {
+			node.left = insert(node.left, index, newNode);
+		} else {
+			node.right = insert(node.right, index - leftSize - 1, newNode);
+		}
+
+		node.update();
+		return node;
+	}
+
+	private Node<T> remove(Node<T> node, int index, Removal<T> removal) {
+		int leftSize = size(node.left);
+		if (index < leftSize) {
+			node.left = remove(node.left, index, removal);
+		} else if (index > leftSize) {
+			node.right = remove(node.right, index - leftSize - 1, removal);
+		} else {
+			removal.value = node.value;
+			return join(node.left, node.right);
+		}
+
+		node.update();
+		return node;
+	}
+
+	/**
+	 * Splits the subtree so that the first {@code count} elements end up on the
+	 * left.
+	 */
+	private Split<T> split(Node<T> node, int count) {
+		if (node == null) {
+			return new Split<>(null, null);
+		}
+
+		int leftSize = size(node.left);
+		if (count <= leftSize) {
+			Split<T> split = split(node.left, count);
+			node.left = split.right;
+			node.update();
+			return new Split<>(split.left, node);
+		} else {
+			Split<T> split = split(node.right, count - leftSize - 1);
+			node.right = split.left;
+			node.update();
+			return new Split<>(node, split.right);
+		}
+	}
+
+	/**
+	 * Joins two subtrees where every element of {@code a} comes before every
+	 * element of {@code b}.
+	 */
+	private Node<T> join(Node<T> a, Node<T> b) {
+		if (a == null) {
+			return b;
+		}
+
+		if (b == null) {
+			return a;
+		}
+
+		if (ThreadLocalRandom.current().nextInt(a.size + b.size) < a.size) {
+			a.right = join(a.right, b);
+			a.update();
+			return a;
+		} else {
+			b.left = join(a, b.left);
+			b.update();
+			return b;
+		}
+	}
+
+	private Node<T> build(List<T> values, int from, int to) {
+		if (from >= to) {
+			return null;
+		}
+
+		int mid = (from + to) >>> 1;
+		Node<T> node = new Node<>(values.get(mid));
+		node.left = build(values, from, mid);
+		node.right = build(values, mid + 1, to);
+		node.update();
+
+		return node;
+	}
+
+	private static int size(Node<?> node) {
+		return node == null ? 0 : node.size;
+	}
+
+	private static class Node<T> {
+		private final T value;
+		private Node<T> left;
+		private Node<T> right;
+		private int size;
+
+		public Node(T value) {
+			this.value = value;
+			this.size = 1;
+		}
+
+		public void update() {
+			this.size = 1 + size(left) + size(right);
+		}
+	}
+
+	private static class Split<T> {
+		private final Node<T> left;
+		private final Node<T> right;
+
+		public Split(Node<T> left, Node<T> right) {
+			this.left = left;
+			this.right = right;
+		}
+	}
+
+	private static class Removal<T> {
+		private T value;
+	}
+}
@@ -2,19 +2,43 @@ package net.tonbot.plugin.music;
 
 import com.google.common.base.Preconditions;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
 import com.sedmelluq.discord.lavaplayer.track.playback.AudioFrame;
 
 import sx.blah.discord.handle.audio.AudioEncodingType;
 import sx.blah.discord.handle.audio.IAudioProvider;
 
+/**
+ * Provides frames from the active {@link AudioPlayer}. <br/>
+ * For gapless playback, a second standby player can be given. The next track
+ * can be preloaded on the standby player while the active player is still
+ * playing, so that its stream is already connected and buffered by the time it
+ * is handed over. Since the standby player isn't provided from until then,
+ * the preloaded track doesn't advance.
+ */
 class LavaplayerAudioProvider implements IAudioProvider {
 
-	private final AudioPlayer audioPlayer;
+	private volatile AudioPlayer activePlayer;
+	private volatile AudioPlayer standbyPlayer;
+
+	// Guarded by this.
+	private AudioTrack preloadedSource;
 
 	private AudioFrame lastFrame = null;
 
-	public LavaplayerAudioProvider(AudioPlayer audioPlayer) {
-		this.audioPlayer = Preconditions.checkNotNull(audioPlayer, "audioPlayer must be non-null.");
+	/**
+	 * Constructor.
+	 *
+	 * @param audioPlayer
+	 *            The player to start with. Non-null.
+	 * @param standbyPlayer
+	 *            The player to preload tracks on. Nullable. If null, then
+	 *            preloading is disabled.
+	 */
+	public LavaplayerAudioProvider(AudioPlayer audioPlayer, AudioPlayer standbyPlayer) {
+		this.activePlayer = Preconditions.checkNotNull(audioPlayer, "audioPlayer must be non-null.");
+		this.standbyPlayer = standbyPlayer;
+		Preconditions.checkArgument(audioPlayer != standbyPlayer, "standbyPlayer must not be the audioPlayer.");
 	}
 
 	@Override
@@ -24,7 +48,15 @@ class LavaplayerAudioProvider implements IAudioProvider {
 
 	@Override
 	public boolean isReady() {
-		this.lastFrame = audioPlayer.provide();
+		AudioPlayer player = activePlayer;
+		this.lastFrame = player.provide();
+
+		if (this.lastFrame == null && player != activePlayer) {
+			// The track ended during provide() and the next one was handed over. Take the
+			// first frame of the next track right away so there's no gap.
+			this.lastFrame = activePlayer.provide();
+		}
+
 		return this.lastFrame != null;
 	}
 
@@ -32,4 +64,98 @@ class LavaplayerAudioProvider implements IAudioProvider {
 	public byte[] provide() {
 		return this.lastFrame.data;
 	}
+
+	/**
+	 * Gets the player whose frames are currently being provided.
+	 *
+	 * @return The active {@link AudioPlayer}.
+	 */
+	public AudioPlayer getActivePlayer() {
+		return activePlayer;
+	}
+
+	/**
+	 * Whether tracks can be preloaded.
+	 *
+	 * @return True if there is a standby player.
+	 */
+	public boolean isPreloadEnabled() {
+		return standbyPlayer != null;
+	}
+
+	/**
+	 * Starts loading a track on the standby player, replacing any other preloaded
+	 * track.
+	 *
+	 * @param source
+	 *            The upcoming track that is being preloaded. It can be handed over
+	 *            by passing it to {@link #handOver(AudioTrack)}. Non-null.
+	 * @param track
+	 *            A fresh copy of {@code source} to play. Non-null.
+	 */
+	public synchronized void preload(AudioTrack source, AudioTrack track) {
+		Preconditions.checkNotNull(source, "source must be non-null.");
+		Preconditions.checkNotNull(track, "track must be non-null.");
+		Preconditions.checkState(isPreloadEnabled(), "Preloading is disabled.");
+
+		standbyPlayer.playTrack(track);
+		this.preloadedSource = source;
+	}
+
+	/**
+	 * Gets the upcoming track that was preloaded.
+	 *
+	 * @return The source of the preloaded track. Null if there isn't one.
+	 */
+	public synchronized AudioTrack getPreloadedSource() {
+		return preloadedSource;
+	}
+
+	/**
+	 * Stops the preloaded track, if there is one.
+	 */
+	public synchronized void cancelPreload() {
+		if (preloadedSource != null) {
+			preloadedSource = null;
+			standbyPlayer.stopTrack();
+		}
+	}
+
+	/**
+	 * Makes the standby player the active player if it has preloaded the given
+	 * track. The previously active player becomes the standby player and should be
+	 * idle.
+	 *
+	 * @param source
+	 *            The track that should be played next. Non-null.
+	 * @return True if it was handed over. False if {@code source} wasn't preloaded,
+	 *         in which case it should be played on the active player as usual.
+	 */
+	public synchronized boolean handOver(AudioTrack source) {
+		Preconditions.checkNotNull(source, "source must be non-null.");
+
+		if (preloadedSource != source || standbyPlayer.getPlayingTrack() == null) {
+			// It was never preloaded, or the preloaded track was cleaned up since.
+			return false;
+		}
+
+		AudioPlayer nextPlayer = standbyPlayer;
+		this.standbyPlayer = activePlayer;
+		this.activePlayer = nextPlayer;
+		this.preloadedSource = null;
+
+		return true;
+	}
+
+	/**
+	 * Destroys all players.
+	 */
+	public void destroy() {
+		// Not synchronized, since destroying a player may dispatch events to listeners
+		// which call back into this provider.
+		activePlayer.destroy();
+		if (standbyPlayer != null) {
+			standbyPlayer.destroy();
+		}
+	}
 }
@@ -1,7 +1,9 @@
 package net.tonbot.plugin.music;
 
 import java.util.Comparator;
+import java.util.Optional;
 
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -23,34 +25,129 @@ public class LazyYoutubeAudioTrack extends DelegatedAudioTrack {
 
 	private static final Logger LOG = LoggerFactory.getLogger(LazyYoutubeAudioTrack.class);
 	private static final int SEARCH_RESULTS_LIMIT = 5;
+	private static final String WATCH_URL_PREFIX = "https://www.youtube.com/watch?v=";
 
 	private final YoutubeAudioSourceManager sourceManager;
 	private final YoutubeSearchProvider ytSearchProvider;
+	private final YoutubeMatchCache matchCache;
 	private final AudioTrackInfo initialAudioTrackInfo;
 
-	private YoutubeAudioTrack realTrack;
+	private final Object resolveLock;
+
+	private volatile boolean resolved;
+	private volatile YoutubeAudioTrack realTrack;
+	private volatile boolean resolvedFromCache;
 
 	public LazyYoutubeAudioTrack(AudioTrackInfo initialAudioTrackInfo, YoutubeAudioSourceManager sourceManager,
-			YoutubeSearchProvider ytSearchProvider) {
+			YoutubeSearchProvider ytSearchProvider, YoutubeMatchCache matchCache) {
 		super(initialAudioTrackInfo);
 		this.initialAudioTrackInfo = Preconditions.checkNotNull(initialAudioTrackInfo);
 		this.sourceManager = Preconditions.checkNotNull(sourceManager, "sourceManager must be non-null.");
 		this.ytSearchProvider = Preconditions.checkNotNull(ytSearchProvider, "ytSearchProvider must be non-null.");
+		this.matchCache = Preconditions.checkNotNull(matchCache, "matchCache must be non-null.");
 
+		this.resolveLock = new Object();
+		this.resolved = false;
 		this.realTrack = null;
+		this.resolvedFromCache = false;
 	}
 
 	@Override
 	public void process(LocalAudioTrackExecutor executor) throws Exception {
-		if (realTrack == null) {
-			this.realTrack = getTrack();
-		}
+		resolve();
 
-		if (this.realTrack != null) {
-			this.processDelegate(realTrack, executor);
-		} else {
+		YoutubeAudioTrack track = this.realTrack;
+		if (track == null) {
 			throw new TonbotBusinessException("Couldn't find a track on YouTube.");
 		}
+
+		try {
+			this.processDelegate(track, executor);
+		} catch (Exception e) {
+			if (!resolvedFromCache) {
+				throw e;
+			}
+
+			// The cached video may have been taken down since it was matched.
+			YoutubeAudioTrack newMatch = searchAgain(track);
+			if (newMatch == null) {
+				throw e;
+			}
+
+			this.processDelegate(newMatch, executor);
+		}
+	}
+
+	/**
+	 * Searches YouTube for this track, unless it has already been searched for.
+	 * This may be called ahead of time from any thread so that {@link #process}
+	 * doesn't need to wait for the search. Concurrent callers wait for the same
+	 * search.
+	 * 
+	 * @return True if a match was found.
+	 */
+	public boolean resolve() {
+		if (!resolved) {
+			synchronized (resolveLock) {
+				if (!resolved) {
+					YoutubeAudioTrack cachedTrack = getCachedTrack();
+					if (cachedTrack != null) {
+						this.realTrack = cachedTrack;
+						this.resolvedFromCache = true;
+					} else {
+						this.realTrack = searchAndCache();
+					}
+					this.resolved = true;
+				}
+			}
+		}
+
+		return realTrack != null;
+	}
+
+	/**
+	 * Resolves this track only if its match is already cached. Never searches
+	 * YouTube.
+	 * 
+	 * @return True if this track has been resolved, whether just now or before.
+	 */
+	public boolean resolveFromCache() {
+		if (!resolved) {
+			synchronized (resolveLock) {
+				if (!resolved) {
+					YoutubeAudioTrack cachedTrack = getCachedTrack();
+					if (cachedTrack == null) {
+						return false;
+					}
+
+					this.realTrack = cachedTrack;
+					this.resolvedFromCache = true;
+					this.resolved = true;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Whether this track has already been searched for.
+	 * 
+	 * @return True if YouTube has already been searched for this track.
+	 */
+	public boolean isResolved() {
+		return resolved;
+	}
+
+	/**
+	 * Gets the YouTube track that this track was resolved to. Never searches
+	 * YouTube.
+	 * 
+	 * @return The YouTube track. Empty if this track hasn't been resolved yet, or
+	 *         if no match was found.
+	 */
+	public Optional<YoutubeAudioTrack> getResolvedTrack() {
+		return Optional.ofNullable(realTrack);
 	}
 
 	@Override
@@ -78,14 +175,75 @@ public class LazyYoutubeAudioTrack extends DelegatedAudioTrack {
 
 	@Override
 	public AudioTrack makeClone() {
-		LazyYoutubeAudioTrack clone = new LazyYoutubeAudioTrack(this.getInfo(), sourceManager, ytSearchProvider);
+		// The clone is given the song's info, rather than the video's, so that it can
+		// search again for the same song.
+		LazyYoutubeAudioTrack clone = new LazyYoutubeAudioTrack(initialAudioTrackInfo, sourceManager,
+				ytSearchProvider, matchCache);
 		clone.setUserData(this.getUserData());
 
+		// No need to search again.
+		if (resolved) {
+			clone.realTrack = realTrack != null ? (YoutubeAudioTrack) realTrack.makeClone() : null;
+			clone.resolvedFromCache = resolvedFromCache;
+			clone.resolved = true;
+		}
+
 		return clone;
 	}
 
-	private YoutubeAudioTrack getTrack() {
-		AudioTrackInfo trackInfo = this.getInfo();
+	/**
+	 * Forgets the cached match which failed to play and searches YouTube once
+	 * more.
+	 * 
+	 * @return The new match, or null if there is none or it's the same video.
+	 */
+	private YoutubeAudioTrack searchAgain(YoutubeAudioTrack failedTrack) {
+		synchronized (resolveLock) {
+			LOG.info("Cached match {} for '{}' couldn't be played. Searching again.", failedTrack.getIdentifier(),
+					initialAudioTrackInfo.title);
+
+			matchCache.remove(initialAudioTrackInfo.title, initialAudioTrackInfo.author,
+					initialAudioTrackInfo.length);
+
+			YoutubeAudioTrack newMatch = searchAndCache();
+			this.realTrack = newMatch;
+			this.resolvedFromCache = false;
+
+			if (newMatch == null || StringUtils.equals(newMatch.getIdentifier(), failedTrack.getIdentifier())) {
+				return null;
+			}
+
+			return newMatch;
+		}
+	}
+
+	private YoutubeAudioTrack searchAndCache() {
+		AudioTrackInfo trackInfo = initialAudioTrackInfo;
+		YoutubeAudioTrack match = search(trackInfo);
+		if (match != null) {
+			AudioTrackInfo matchInfo = match.getInfo();
+			matchCache.put(trackInfo.title, trackInfo.author, trackInfo.length, matchInfo.identifier,
+					matchInfo.title, matchInfo.author, matchInfo.length);
+		}
+
+		return match;
+	}
+
+	private YoutubeAudioTrack getCachedTrack() {
+		AudioTrackInfo trackInfo = initialAudioTrackInfo;
+
+		YoutubeMatchCache.Match cachedMatch = matchCache.get(trackInfo.title, trackInfo.author, trackInfo.length)
+				.orElse(null);
+		if (cachedMatch == null) {
+			return null;
+		}
+
+		AudioTrackInfo matchInfo = new AudioTrackInfo(cachedMatch.getTitle(), cachedMatch.getAuthor(),
+				cachedMatch.getLength(), cachedMatch.getVideoId(), false, WATCH_URL_PREFIX + cachedMatch.getVideoId());
+		return new YoutubeAudioTrack(matchInfo, sourceManager);
+	}
+
+	private YoutubeAudioTrack search(AudioTrackInfo trackInfo) {
 		String query = trackInfo.title + " " + trackInfo.author;
 
 		AudioItem audioItem = ytSearchProvider.loadSearchResult(query);
@@ -14,20 +14,31 @@ class LazyYoutubeAudioTrackFactory implements AudioTrackFactory {
 
 	private final YoutubeSearchProvider ytSearchProvider;
 	private final YoutubeAudioSourceManager ytAudioSourceManager;
+	private final YoutubeMatchCache matchCache;
+	private final TrackResolverService resolverService;
 
 	@Inject
 	public LazyYoutubeAudioTrackFactory(YoutubeSearchProvider ytSearchProvider,
-			YoutubeAudioSourceManager ytAudioSourceManager) {
+			YoutubeAudioSourceManager ytAudioSourceManager, YoutubeMatchCache matchCache,
+			TrackResolverService resolverService) {
 		this.ytSearchProvider = Preconditions.checkNotNull(ytSearchProvider, "ytSearchProvider must be non-null.");
 		this.ytAudioSourceManager = Preconditions.checkNotNull(ytAudioSourceManager,
 				"ytAudioSourceManager must be non-null.");
+		this.matchCache = Preconditions.checkNotNull(matchCache, "matchCache must be non-null.");
+		this.resolverService = Preconditions.checkNotNull(resolverService, "resolverService must be non-null.");
 	}
 
 	@Override
 	public List<AudioTrack> getAudioTracks(List<SongMetadata> songMetadata) {
 		Preconditions.checkNotNull(songMetadata, "songMetadata must be non-null.");
 
-		return songMetadata.stream().map(sm -> getAudioTrack(sm)).collect(Collectors.toList());
+		List<AudioTrack> tracks = songMetadata.stream().map(sm -> getAudioTrack(sm)).collect(Collectors.toList());
+
+		// Imported playlists can be big. Resolve them ahead of time so that the tracks
+		// are ready by the time that they play.
+		resolverService.warmUp(tracks);
+
+		return tracks;
 	}
 
 	@Override
@@ -36,6 +47,6 @@ class LazyYoutubeAudioTrackFactory implements AudioTrackFactory {
 
 		AudioTrackInfo ati = new AudioTrackInfo(songMetadata.getName(), songMetadata.getArtist(),
 				songMetadata.getDuration(), "", false, "");
-		return new LazyYoutubeAudioTrack(ati, ytAudioSourceManager, ytSearchProvider);
+		return new LazyYoutubeAudioTrack(ati, ytAudioSourceManager, ytSearchProvider, matchCache);
 	}
 }
@@ -4,7 +4,6 @@ import java.awt.Color;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -58,14 +57,14 @@ class ListActivity extends AudioSessionActivity<ListRequest> {
 	protected void enactWithSession(MessageReceivedEvent event, ListRequest request, AudioSession audioSession) {
 		IDiscordClient client = event.getClient();
 		IGuild guild = event.getGuild();
-		AudioSessionStatus sessionStatus = audioSession.getStatus();
+		TrackQueueStats queueStats = audioSession.getQueueStats();
 
 		// Page numbers should always start at 1, but internally, page 1 is page 0.
 		int requestedPage; // The zero-indexed requested page.
 		if (request.getPageNumber() != null) {
 			requestedPage = request.getPageNumber() - 1;
 
-			int numUpcomingTracks = sessionStatus.getUpcomingTracks().size();
+			int numUpcomingTracks = queueStats.getSize();
 			if (requestedPage < 0
 					|| (numUpcomingTracks != 0 && requestedPage > (numUpcomingTracks - 1) / TRACKS_PER_PAGE)) {
 				throw new TonbotBusinessException("Page doesn't exist.");
@@ -78,19 +77,18 @@ class ListActivity extends AudioSessionActivity<ListRequest> {
 		embedBuilder.withColor(color);
 
 		if (requestedPage == 0) {
-			appendNowPlaying(embedBuilder, sessionStatus, client, guild);
+			appendNowPlaying(embedBuilder, audioSession.getNowPlaying().orElse(null), client, guild);
 		}
 
-		appendUpNext(requestedPage, embedBuilder, sessionStatus, client, guild);
+		List<AudioTrack> pageTracks = audioSession.getUpcomingTracks(requestedPage * TRACKS_PER_PAGE, TRACKS_PER_PAGE);
+		appendUpNext(requestedPage, embedBuilder, pageTracks, queueStats, client, guild);
 
 		botUtils.sendEmbed(event.getChannel(), embedBuilder.build());
 	}
 
-	private void appendNowPlaying(EmbedBuilder embedBuilder, AudioSessionStatus sessionStatus, IDiscordClient client,
+	private void appendNowPlaying(EmbedBuilder embedBuilder, AudioTrack nowPlaying, IDiscordClient client,
 			IGuild guild) {
 
-		AudioTrack nowPlaying = sessionStatus.getNowPlaying().orElse(null);
-
 		embedBuilder.withAuthorName(NOW_PLAYING_HEADER);
 
 		if (nowPlaying != null) {
@@ -134,20 +132,18 @@ class ListActivity extends AudioSessionActivity<ListRequest> {
 		}
 	}
 
-	private void appendUpNext(int page, EmbedBuilder embedBuilder, AudioSessionStatus sessionStatus,
-			IDiscordClient client, IGuild guild) {
-
-		List<AudioTrack> upcomingTracks = sessionStatus.getUpcomingTracks();
+	private void appendUpNext(int page, EmbedBuilder embedBuilder, List<AudioTrack> pageTracks,
+			TrackQueueStats queueStats, IDiscordClient client, IGuild guild) {
 
 		StringBuffer sb = new StringBuffer();
 
-		if (upcomingTracks.isEmpty()) {
+		if (queueStats.getSize() == 0) {
 			sb.append("-- Empty --");
 		} else {
 			List<String> trackStrings = new ArrayList<>();
-			for (int i = page * TRACKS_PER_PAGE; i < Math.min(upcomingTracks.size(),
-					(page * TRACKS_PER_PAGE) + TRACKS_PER_PAGE); i++) {
-				AudioTrack track = upcomingTracks.get(i);
+			for (int j = 0; j < pageTracks.size(); j++) {
+				int i = page * TRACKS_PER_PAGE + j;
+				AudioTrack track = pageTracks.get(j);
 				ExtraTrackInfo extraTrackInfo = track.getUserData(ExtraTrackInfo.class);
 				IUser addedByUser = client.fetchUser(extraTrackInfo.getAddedByUserId());
 
@@ -167,30 +163,22 @@ class ListActivity extends AudioSessionActivity<ListRequest> {
 
 			sb.append(StringUtils.join(trackStrings, "\n"));
 
-			int totalPagesCount = (upcomingTracks.isEmpty() ? 0 : (upcomingTracks.size() - 1) / TRACKS_PER_PAGE) + 1;
+			int totalPagesCount = ((queueStats.getSize() - 1) / TRACKS_PER_PAGE) + 1;
 
 			if (totalPagesCount > 1) {
 				sb.append("\n\nPage **").append(page + 1).append("** of **").append(totalPagesCount).append("**.");
 			}
 
-			List<AudioTrack> nonStreamTracks = upcomingTracks.stream().filter(track -> !track.getInfo().isStream)
-					.collect(Collectors.toList());
-
-			long totalNonStreamDuration = nonStreamTracks.stream().map(track -> track.getDuration()).reduce(0L,
-					(i, j) -> i + j);
-
-			long streamCount = upcomingTracks.stream().filter(track -> track.getInfo().isStream).count();
-
 			sb.append("\n\nThe queue contains ");
 
 			List<String> fragments = new ArrayList<>();
-			if (nonStreamTracks.size() > 0) {
-				fragments.add(String.format("**%d** track(s), which are **%s** long", nonStreamTracks.size(),
-						TimeFormatter.toFriendlyString(totalNonStreamDuration, TimeUnit.MILLISECONDS)));
+			if (queueStats.getTrackCount() > 0) {
+				fragments.add(String.format("**%d** track(s), which are **%s** long", queueStats.getTrackCount(),
+						TimeFormatter.toFriendlyString(queueStats.getTotalDuration(), TimeUnit.MILLISECONDS)));
 			}
 
-			if (streamCount > 0) {
-				fragments.add(String.format("**%d** streams", streamCount));
+			if (queueStats.getStreamCount() > 0) {
+				fragments.add(String.format("**%d** streams", queueStats.getStreamCount()));
 			}
 
 			sb.append(StringUtils.join(fragments, " and ")).append(".");
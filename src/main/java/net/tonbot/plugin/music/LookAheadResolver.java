@@ -0,0 +1,96 @@
+package net.tonbot.plugin.music;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+
+/**
+ * Resolves the upcoming {@link LazyYoutubeAudioTrack}s of a session in the
+ * background, so that they don't need to search YouTube when they start
+ * playing. Whenever the queue changes, resolutions of tracks that are no longer
+ * upcoming are cancelled if they haven't started yet.
+ */
+class LookAheadResolver {
+
+	private static final Logger LOG = LoggerFactory.getLogger(LookAheadResolver.class);
+
+	private final TrackResolverService resolverService;
+	private final Supplier<List<AudioTrack>> upcomingTracks;
+
+	// Guarded by this.
+	private final Map<LazyYoutubeAudioTrack, Future<?>> pending;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param resolverService
+	 *            The {@link TrackResolverService} to resolve tracks with. May be
+	 *            shared with other sessions. Non-null.
+	 * @param upcomingTracks
+	 *            Supplies the tracks that should be resolved ahead of time, in the
+	 *            order that they'll be played. Non-null.
+	 */
+	public LookAheadResolver(TrackResolverService resolverService, Supplier<List<AudioTrack>> upcomingTracks) {
+		this.resolverService = Preconditions.checkNotNull(resolverService, "resolverService must be non-null.");
+		this.upcomingTracks = Preconditions.checkNotNull(upcomingTracks, "upcomingTracks must be non-null.");
+		this.pending = new IdentityHashMap<>();
+	}
+
+	/**
+	 * Starts resolving the upcoming tracks that haven't been resolved yet and
+	 * cancels resolutions of tracks that are no longer upcoming. Should be called
+	 * whenever the upcoming tracks change.
+	 */
+	public synchronized void refresh() {
+		// In play order so that the nearest tracks are scheduled first. The look-ahead
+		// window is small, so a list is fine.
+		List<LazyYoutubeAudioTrack> wanted = new ArrayList<>();
+		for (AudioTrack track : upcomingTracks.get()) {
+			if (track instanceof LazyYoutubeAudioTrack && !((LazyYoutubeAudioTrack) track).isResolved()) {
+				wanted.add((LazyYoutubeAudioTrack) track);
+			}
+		}
+
+		pending.entrySet().removeIf(entry -> {
+			if (!wanted.contains(entry.getKey())) {
+				// Stale. A resolution that has already started is left to finish.
+				entry.getValue().cancel(false);
+				return true;
+			}
+
+			return entry.getValue().isDone();
+		});
+
+		for (LazyYoutubeAudioTrack track : wanted) {
+			if (pending.containsKey(track)) {
+				continue;
+			}
+
+			try {
+				pending.put(track, resolverService.submit(track, TrackResolverService.Priority.NEXT));
+			} catch (RejectedExecutionException e) {
+				// The service is busy with other sessions. The next refresh will try again.
+				LOG.debug("Unable to schedule resolution of {}.", track.getInfo().title);
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Cancels all pending resolutions.
+	 */
+	public synchronized void shutdown() {
+		pending.values().forEach(future -> future.cancel(false));
+		pending.clear();
+	}
+}
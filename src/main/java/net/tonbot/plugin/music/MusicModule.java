@@ -3,10 +3,13 @@ package net.tonbot.plugin.music;
 import java.awt.Color;
 import java.io.File;
 import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.security.GeneralSecurityException;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
 
@@ -29,6 +32,7 @@ import com.google.api.services.youtube.YouTubeRequestInitializer;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
@@ -43,17 +47,17 @@ import com.sedmelluq.discord.lavaplayer.source.vimeo.VimeoAudioSourceManager;
 import com.sedmelluq.discord.lavaplayer.source.youtube.YoutubeAudioSourceManager;
 import com.sedmelluq.discord.lavaplayer.source.youtube.YoutubeSearchProvider;
 import com.wrapper.spotify.Api;
-import com.wrapper.spotify.exceptions.BadRequestException;
-import com.wrapper.spotify.exceptions.WebApiException;
 
 import net.tonbot.common.Activity;
 import net.tonbot.common.BotUtils;
 import net.tonbot.common.Prefix;
-import net.tonbot.common.TonbotTechnicalFault;
+import net.tonbot.plugin.music.googledrive.GoogleDriveFolderCache;
 import net.tonbot.plugin.music.googledrive.GoogleDriveSourceManager;
 import net.tonbot.plugin.music.itunes.ITunesPlaylistSourceManager;
 import net.tonbot.plugin.music.spotify.SpotifyCredentials;
+import net.tonbot.plugin.music.spotify.SpotifyPlaylistCache;
 import net.tonbot.plugin.music.spotify.SpotifySourceManager;
+import net.tonbot.plugin.music.spotify.SpotifyTokenManager;
 import sx.blah.discord.api.IDiscordClient;
 
 class MusicModule extends AbstractModule {
@@ -61,6 +65,35 @@ class MusicModule extends AbstractModule {
 	private static final String APPLICATION_NAME = "Tonbot";
 	private static final Logger LOG = LoggerFactory.getLogger(MusicModule.class);
 	private static final int MAX_SEARCH_RESULTS = 10;
+	private static final int SEARCH_CACHE_MAX_ENTRIES = 1000;
+	private static final long SEARCH_CACHE_TTL_MINUTES = 30;
+	private static final int MAX_REMEMBERED_SEARCH_RESULTS = 1000;
+	private static final long REMEMBERED_SEARCH_RESULTS_TTL_MINUTES = 10;
+	private static final long SEARCH_RESULTS_CLEAN_UP_INTERVAL_SECONDS = 60;
+
+	private static final int LOAD_RESULT_THREADS = 4;
+	private static final int PLAYLIST_LOADER_THREADS = 4;
+
+	private static final int RESOLVER_THREADS = 2;
+	private static final int RESOLVER_QUEUE_CAPACITY = 5000;
+
+	private static final String MATCH_CACHE_FILE_NAME = "youtube_matches.cache";
+	private static final int MATCH_CACHE_MAX_ENTRIES = 50000;
+	private static final long MATCH_CACHE_TTL_MS = TimeUnit.DAYS.toMillis(30);
+
+	// Shared by all playlists that are loading at the same time.
+	private static final int SPOTIFY_PAGE_FETCH_THREADS = 8;
+	private static final String SPOTIFY_PLAYLIST_CACHE_DIR_NAME = "spotify_playlists";
+	private static final int SPOTIFY_PLAYLIST_CACHE_MAX_PLAYLISTS = 200;
+
+	// Shared by all Google Drive folders that are loading at the same time.
+	private static final int GOOGLE_DRIVE_FOLDER_LIST_THREADS = 4;
+	private static final String GOOGLE_DRIVE_FOLDER_CACHE_DIR_NAME = "google_drive_folders";
+	private static final long GOOGLE_DRIVE_FOLDER_CACHE_MAX_FOLDERS = 5000;
+	private static final long GOOGLE_DRIVE_FOLDER_CACHE_TTL_MINUTES = 60;
+
+	private static final int SNIPPET_CACHE_MAX_ENTRIES = 2000;
+	private static final long SNIPPET_CACHE_TTL_HOURS = 6;
 
 	private final IDiscordClient discordClient;
 	private final String prefix;
@@ -70,9 +103,14 @@ class MusicModule extends AbstractModule {
 	private final String youtubeApiKey;
 	private final String googleDriveApiKey;
 	private final SpotifyCredentials spotifyCredentials;
+	private final String spotifyMarket;
+	private final double youtubeSearchRate;
+	private final boolean warmUpImportedTracks;
+	private final boolean gaplessPlayback;
 
 	public MusicModule(IDiscordClient discordClient, String prefix, BotUtils botUtils, Color color, File saveDir,
-			String youtubeApiKey, String googleDriveApiKey, SpotifyCredentials spotifyCredentials) {
+			String youtubeApiKey, String googleDriveApiKey, SpotifyCredentials spotifyCredentials,
+			String spotifyMarket, double youtubeSearchRate, boolean warmUpImportedTracks, boolean gaplessPlayback) {
 		this.discordClient = Preconditions.checkNotNull(discordClient, "discordClient must be non-null.");
 		this.prefix = Preconditions.checkNotNull(prefix, "prefix must be non-null.");
 		this.botUtils = Preconditions.checkNotNull(botUtils, "botUtils must be non-null.");
@@ -81,6 +119,11 @@ class MusicModule extends AbstractModule {
 		this.youtubeApiKey = youtubeApiKey;
 		this.googleDriveApiKey = googleDriveApiKey;
 		this.spotifyCredentials = spotifyCredentials;
+		this.spotifyMarket = Preconditions.checkNotNull(spotifyMarket, "spotifyMarket must be non-null.");
+		Preconditions.checkArgument(youtubeSearchRate > 0, "youtubeSearchRate must be positive.");
+		this.youtubeSearchRate = youtubeSearchRate;
+		this.warmUpImportedTracks = warmUpImportedTracks;
+		this.gaplessPlayback = gaplessPlayback;
 	}
 
 	@Override
@@ -98,12 +141,49 @@ class MusicModule extends AbstractModule {
 	Set<Activity> activities(BeckonActivity beckonActivity, DismissActivity dismissActivity, PlayActivity playActivity,
 			StopActivity stopActivity, PauseActivity pauseActivity, ListActivity listActivity,
 			SkipActivity skipActivity, RepeatActivity repeatActivity, NowPlayingActivity npActivity,
-			ShuffleActivity shuffleActivity, RoundRobinActivity roundRobinActivity, SeekActivity seekActivity,
+			ShuffleActivity shuffleActivity, RoundRobinActivity roundRobinActivity,
+			FairQueueActivity fairQueueActivity, SeekActivity seekActivity,
 			PermissionsListActivity permissionsListActivity, PermissionsAddActivity permissionsAddActivity,
 			PermissionsRemoveActivity permissionsRemoveActivity) {
 		return ImmutableSet.of(beckonActivity, dismissActivity, playActivity, stopActivity, pauseActivity, listActivity,
-				skipActivity, repeatActivity, npActivity, shuffleActivity, roundRobinActivity, seekActivity,
-				permissionsListActivity, permissionsAddActivity, permissionsRemoveActivity);
+				skipActivity, repeatActivity, npActivity, shuffleActivity, roundRobinActivity, fairQueueActivity,
+				seekActivity, permissionsListActivity, permissionsAddActivity, permissionsRemoveActivity);
+	}
+
+	@Provides
+	@Singleton
+	ScheduledExecutorService scheduler() {
+		// Only used for timeouts and other short tasks, so one thread is plenty.
+		return Executors.newSingleThreadScheduledExecutor(
+				new ThreadFactoryBuilder().setNameFormat("tonbot-music-scheduler-%d").setDaemon(true).build());
+	}
+
+	@Provides
+	@Singleton
+	ExecutorService loadResultExecutor() {
+		// Replies to play commands once their tracks have loaded, which may involve
+		// searching and waiting on Discord.
+		return Executors.newFixedThreadPool(LOAD_RESULT_THREADS,
+				new ThreadFactoryBuilder().setNameFormat("tonbot-music-load-result-%d").setDaemon(true).build());
+	}
+
+	@Provides
+	@Singleton
+	TrackResolverService trackResolverService() {
+		// Shared by all sessions for resolving tracks ahead of time.
+		return new TrackResolverService(RESOLVER_THREADS, RESOLVER_QUEUE_CAPACITY, youtubeSearchRate,
+				warmUpImportedTracks,
+				new ThreadFactoryBuilder().setNameFormat("tonbot-music-resolver-%d").setDaemon(true).build());
+	}
+
+	@Provides
+	@Singleton
+	YoutubeMatchCache youtubeMatchCache() {
+		YoutubeMatchCache matchCache = new YoutubeMatchCache(new File(saveDir, MATCH_CACHE_FILE_NAME),
+				MATCH_CACHE_MAX_ENTRIES, MATCH_CACHE_TTL_MS, System::currentTimeMillis);
+		matchCache.load();
+
+		return matchCache;
 	}
 
 	@Provides
@@ -169,7 +249,11 @@ class MusicModule extends AbstractModule {
 			return null;
 		}
 
-		return new GoogleDriveSourceManager(drive, httpAsm);
+		return new GoogleDriveSourceManager(drive, httpAsm,
+				Executors.newFixedThreadPool(GOOGLE_DRIVE_FOLDER_LIST_THREADS, new ThreadFactoryBuilder()
+						.setNameFormat("tonbot-music-drive-%d").setDaemon(true).build()),
+				new GoogleDriveFolderCache(new File(saveDir, GOOGLE_DRIVE_FOLDER_CACHE_DIR_NAME),
+						GOOGLE_DRIVE_FOLDER_CACHE_MAX_FOLDERS, GOOGLE_DRIVE_FOLDER_CACHE_TTL_MINUTES, TimeUnit.MINUTES));
 	}
 
 	@Provides
@@ -185,12 +269,25 @@ class MusicModule extends AbstractModule {
 
 	@Provides
 	@Singleton
-	YouTubeVideoEmbedAppender ytEmbedAppender(@Nullable YouTube yt) {
+	YouTubeVideoEmbedAppender ytEmbedAppender(@Nullable YouTubeSnippetCache snippetCache) {
+		if (snippetCache == null) {
+			return null;
+		}
+
+		return new YouTubeVideoEmbedAppender(snippetCache);
+	}
+
+	@Provides
+	@Singleton
+	YouTubeSnippetCache youTubeSnippetCache(@Nullable YouTube yt) {
 		if (yt == null) {
 			return null;
 		}
 
-		return new YouTubeVideoEmbedAppender(yt);
+		// Prefetches are a few requests at most, one after another.
+		return new YouTubeSnippetCache(yt, SNIPPET_CACHE_MAX_ENTRIES, SNIPPET_CACHE_TTL_HOURS, TimeUnit.HOURS,
+				Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+						.setNameFormat("tonbot-music-snippets-%d").setDaemon(true).build()));
 	}
 
 	@Provides
@@ -198,25 +295,9 @@ class MusicModule extends AbstractModule {
 	Api spotifyApi() {
 		if (spotifyCredentials != null
 				&& !StringUtils.isAnyBlank(spotifyCredentials.getClientId(), spotifyCredentials.getClientSecret())) {
-			Api api = Api.builder().clientId(spotifyCredentials.getClientId())
+			// The access token is managed by the SpotifyTokenManager.
+			return Api.builder().clientId(spotifyCredentials.getClientId())
 					.clientSecret(spotifyCredentials.getClientSecret()).build();
-
-			// Use the Client Credentials Flow to get an access token
-			// https://developer.spotify.com/web-api/authorization-guide/#client-credentials-flow
-			try {
-				String accessToken = api.clientCredentialsGrant().build().get().getAccessToken();
-				api.setAccessToken(accessToken);
-			} catch (IOException e) {
-				throw new UncheckedIOException("Unable to contact Spotify Accounts Service.", e);
-			} catch (BadRequestException e) {
-				LOG.warn("Unable to get access token from Spotify Accounts Service. Spotify support will "
-						+ "not be available. Please check if the supplied credentials are valid.");
-				return null;
-			} catch (WebApiException e) {
-				throw new TonbotTechnicalFault("Spotify Accounts Service returned an unknown error.", e);
-			}
-
-			return api;
 		}
 
 		LOG.warn("No Spotify credentials detected or they are invalid. Spotify support will be disabled.");
@@ -225,12 +306,36 @@ class MusicModule extends AbstractModule {
 
 	@Provides
 	@Singleton
-	SpotifySourceManager spotifySourceManager(@Nullable Api spotifyApi, AudioTrackFactory audioTrackFactory) {
+	SpotifyTokenManager spotifyTokenManager(@Nullable Api spotifyApi, ScheduledExecutorService scheduler) {
 		if (spotifyApi == null) {
 			return null;
 		}
 
-		return new SpotifySourceManager(spotifyApi, audioTrackFactory);
+		// The first token is fetched in the background so that it doesn't hold up
+		// startup. Fetches get their own thread, since the scheduler's only thread
+		// must not wait on the Spotify Accounts Service.
+		SpotifyTokenManager tokenManager = new SpotifyTokenManager(spotifyApi, scheduler,
+				Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+						.setNameFormat("tonbot-music-spotify-token-%d").setDaemon(true).build()));
+		tokenManager.start();
+
+		return tokenManager;
+	}
+
+	@Provides
+	@Singleton
+	SpotifySourceManager spotifySourceManager(@Nullable Api spotifyApi, @Nullable SpotifyTokenManager tokenManager,
+			AudioTrackFactory audioTrackFactory, ObjectMapper objectMapper) {
+		if (spotifyApi == null) {
+			return null;
+		}
+
+		return new SpotifySourceManager(spotifyApi, tokenManager, spotifyMarket, audioTrackFactory,
+				Executors.newFixedThreadPool(SPOTIFY_PAGE_FETCH_THREADS, new ThreadFactoryBuilder()
+						.setNameFormat("tonbot-music-spotify-%d").setDaemon(true).build()),
+				new SpotifyPlaylistCache(new File(saveDir, SPOTIFY_PLAYLIST_CACHE_DIR_NAME),
+						SPOTIFY_PLAYLIST_CACHE_MAX_PLAYLISTS),
+				objectMapper);
 	}
 
 	@Provides
@@ -266,8 +371,40 @@ class MusicModule extends AbstractModule {
 
 	@Provides
 	@Singleton
-	TrackSearcher trackSearcher(YoutubeSearchProvider ytSearchProvider) {
-		return new TrackSearcher(ytSearchProvider, MAX_SEARCH_RESULTS);
+	TrackSearcher trackSearcher(YoutubeSearchProvider ytSearchProvider, ScheduledExecutorService scheduler) {
+		TrackSearcher trackSearcher = TrackSearcher.builder().ytSearchProvider(ytSearchProvider)
+				.maxResults(MAX_SEARCH_RESULTS).cacheMaxEntries(SEARCH_CACHE_MAX_ENTRIES)
+				.cacheTtl(SEARCH_CACHE_TTL_MINUTES).cacheTtlUnit(TimeUnit.MINUTES)
+				.maxRememberedResults(MAX_REMEMBERED_SEARCH_RESULTS)
+				.rememberedResultsTtl(REMEMBERED_SEARCH_RESULTS_TTL_MINUTES)
+				.rememberedResultsTtlUnit(TimeUnit.MINUTES).build();
+
+		// Expired results aren't evicted until something touches the cache, so
+		// they're evicted regularly in case nobody searches for a while.
+		scheduler.scheduleWithFixedDelay(() -> {
+			try {
+				trackSearcher.cleanUp();
+			} catch (Exception e) {
+				// Don't let the scheduler cancel future clean ups.
+				LOG.warn("Unable to clean up search results.", e);
+			}
+		}, SEARCH_RESULTS_CLEAN_UP_INTERVAL_SECONDS, SEARCH_RESULTS_CLEAN_UP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
+		return trackSearcher;
+	}
+
+	@Provides
+	@Singleton
+	AudioSessionFactory audioSessionFactory(IDiscordClient discordClient, AudioPlayerManager audioPlayerManager,
+			BotUtils botUtils, ScheduledExecutorService scheduler, TrackResolverService resolverService,
+			@Nullable YouTubeSnippetCache snippetCache) {
+		// Adds the rest of long playlists to the queue, which can take minutes. This
+		// keeps lavaplayer's loader threads free for other loads.
+		ExecutorService playlistLoader = Executors.newFixedThreadPool(PLAYLIST_LOADER_THREADS,
+				new ThreadFactoryBuilder().setNameFormat("tonbot-music-playlist-loader-%d").setDaemon(true).build());
+
+		return new AudioSessionFactory(discordClient, audioPlayerManager, botUtils, scheduler, playlistLoader,
+				resolverService, gaplessPlayback, snippetCache);
 	}
 
 	@Provides
@@ -26,7 +26,9 @@ public class MusicPlugin extends TonbotPlugin {
 
 		this.injector = Guice.createInjector(new MusicModule(pluginArgs.getDiscordClient(), pluginArgs.getPrefix(),
 				pluginArgs.getBotUtils(), pluginArgs.getColor(), pluginArgs.getPluginDataDir(),
-				config.getYoutubeApiKey(), config.getGoogleDriveApiKey(), config.getSpotifyCredentials()));
+				config.getYoutubeApiKey(), config.getGoogleDriveApiKey(), config.getSpotifyCredentials(),
+				config.getSpotifyMarket(), config.getYoutubeSearchRate(), config.isWarmUpImportedTracks(),
+				config.isGaplessPlayback()));
 	}
 
 	@Override
@@ -53,7 +55,11 @@ public class MusicPlugin extends TonbotPlugin {
 
 	@Override
 	public void destroy() {
+		injector.getInstance(TrackResolverService.class).shutdown();
+
 		GuildMusicManager gmm = injector.getInstance(GuildMusicManager.class);
 		gmm.save();
+
+		injector.getInstance(YoutubeMatchCache.class).close();
 	}
 }
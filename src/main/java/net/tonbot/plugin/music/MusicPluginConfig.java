@@ -1,5 +1,7 @@
 package net.tonbot.plugin.music;
 
+import org.apache.commons.lang3.StringUtils;
+
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
@@ -9,16 +11,34 @@ import net.tonbot.plugin.music.spotify.SpotifyCredentials;
 @Data
 class MusicPluginConfig {
 
+	private static final double DEFAULT_YOUTUBE_SEARCH_RATE = 1.0;
+	private static final String DEFAULT_SPOTIFY_MARKET = "US";
+
 	private final String youtubeApiKey;
 	private final String googleDriveApiKey;
 	private final SpotifyCredentials spotifyCredentials;
+	private final String spotifyMarket;
+	private final double youtubeSearchRate;
+	private final boolean warmUpImportedTracks;
+	private final boolean gaplessPlayback;
 
 	@JsonCreator
 	public MusicPluginConfig(@JsonProperty("youtubeApiKey") String youtubeApiKey,
 			@JsonProperty("googleDriveApiKey") String googleDriveApiKey,
-			@JsonProperty("spotifyCredentials") SpotifyCredentials spotifyCredentials) {
+			@JsonProperty("spotifyCredentials") SpotifyCredentials spotifyCredentials,
+			@JsonProperty("spotifyMarket") String spotifyMarket,
+			@JsonProperty("youtubeSearchRate") Double youtubeSearchRate,
+			@JsonProperty("warmUpImportedTracks") Boolean warmUpImportedTracks,
+			@JsonProperty("gaplessPlayback") Boolean gaplessPlayback) {
 		this.youtubeApiKey = youtubeApiKey;
 		this.googleDriveApiKey = googleDriveApiKey;
 		this.spotifyCredentials = spotifyCredentials;
+
+		// Older config files won't have these.
+		this.spotifyMarket = !StringUtils.isBlank(spotifyMarket) ? spotifyMarket : DEFAULT_SPOTIFY_MARKET;
+		this.youtubeSearchRate = youtubeSearchRate != null && youtubeSearchRate > 0 ? youtubeSearchRate
+				: DEFAULT_YOUTUBE_SEARCH_RATE;
+		this.warmUpImportedTracks = warmUpImportedTracks != null ? warmUpImportedTracks : true;
+		this.gaplessPlayback = gaplessPlayback != null ? gaplessPlayback : true;
 	}
 }
@@ -73,7 +73,7 @@ class NowPlayingActivity extends AudioSessionActivity<Void> {
 			}
 
 			// Track State
-			eb.appendField("Time", renderPlaybackStatus(audioSession, npTrack), false);
+			eb.appendField("Time", renderPlaybackStatus(audioSession, status, npTrack), false);
 
 			// Apply the first applicable custom embed appender
 			boolean embedAppenderUsed = false;
@@ -101,7 +101,7 @@ class NowPlayingActivity extends AudioSessionActivity<Void> {
 		}
 	}
 
-	private String renderPlaybackStatus(AudioSession audioSession, AudioTrack npTrack) {
+	private String renderPlaybackStatus(AudioSession audioSession, AudioSessionStatus status, AudioTrack npTrack) {
 		StringBuffer sb = new StringBuffer();
 		String state = audioSession.isPaused() ? ":pause_button:" : ":arrow_forward:";
 		sb.append(state + " ");
@@ -117,7 +117,7 @@ class NowPlayingActivity extends AudioSessionActivity<Void> {
 			sb.append(positionTime + " " + progressBar + " " + remainingTime + " ");
 		}
 
-		String playbackModifiers = renderPlaybackModifiers(audioSession.getStatus());
+		String playbackModifiers = renderPlaybackModifiers(status);
 		sb.append(playbackModifiers + "\n");
 
 		return sb.toString();
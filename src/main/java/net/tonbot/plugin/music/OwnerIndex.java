@@ -0,0 +1,120 @@
+package net.tonbot.plugin.music;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Groups a {@link TrackStore}'s entries by the user who added them. Each
+ * user's entries are kept in the order that they were added, along with a
+ * running {@link TrackTally}, so per-user lookups, counts and removals cost
+ * O(k) for a user with k entries. <br/>
+ * A user is only in the index while they have at least one entry. <br/>
+ * This class is NOT thread-safe.
+ */
+class OwnerIndex {
+
+	private final Map<Long, OwnerQueue> queuesByOwnerId;
+
+	public OwnerIndex() {
+		this.queuesByOwnerId = new HashMap<>();
+	}
+
+	/**
+	 * Adds an entry to the end of its owner's queue.
+	 * 
+	 * @param entry
+	 *            {@link QueueEntry}. Non-null.
+	 */
+	public void add(QueueEntry entry) {
+		OwnerQueue ownerQueue = queuesByOwnerId.get(entry.getOwnerId());
+		if (ownerQueue == null) {
+			ownerQueue = new OwnerQueue(entry.getOwnerId());
+			queuesByOwnerId.put(entry.getOwnerId(), ownerQueue);
+		}
+
+		ownerQueue.entries.add(entry);
+		ownerQueue.tally.add(entry);
+	}
+
+	/**
+	 * Removes an entry from its owner's queue. The owner is dropped from the index
+	 * if they have no entries left.
+	 * 
+	 * @param entry
+	 *            {@link QueueEntry}. Non-null.
+	 */
+	public void remove(QueueEntry entry) {
+		OwnerQueue ownerQueue = queuesByOwnerId.get(entry.getOwnerId());
+		Preconditions.checkState(ownerQueue != null && ownerQueue.entries.remove(entry),
+				"entry is not in this index.");
+
+		ownerQueue.tally.remove(entry);
+
+		if (ownerQueue.entries.isEmpty()) {
+			queuesByOwnerId.remove(entry.getOwnerId());
+		}
+	}
+
+	/**
+	 * Gets a user's queue.
+	 * 
+	 * @param ownerId
+	 *            The user's ID.
+	 * @return The user's queue. Empty if the user has no entries.
+	 */
+	public Optional<OwnerQueue> get(long ownerId) {
+		return Optional.ofNullable(queuesByOwnerId.get(ownerId));
+	}
+
+	/**
+	 * The entries that one user has added.
+	 */
+	static class OwnerQueue {
+
+		private final long ownerId;
+		private final LinkedHashSet<QueueEntry> entries;
+		private final TrackTally tally;
+
+		private OwnerQueue(long ownerId) {
+			this.ownerId = ownerId;
+			this.entries = new LinkedHashSet<>();
+			this.tally = new TrackTally();
+		}
+
+		public long getOwnerId() {
+			return ownerId;
+		}
+
+		/**
+		 * Gets this user's entries, in the order that they were added.
+		 * 
+		 * @return An unmodifiable view of the entries.
+		 */
+		public Collection<QueueEntry> getEntries() {
+			return Collections.unmodifiableSet(entries);
+		}
+
+		/**
+		 * Gets this user's oldest entry.
+		 * 
+		 * @return The oldest entry. Non-null.
+		 */
+		public QueueEntry first() {
+			return entries.iterator().next();
+		}
+
+		public int size() {
+			return entries.size();
+		}
+
+		public TrackQueueStats getStats() {
+			return tally.toStats();
+		}
+	}
+}
@@ -1,11 +1,18 @@
 package net.tonbot.plugin.music;
 
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
@@ -24,7 +31,6 @@ import sx.blah.discord.api.IDiscordClient;
 import sx.blah.discord.handle.impl.events.guild.channel.message.MessageReceivedEvent;
 import sx.blah.discord.handle.obj.IChannel;
 import sx.blah.discord.handle.obj.IMessage;
-import sx.blah.discord.handle.obj.IMessage.Attachment;
 import sx.blah.discord.handle.obj.IUser;
 import sx.blah.discord.util.DiscordException;
 import sx.blah.discord.util.MissingPermissionsException;
@@ -34,6 +40,11 @@ import sx.blah.discord.util.RequestBuilder;
 
 class PlayActivity extends AudioSessionActivity<PlayRequest> {
 
+	private static final Logger LOG = LoggerFactory.getLogger(PlayActivity.class);
+
+	private static final long LOAD_TIMEOUT_SECONDS = 60;
+	private static final long PROGRESS_UPDATE_INTERVAL_MS = 5000;
+
 	private static final ActivityDescriptor activityDescriptor = ActivityDescriptor.builder().route("music play")
 			.parameters(ImmutableList.of("[query]")).description("Plays a track or unpauses the player.")
 			.usageDescription("**Playing track(s) via direct link to a track or playlist:**\n"
@@ -54,29 +65,29 @@ class PlayActivity extends AudioSessionActivity<PlayRequest> {
 	private final List<PlayActivityHandler> handlerChain = ImmutableList.of(this::handlePlayWithoutArgs,
 			this::handleSearchResultSelection);
 
-	private final List<PlayActivityHandler> searchHandlerChain = ImmutableList.of(this::handleEnqueueIdentifier,
-			this::handleTrackSearch);
-
 	private final GuildMusicManager guildMusicManager;
 	private final IDiscordClient discordClient;
 	private final BotUtils botUtils;
 	private final TrackSearcher trackSearcher;
+	private final ExecutorService loadResultExecutor;
 
 	@Inject
 	public PlayActivity(@Prefix String prefix, IDiscordClient discordClient, GuildMusicManager guildMusicManager,
-			TrackSearcher trackSearcher, BotUtils botUtils) {
+			TrackSearcher trackSearcher, BotUtils botUtils, ExecutorService loadResultExecutor) {
 		super(guildMusicManager);
 		this.guildMusicManager = Preconditions.checkNotNull(guildMusicManager, "guildMusicManager must be non-null.");
 		this.discordClient = Preconditions.checkNotNull(discordClient, "discordClient must be non-null.");
 		this.botUtils = Preconditions.checkNotNull(botUtils, "botUtils must be non-null.");
 		this.trackSearcher = Preconditions.checkNotNull(trackSearcher, "trackSearcher must be non-null.");
+		this.loadResultExecutor = Preconditions.checkNotNull(loadResultExecutor,
+				"loadResultExecutor must be non-null.");
 
 		// This is to ensure that search results that are "forgotten" by the track
-		// searcher due to new searches will also be deleted from the channel.
-		// Evictions due to any other reason should be retained because the PlayActivity
-		// will edit the message.
+		// searcher due to new searches, expiry, or the session going away will also be
+		// deleted from the channel. Manual removals should be retained because the
+		// PlayActivity will edit the message.
 		this.trackSearcher.addSearchResultEvictionListener(esr -> {
-			if (esr.getReason() == EvictionReason.NEW_SEARCH
+			if (esr.getReason() != EvictionReason.MANUAL_REMOVAL
 					&& esr.getEvictedSearchResults().getMessage().isPresent()) {
 				deleteAsync(esr.getEvictedSearchResults().getMessage().get());
 			}
@@ -104,7 +115,14 @@ class PlayActivity extends AudioSessionActivity<PlayRequest> {
 				.isPresent();
 
 		if (!eventWasHandled) {
-			// The next set of handlers can take more time so we should at least acknowledge
+			permissions.checkPermission(event.getAuthor(), Action.ADD_TRACKS);
+
+			// The user might have entered a link to a track. Otherwise, maybe the user
+			// attached a file.
+			String identifier = !StringUtils.isBlank(playRequest.getQuery()) ? playRequest.getQuery()
+					: event.getMessage().getAttachments().get(0).getUrl();
+
+			// Loading and searching can take more time so we should at least acknowledge
 			// the user's message.
 			Future<IMessage> ackMessageFuture = RequestBuffer.request(() -> {
 				StringBuilder msg = new StringBuilder();
@@ -116,21 +134,29 @@ class PlayActivity extends AudioSessionActivity<PlayRequest> {
 				return event.getChannel().sendMessage(msg.toString());
 			});
 
-			try {
-				searchHandlerChain.stream()
-						.filter(handler -> handler.handle(audioSession, event, playRequest.getQuery(), permissions))
-						.findFirst();
-			} finally {
-				try {
-					IMessage ackMessage = ackMessageFuture.get();
-					deleteAsync(ackMessage);
-				} catch (InterruptedException | ExecutionException | DiscordException | RateLimitException
-						| MissingPermissionsException e) {
-					// NBD if the ack message failed to send or if the ack message couldn't be
-					// deleted.
-				}
-
-			}
+			// Neither the load nor the search may block this thread. The rest happens on
+			// the load result executor, even if the load has already completed, since
+			// replying and searching block. It mustn't happen on the loader's thread
+			// either, which may still be loading the rest of a playlist.
+			audioSession.enqueue(identifier, event.getAuthor(), LOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+					.thenAcceptAsync(alr -> {
+						if (!handleLoadResult(audioSession, event, alr)) {
+							handleTrackSearch(audioSession, event, playRequest.getQuery());
+						}
+					}, loadResultExecutor).whenCompleteAsync((v, e) -> {
+						try {
+							IMessage ackMessage = ackMessageFuture.get();
+							deleteAsync(ackMessage);
+						} catch (InterruptedException | ExecutionException | DiscordException | RateLimitException
+								| MissingPermissionsException ex) {
+							// NBD if the ack message failed to send or if the ack message couldn't be
+							// deleted.
+						}
+
+						if (e != null) {
+							handleFailure(event.getChannel(), e);
+						}
+					}, loadResultExecutor);
 		}
 	}
 
@@ -189,63 +215,50 @@ class PlayActivity extends AudioSessionActivity<PlayRequest> {
 		return false;
 	}
 
-	private boolean handleEnqueueIdentifier(AudioSession audioSession, MessageReceivedEvent event, String args,
-			MusicPermissions permissions) {
-		permissions.checkPermission(event.getAuthor(), Action.ADD_TRACKS);
-
+	/**
+	 * Replies to the user with the result of a load.
+	 * 
+	 * @return True if the result was handled. False if no tracks were found and the
+	 *         load result should be treated as a search query instead.
+	 */
+	private boolean handleLoadResult(AudioSession audioSession, MessageReceivedEvent event, AudioLoadResult alr) {
 		IUser user = event.getAuthor();
 		IChannel channel = event.getChannel();
 
-		AudioLoadResult alr = null;
-		// The user might have entered a link to a track.
-		if (!StringUtils.isBlank(args)) {
-			alr = audioSession.enqueue(args, user);
-
-		} else if (!event.getMessage().getAttachments().isEmpty()) {
-			// Maybe the user attached a file.
-			Attachment attachment = event.getMessage().getAttachments().get(0);
-
-			alr = audioSession.enqueue(attachment.getUrl(), user);
-		}
-
-		if (alr != null) {
-			if (alr.getLoadedTracks().isPresent()) {
-				List<AudioTrack> loadedTracks = alr.getLoadedTracks().get();
-
-				if (loadedTracks.isEmpty()) {
-					// No tracks. Let the next handler deal with it.
-					return false;
-				} else if (loadedTracks.size() == 1) {
-					AudioTrack loadedTrack = loadedTracks.get(0);
-
-					botUtils.sendMessage(channel, "**" + loadedTrack.getInfo().title + "** was queued by **"
-							+ user.getDisplayName(channel.getGuild()) + "**");
-				} else if (loadedTracks.size() > 1) {
-					StringBuffer sb = new StringBuffer();
-					sb.append("Added ").append(loadedTracks.size()).append(" tracks from playlist");
-					alr.getPlaylistName().ifPresent(pn -> sb.append(" **").append(pn).append("**"));
-					sb.append(".");
-
-					botUtils.sendMessage(channel, sb.toString());
-				}
-
-				deleteAsync(event.getMessage());
-				audioSession.play();
-
-			} else if (alr.getException().isPresent()) {
-				botUtils.sendMessage(channel, formatFriendlyException(alr.getException().get()));
+		if (alr.getLoadedTracks().isPresent()) {
+			List<AudioTrack> loadedTracks = alr.getLoadedTracks().get();
+
+			if (loadedTracks.isEmpty()) {
+				// No tracks. Treat it as a search instead.
+				return false;
+			} else if (alr.getPlaylistLoadProgress().isPresent()) {
+				reportPlaylistLoadProgress(channel, alr.getPlaylistName().orElse(null),
+						alr.getPlaylistLoadProgress().get());
+			} else if (loadedTracks.size() == 1) {
+				AudioTrack loadedTrack = loadedTracks.get(0);
+
+				botUtils.sendMessage(channel, "**" + loadedTrack.getInfo().title + "** was queued by **"
+						+ user.getDisplayName(channel.getGuild()) + "**");
+			} else if (loadedTracks.size() > 1) {
+				StringBuffer sb = new StringBuffer();
+				sb.append("Added ").append(loadedTracks.size()).append(" tracks from playlist");
+				alr.getPlaylistName().ifPresent(pn -> sb.append(" **").append(pn).append("**"));
+				sb.append(".");
+
+				botUtils.sendMessage(channel, sb.toString());
 			}
 
-			return true;
+			deleteAsync(event.getMessage());
+			audioSession.play();
+
+		} else if (alr.getException().isPresent()) {
+			botUtils.sendMessage(channel, formatFriendlyException(alr.getException().get()));
 		}
 
-		return false;
+		return true;
 	}
 
-	private boolean handleTrackSearch(AudioSession audioSession, MessageReceivedEvent event, String query,
-			MusicPermissions permissions) {
-		permissions.checkPermission(event.getAuthor(), Action.ADD_TRACKS);
-
+	private void handleTrackSearch(AudioSession audioSession, MessageReceivedEvent event, String query) {
 		// Perform a search
 		SearchResults searchResults = trackSearcher.search(audioSession, event.getAuthor().getLongID(), query);
 		List<AudioTrack> hits = searchResults.getHits();
@@ -272,8 +285,61 @@ class PlayActivity extends AudioSessionActivity<PlayRequest> {
 			IMessage messageWithSearchResults = botUtils.sendMessageSync(event.getChannel(), sb.toString());
 			searchResults.setMessage(messageWithSearchResults);
 		}
+	}
 
-		return true;
+	/**
+	 * Tells the user why their tracks couldn't be found. Errors that aren't the
+	 * user's fault are logged.
+	 */
+	private void handleFailure(IChannel channel, Throwable e) {
+		Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+
+		if (cause instanceof TimeoutException) {
+			botUtils.sendMessage(channel, "It took too long to find your tracks. Please try again later.");
+		} else if (cause instanceof CancellationException) {
+			// Someone gave up on the load. There's nothing to report.
+		} else if (cause instanceof TonbotBusinessException) {
+			botUtils.sendMessage(channel, cause.getMessage());
+		} else {
+			LOG.error("Unable to find tracks.", cause);
+			botUtils.sendMessage(channel, "Something went wrong while finding your tracks.");
+		}
+	}
+
+	/**
+	 * Sends a message about a playlist that is still loading. The message is edited
+	 * as more tracks are added, but no more often than every
+	 * {@link #PROGRESS_UPDATE_INTERVAL_MS}.
+	 */
+	private void reportPlaylistLoadProgress(IChannel channel, String playlistName, PlaylistLoadProgress progress) {
+		String playlist = playlistName != null ? " **" + playlistName + "**" : "";
+
+		IMessage progressMessage = botUtils.sendMessageSync(channel,
+				"Adding tracks from playlist" + playlist + "... (" + progress.getLoadedCount() + " so far)");
+		AtomicLong lastUpdateTime = new AtomicLong(System.currentTimeMillis());
+
+		progress.addChunkListener(loadedCount -> {
+			long now = System.currentTimeMillis();
+			long lastUpdate = lastUpdateTime.get();
+			if (now - lastUpdate >= PROGRESS_UPDATE_INTERVAL_MS && lastUpdateTime.compareAndSet(lastUpdate, now)) {
+				editAsync(progressMessage,
+						"Adding tracks from playlist" + playlist + "... (" + loadedCount + " so far)");
+			}
+		});
+
+		progress.getCompletion().whenComplete((totalCount, e) -> {
+			if (e == null) {
+				editAsync(progressMessage, "Added " + totalCount + " tracks from playlist" + playlist + ".");
+			} else if (e instanceof CancellationException) {
+				// Someone stopped the music or skipped everything.
+				editAsync(progressMessage, "Added " + progress.getLoadedCount() + " tracks from playlist" + playlist
+						+ " before it was stopped.");
+			} else {
+				LOG.warn("Unable to load the rest of a playlist.", e);
+				editAsync(progressMessage, "Added " + progress.getLoadedCount() + " tracks from playlist" + playlist
+						+ ", but the rest of it couldn't be loaded.");
+			}
+		});
 	}
 
 	private void deleteAsync(IMessage message) {
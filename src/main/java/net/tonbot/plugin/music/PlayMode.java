@@ -5,7 +5,7 @@ import java.util.Optional;
 enum PlayMode {
 
 	STANDARD(":arrow_right:", "Standard"), SHUFFLE(":twisted_rightwards_arrows:", "Shuffle"), ROUND_ROBIN(":bird:",
-			"Round Robin");
+			"Round Robin"), FAIR_QUEUE(":scales:", "Fair Queue");
 
 	private final String emote;
 	private final String friendlyName;
@@ -0,0 +1,76 @@
+package net.tonbot.plugin.music;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Tracks a playlist that is still being added to the queue after its first
+ * tracks were loaded.
+ */
+class PlaylistLoadProgress {
+
+	private final AtomicInteger loadedCount;
+	private final CompletableFuture<Integer> completion;
+	private final List<IntConsumer> listeners;
+
+	public PlaylistLoadProgress(int initialCount) {
+		this.loadedCount = new AtomicInteger(initialCount);
+		this.completion = new CompletableFuture<>();
+		this.listeners = new CopyOnWriteArrayList<>();
+	}
+
+	/**
+	 * Gets the number of tracks that have been added to the queue so far.
+	 * 
+	 * @return The number of tracks that have been added to the queue so far.
+	 */
+	public int getLoadedCount() {
+		return loadedCount.get();
+	}
+
+	/**
+	 * Gets a future that completes with the total number of tracks added once the
+	 * whole playlist has been loaded. Completes exceptionally if the rest of the
+	 * playlist couldn't be loaded, and is cancelled if loading was stopped before
+	 * the end of the playlist.
+	 * 
+	 * @return The completion future.
+	 */
+	public CompletableFuture<Integer> getCompletion() {
+		return completion;
+	}
+
+	/**
+	 * Adds a listener which is called with the number of tracks added so far,
+	 * every time a chunk of tracks is added to the queue.
+	 * 
+	 * @param listener
+	 *            The listener. Non-null.
+	 */
+	public void addChunkListener(IntConsumer listener) {
+		Preconditions.checkNotNull(listener, "listener must be non-null.");
+		listeners.add(listener);
+	}
+
+	void chunkLoaded(int chunkSize) {
+		int count = loadedCount.addAndGet(chunkSize);
+		listeners.forEach(listener -> listener.accept(count));
+	}
+
+	void done() {
+		completion.complete(loadedCount.get());
+	}
+
+	void failed(Throwable e) {
+		completion.completeExceptionally(e);
+	}
+
+	void cancelled() {
+		completion.cancel(false);
+	}
+}
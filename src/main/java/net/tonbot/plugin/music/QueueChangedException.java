@@ -0,0 +1,15 @@
+package net.tonbot.plugin.music;
+
+import net.tonbot.common.TonbotBusinessException;
+
+/**
+ * Thrown when tracks are removed by position, but the queue has changed since
+ * those positions were read.
+ */
+@SuppressWarnings("serial")
+class QueueChangedException extends TonbotBusinessException {
+
+	public QueueChangedException(String message) {
+		super(message);
+	}
+}
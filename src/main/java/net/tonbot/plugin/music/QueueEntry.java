@@ -0,0 +1,66 @@
+package net.tonbot.plugin.music;
+
+import com.google.common.base.Preconditions;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+
+import lombok.Getter;
+
+/**
+ * A track held by a {@link TrackStore}, along with the keys that the store's
+ * indexes order it by. Entries use identity equality, so the same
+ * {@link AudioTrack} may be queued more than once.
+ */
+@Getter
+class QueueEntry {
+
+	private final AudioTrack track;
+
+	/**
+	 * The ID of the user who added the track.
+	 */
+	private final long ownerId;
+
+	/**
+	 * Unique within a store, and so within a session. Increases with every track
+	 * that is put, so unlike a timestamp, it never ties for tracks that were put
+	 * at the same time.
+	 */
+	private final long sequence;
+
+	/**
+	 * A random key. Ordering entries by this key shuffles them.
+	 */
+	private long shuffleKey;
+
+	/**
+	 * Whether the track was a stream when it was put. A track's info may change
+	 * while it is queued, such as when a lazy track is resolved, so statistics use
+	 * this instead in order to remove exactly what they added.
+	 */
+	private final boolean stream;
+
+	/**
+	 * The track's duration when it was put. See {@link #isStream()}.
+	 */
+	private final long duration;
+
+	public QueueEntry(AudioTrack track, long ownerId, long sequence, long shuffleKey) {
+		this.track = Preconditions.checkNotNull(track, "track must be non-null.");
+		this.ownerId = ownerId;
+		this.sequence = sequence;
+		this.shuffleKey = shuffleKey;
+		this.stream = track.getInfo().isStream;
+		this.duration = track.getDuration();
+	}
+
+	/**
+	 * Sets the shuffle key. Must not be called while the entry is in an index that
+	 * is ordered by it.
+	 * 
+	 * @param shuffleKey
+	 *            The new shuffle key.
+	 */
+	void setShuffleKey(long shuffleKey) {
+		this.shuffleKey = shuffleKey;
+	}
+}
@@ -0,0 +1,192 @@
+package net.tonbot.plugin.music;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import net.tonbot.plugin.music.OwnerIndex.OwnerQueue;
+
+/**
+ * Plays one track from each user in turn. Each user's entries come from the
+ * store's {@link OwnerIndex}. The users form a ring, kept by this index, with a
+ * cursor pointing at the user who goes next. add, remove and poll are O(1).
+ * <br/>
+ * The owner index must already contain an entry when it is added to this
+ * index, and must still contain it when it is removed from this index.
+ */
+class RoundRobinTrackIndex implements TrackIndex {
+
+	private final OwnerIndex owners;
+	private final Map<OwnerQueue, Node> nodes;
+
+	private Node current;
+
+	public RoundRobinTrackIndex(OwnerIndex owners) {
+		this.owners = Preconditions.checkNotNull(owners, "owners must be non-null.");
+		this.nodes = new IdentityHashMap<>();
+		this.current = null;
+	}
+
+	@Override
+	public void add(QueueEntry entry) {
+		OwnerQueue ownerQueue = queueOf(entry);
+		if (!nodes.containsKey(ownerQueue)) {
+			// New user!
+			linkBehindCurrent(ownerQueue);
+		}
+	}
+
+	@Override
+	public void addAll(List<QueueEntry> entries) {
+		entries.forEach(entry -> add(entry));
+	}
+
+	@Override
+	public void remove(QueueEntry entry) {
+		OwnerQueue ownerQueue = queueOf(entry);
+		if (ownerQueue.size() == 1) {
+			// This is the user's last entry.
+			unlink(ownerQueue);
+		}
+	}
+
+	@Override
+	public void removeAll(Set<QueueEntry> entries) {
+		Map<OwnerQueue, Integer> removalCounts = new IdentityHashMap<>();
+		entries.forEach(entry -> removalCounts.merge(queueOf(entry), 1, Integer::sum));
+
+		removalCounts.forEach((ownerQueue, removalCount) -> {
+			if (ownerQueue.size() == removalCount) {
+				unlink(ownerQueue);
+			}
+		});
+	}
+
+	@Override
+	public QueueEntry poll() {
+		if (current == null) {
+			return null;
+		}
+
+		OwnerQueue ownerQueue = current.ownerQueue;
+		QueueEntry nextEntry = ownerQueue.first();
+
+		if (ownerQueue.size() == 1) {
+			// This user should be removed from the rotation. The turn passes on.
+			unlink(ownerQueue);
+		} else {
+			current = current.next;
+		}
+
+		return nextEntry;
+	}
+
+	/**
+	 * Sweeps over every user's entries, starting from the current user and
+	 * rotating by user. Users drop out of the sweep once they run out of entries.
+	 * The sweep stops as soon as it reaches {@code to}, so this is O(to + users).
+	 */
+	@Override
+	public List<QueueEntry> slice(int from, int to) {
+		if (current == null) {
+			return ImmutableList.of();
+		}
+
+		List<Iterator<QueueEntry>> cursors = new ArrayList<>();
+		Node node = current;
+		do {
+			cursors.add(node.ownerQueue.getEntries().iterator());
+			node = node.next;
+		} while (node != current);
+
+		ImmutableList.Builder<QueueEntry> builder = ImmutableList.builder();
+		int index = 0;
+		while (!cursors.isEmpty() && index < to) {
+			Iterator<Iterator<QueueEntry>> cursorsIterator = cursors.iterator();
+			while (cursorsIterator.hasNext() && index < to) {
+				Iterator<QueueEntry> cursor = cursorsIterator.next();
+				QueueEntry entry = cursor.next();
+				if (index >= from) {
+					builder.add(entry);
+				}
+				index++;
+
+				if (!cursor.hasNext()) {
+					cursorsIterator.remove();
+				}
+			}
+		}
+
+		return builder.build();
+	}
+
+	private OwnerQueue queueOf(QueueEntry entry) {
+		OwnerQueue ownerQueue = owners.get(entry.getOwnerId()).orElse(null);
+		Preconditions.checkState(ownerQueue != null && ownerQueue.getEntries().contains(entry),
+				"entry is not in the owner index.");
+
+		return ownerQueue;
+	}
+
+	/**
+	 * Adds a user to the ring so that they will be the last to play in the
+	 * current rotation.
+	 */
+	private void linkBehindCurrent(OwnerQueue ownerQueue) {
+		Node node = new Node(ownerQueue);
+		nodes.put(ownerQueue, node);
+
+		if (current == null) {
+			// The first user.
+			node.prev = node;
+			node.next = node;
+			current = node;
+		} else {
+			node.prev = current.prev;
+			node.next = current;
+			current.prev.next = node;
+			current.prev = node;
+		}
+	}
+
+	/**
+	 * Removes a user from the ring. If it's that user's turn, then the turn passes
+	 * on to the next user.
+	 */
+	private void unlink(OwnerQueue ownerQueue) {
+		Node node = nodes.remove(ownerQueue);
+		Preconditions.checkState(node != null, "user is not in the rotation.");
+
+		if (node.next == node) {
+			// This was the only user in the rotation.
+			current = null;
+		} else {
+			if (node == current) {
+				current = node.next;
+			}
+
+			node.prev.next = node.next;
+			node.next.prev = node.prev;
+		}
+	}
+
+	/**
+	 * A user's place in the ring.
+	 */
+	private static class Node {
+		private final OwnerQueue ownerQueue;
+
+		private Node prev;
+		private Node next;
+
+		public Node(OwnerQueue ownerQueue) {
+			this.ownerQueue = ownerQueue;
+		}
+	}
+}
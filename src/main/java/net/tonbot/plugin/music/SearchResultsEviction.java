@@ -20,6 +20,17 @@ class SearchResultsEviction {
 	}
 
 	public static enum EvictionReason {
-		NEW_SEARCH, MANUAL_REMOVAL
+		NEW_SEARCH, MANUAL_REMOVAL,
+
+		/**
+		 * The search results were too old, or were forgotten early to make room for
+		 * newer search results.
+		 */
+		EXPIRED,
+
+		/**
+		 * The session that the search was made in was destroyed.
+		 */
+		SESSION_DESTROYED
 	}
 }
@@ -2,18 +2,16 @@ package net.tonbot.plugin.music;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import org.apache.commons.lang3.StringUtils;
 
 import com.google.common.base.Preconditions;
-import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
@@ -89,13 +87,9 @@ class SkipActivity extends AudioSessionActivity<SkipRequest> {
 			}
 		} else if (StringUtils.equalsIgnoreCase(args, ALL_KEYWORD)) {
 			permissions.checkPermission(event.getAuthor(), Action.SKIP_ALL);
-			skippedTracks = audioSession.skip(Predicates.alwaysTrue());
+			skippedTracks = audioSession.skipAll();
 		} else if (StringUtils.equalsIgnoreCase(args, MINE_KEYWORD)) {
-			long userId = event.getAuthor().getLongID();
-			skippedTracks = audioSession.skip(at -> {
-				ExtraTrackInfo eti = (ExtraTrackInfo) at.getUserData();
-				return eti != null && eti.getAddedByUserId() == userId;
-			});
+			skippedTracks = audioSession.skipTracksAddedBy(event.getAuthor().getLongID());
 		} else {
 			skippedTracks = removeTracksByIndices(event, args, audioSession);
 		}
@@ -109,86 +103,85 @@ class SkipActivity extends AudioSessionActivity<SkipRequest> {
 	}
 
 	private List<AudioTrack> removeTracksByIndices(MessageReceivedEvent event, String args, AudioSession audioSession) {
-		List<AudioTrack> upcomingTracks = audioSession.getStatus().getUpcomingTracks();
+		AudioSessionStatus status = audioSession.getStatus();
+		List<AudioTrack> upcomingTracks = status.getUpcomingTracks();
 
-		List<Integer> skipIndexes = parseSkipIndexes(args, upcomingTracks.size());
+		int[] skipIndexes = parseSkipIndexes(args, upcomingTracks.size());
 
-		List<AudioTrack> removeTracks = skipIndexes.stream().map(i -> upcomingTracks.get(i))
-				.collect(Collectors.toList());
-
-		if (removeTracks.isEmpty()) {
+		if (skipIndexes.length == 0) {
 			throw new TonbotBusinessException("You didn't specify any valid track numbers to skip.");
 		}
 
+		List<AudioTrack> tracksToSkip = Arrays.stream(skipIndexes).mapToObj(i -> upcomingTracks.get(i))
+				.collect(Collectors.toList());
+
 		// Permissions check if a track being skipped wasn't added by the skipper.
-		removeTracks.stream().filter(
+		tracksToSkip.stream().filter(
 				track -> ((ExtraTrackInfo) track.getUserData()).getAddedByUserId() != event.getAuthor().getLongID())
 				.findAny().ifPresent(track -> {
 					MusicPermissions permissions = guildMusicManager.getPermission(event.getGuild().getLongID());
 					permissions.checkPermission(event.getAuthor(), Action.SKIP_OTHERS);
 				});
 
-		return audioSession.skip(at -> removeTracks.contains(at));
+		// The indexes refer to the queue as it was in the status. If any of those
+		// tracks has moved since, then nothing is skipped.
+		return audioSession.skip(skipIndexes, tracksToSkip);
 	}
 
 	/**
-	 * Generates a list of track indexes to skip. Will be returned in DESCENDING
-	 * order. The order is important because tracks should be skipped in this order
-	 * to prevent index shifting.
+	 * Generates an array of track indexes to skip, in ASCENDING order.
 	 * 
 	 * @param args
 	 *            The range as a user supplied string.
 	 * @param maxIndex
 	 *            A zero-indexed, exclusive upper bound on the indexes to return.
-	 * @return A list of zero-indexed track indexes to skip, sorted in descending
+	 * @return An array of zero-indexed track indexes to skip, sorted in ascending
 	 *         order. Guaranteed to have no duplicates.
 	 * @throws TonbotBusinessException
 	 *             If ranges could not be cleanly parsed.
 	 */
-	private List<Integer> parseSkipIndexes(String args, int maxIndex) {
-
-		List<Integer> skipIndexes = Arrays.asList(StringUtils.split(args, ',')).stream().map(String::trim)
-				.map(rangeStr -> {
-					// Interprets the 1-indexed input and returns a stream of 1-indexed Ranges.
-
-					// Maybe it's just a single number
-					Range range;
-					try {
-						int skipIndex = Integer.parseInt(rangeStr);
-						range = new Range(skipIndex, skipIndex);
-					} catch (IllegalArgumentException e) {
-						// Ok, fine it's not a single number.
-						range = null;
-					}
-
-					if (range == null) {
-						// Maybe its actually a range.
-						Matcher matcher = RANGE_PATTERN.matcher(rangeStr);
-						if (matcher.find()) {
-							range = new Range(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
-						}
-					}
-
-					if (range == null) {
-						throw new TonbotBusinessException("Couldn't parse the ranges.");
-					}
-
-					return range;
-
-				})
-				.flatMap(range -> IntStream
-						.range(Math.max(1, range.getFrom()), Math.min(range.getTo() + 1, maxIndex + 1))
-						.mapToObj(i -> i))
-				.map(i -> i - 1).distinct().sorted(new Comparator<Integer>() {
-					// Sorts the indexes in descending order. This is necessary to prevent incorrect
-					// track skips due to index shifting.
-					@Override
-					public int compare(Integer a, Integer b) {
-						return b - a;
-					}
-				}).collect(Collectors.toList());
-
-		return skipIndexes;
+	private int[] parseSkipIndexes(String args, int maxIndex) {
+
+		// Marks the indexes to skip so that overlapping ranges cost nothing extra to
+		// de-duplicate and sort.
+		BitSet skipIndexes = new BitSet(maxIndex);
+
+		Arrays.asList(StringUtils.split(args, ',')).stream().map(String::trim).map(rangeStr -> {
+			// Interprets the 1-indexed input and returns a stream of 1-indexed Ranges.
+
+			// Maybe it's just a single number
+			Range range;
+			try {
+				int skipIndex = Integer.parseInt(rangeStr);
+				range = new Range(skipIndex, skipIndex);
+			} catch (IllegalArgumentException e) {
+				// Ok, fine it's not a single number.
+				range = null;
+			}
+
+			if (range == null) {
+				// Maybe its actually a range.
+				Matcher matcher = RANGE_PATTERN.matcher(rangeStr);
+				if (matcher.find()) {
+					range = new Range(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+				}
+			}
+
+			if (range == null) {
+				throw new TonbotBusinessException("Couldn't parse the ranges.");
+			}
+
+			return range;
+
+		}).forEach(range -> {
+			int from = Math.max(1, range.getFrom()) - 1;
+			int to = Math.min(range.getTo(), maxIndex);
+			if (from < to) {
+				skipIndexes.set(from, to);
+			}
+		});
+
+		return skipIndexes.stream().toArray();
 	}
 
 	@Data
@@ -0,0 +1,127 @@
+package net.tonbot.plugin.music;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Keeps entries sorted in an {@link IndexedTree}. The comparator must be a
+ * total order over entries (e.g. by breaking ties with
+ * {@link QueueEntry#getSequence()}) so that any entry can be found again by
+ * descending the tree. Insertion, removal and {@link #poll()} are O(log n)
+ * expected.
+ */
+class SortedTrackIndex implements TrackIndex {
+
+	private final IndexedTree<QueueEntry> entries;
+	private final Comparator<QueueEntry> comparator;
+
+	/**
+	 * Sorts the entries using a given comparator.
+	 *
+	 * @param comparator
+	 *            The comparator which will be used to sort the entries. Must not
+	 *            consider any two distinct entries to be equal. Non-null.
+	 */
+	public SortedTrackIndex(Comparator<QueueEntry> comparator) {
+		this.entries = new IndexedTree<>();
+		this.comparator = Preconditions.checkNotNull(comparator, "comparator must be non-null.");
+	}
+
+	@Override
+	public void add(QueueEntry entry) {
+		entries.add(entries.upperBound(entry, comparator), entry);
+	}
+
+	/**
+	 * Inserts a few entries one at a time, or sorts many input entries and then
+	 * merges them into the existing entries in a single pass, whichever is
+	 * cheaper.
+	 */
+	@Override
+	public void addAll(List<QueueEntry> inputEntries) {
+		if (isCheaperOneAtATime(inputEntries.size())) {
+			inputEntries.forEach(entry -> add(entry));
+			return;
+		}
+
+		List<QueueEntry> sortedInputEntries = new ArrayList<>(inputEntries);
+		sortedInputEntries.sort(comparator);
+
+		List<QueueEntry> existingEntries = entries.toList();
+		List<QueueEntry> merged = new ArrayList<>(existingEntries.size() + sortedInputEntries.size());
+
+		int i = 0;
+		int j = 0;
+		while (i < existingEntries.size() && j < sortedInputEntries.size()) {
+			if (comparator.compare(existingEntries.get(i), sortedInputEntries.get(j)) < 0) {
+				merged.add(existingEntries.get(i++));
+			} else {
+				merged.add(sortedInputEntries.get(j++));
+			}
+		}
+
+		merged.addAll(existingEntries.subList(i, existingEntries.size()));
+		merged.addAll(sortedInputEntries.subList(j, sortedInputEntries.size()));
+
+		entries.reset(merged);
+	}
+
+	@Override
+	public void remove(QueueEntry entry) {
+		// The entry is the last one that is less than or equal to itself.
+		int index = entries.upperBound(entry, comparator) - 1;
+		Preconditions.checkState(index >= 0 && entries.get(index) == entry, "entry is not in this index.");
+
+		entries.removeAt(index);
+	}
+
+	@Override
+	public void removeAll(Set<QueueEntry> removeSet) {
+		if (isCheaperOneAtATime(removeSet.size())) {
+			removeSet.forEach(entry -> remove(entry));
+		} else {
+			entries.removeIf(entry -> removeSet.contains(entry));
+		}
+	}
+
+	@Override
+	public QueueEntry poll() {
+		if (entries.isEmpty()) {
+			return null;
+		}
+
+		return entries.removeAt(0);
+	}
+
+	@Override
+	public List<QueueEntry> slice(int from, int to) {
+		return entries.sublist(from, to);
+	}
+
+	/**
+	 * Looks up each position in the tree, so this is O(k log n) no matter how far
+	 * apart the positions are.
+	 */
+	@Override
+	public List<QueueEntry> select(int[] sortedIndices) {
+		List<QueueEntry> selected = new ArrayList<>(sortedIndices.length);
+		for (int index : sortedIndices) {
+			selected.add(entries.get(index));
+		}
+
+		return selected;
+	}
+
+	/**
+	 * Changing k entries one at a time costs O(k log n), while rebuilding the
+	 * tree costs O(n).
+	 */
+	private boolean isCheaperOneAtATime(int k) {
+		int log2Size = 32 - Integer.numberOfLeadingZeros(entries.size());
+		return (long) k * log2Size < entries.size();
+	}
+}
@@ -0,0 +1,85 @@
+package net.tonbot.plugin.music;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An ordering over the entries of a {@link TrackStore}. Every index in a store
+ * holds the same entries; they only differ in the order that they would play
+ * them. <br/>
+ * Implementations are NOT thread-safe. The store takes care of locking.
+ */
+interface TrackIndex {
+
+	/**
+	 * Adds an entry.
+	 * 
+	 * @param entry
+	 *            {@link QueueEntry}. Non-null.
+	 */
+	void add(QueueEntry entry);
+
+	/**
+	 * Adds entries, as if each one was {@link #add(QueueEntry)}ed in iteration
+	 * order.
+	 * 
+	 * @param entries
+	 *            The entries to add. Non-null.
+	 */
+	void addAll(List<QueueEntry> entries);
+
+	/**
+	 * Removes an entry which is in this index.
+	 * 
+	 * @param entry
+	 *            {@link QueueEntry}. Non-null.
+	 */
+	void remove(QueueEntry entry);
+
+	/**
+	 * Removes entries which are in this index.
+	 * 
+	 * @param entries
+	 *            An identity set of the entries to remove. Non-null.
+	 */
+	void removeAll(Set<QueueEntry> entries);
+
+	/**
+	 * Removes and returns the entry that should play next.
+	 * 
+	 * @return The next entry, or null if this index is empty.
+	 */
+	QueueEntry poll();
+
+	/**
+	 * Lists entries in play order, from {@code from} (inclusive) to {@code to}
+	 * (exclusive). Must not modify the index.
+	 * 
+	 * @return An immutable list of the entries in range.
+	 */
+	List<QueueEntry> slice(int from, int to);
+
+	/**
+	 * Gets the entries at the given positions in play order. Must not modify the
+	 * index. <br/>
+	 * By default, this slices from the first position to the last one, so it
+	 * costs as much as {@link #slice(int, int)} up to the last position.
+	 * 
+	 * @param sortedIndices
+	 *            Zero-based positions in strictly ascending order. Each must be
+	 *            within bounds. Non-null and non-empty.
+	 * @return The entries, in the order of {@code sortedIndices}.
+	 */
+	default List<QueueEntry> select(int[] sortedIndices) {
+		int offset = sortedIndices[0];
+		List<QueueEntry> candidates = slice(offset, sortedIndices[sortedIndices.length - 1] + 1);
+
+		List<QueueEntry> selected = new ArrayList<>(sortedIndices.length);
+		for (int index : sortedIndices) {
+			selected.add(candidates.get(index - offset));
+		}
+
+		return selected;
+	}
+}
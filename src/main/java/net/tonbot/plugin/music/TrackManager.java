@@ -4,7 +4,9 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Predicate;
+import java.util.stream.IntStream;
 
+import com.google.common.base.Preconditions;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
 
 /**
@@ -21,7 +23,54 @@ interface TrackManager {
 	 * 
 	 * @return An immutable list of the upcoming tracks.
 	 */
-	List<AudioTrack> getView();
+	default List<AudioTrack> getView() {
+		return getSnapshot().getTracks();
+	}
+
+	/**
+	 * Gets an immutable snapshot of the upcoming tracks. The same snapshot is
+	 * returned until the queue is modified, so repeated calls are cheap.
+	 * 
+	 * @return {@link TrackQueueSnapshot}. Non-null.
+	 */
+	TrackQueueSnapshot getSnapshot();
+
+	/**
+	 * Gets the number of upcoming tracks. O(1).
+	 * 
+	 * @return The number of upcoming tracks.
+	 */
+	int size();
+
+	/**
+	 * Gets a range of the upcoming tracks without copying the whole queue.
+	 * 
+	 * @param offset
+	 *            The index of the first track to include. Must be non-negative.
+	 * @param limit
+	 *            The maximum number of tracks to include. Must be non-negative.
+	 * @return An immutable list of at most {@code limit} tracks, starting at
+	 *         {@code offset}. Empty if {@code offset} is past the end of the queue.
+	 */
+	List<AudioTrack> slice(int offset, int limit);
+
+	/**
+	 * Gets aggregate figures about the upcoming tracks. These are kept up to date
+	 * as tracks are added and removed, so this is O(1).
+	 * 
+	 * @return {@link TrackQueueStats}. Non-null.
+	 */
+	TrackQueueStats getStats();
+
+	/**
+	 * Gets aggregate figures about the upcoming tracks that were added by a given
+	 * user. O(1).
+	 * 
+	 * @param userId
+	 *            The ID of the user who added the tracks.
+	 * @return {@link TrackQueueStats}. Non-null.
+	 */
+	TrackQueueStats getStats(long userId);
 
 	/**
 	 * Removes all tracks that meet the given criteria.
@@ -33,6 +82,57 @@ interface TrackManager {
 	 */
 	List<AudioTrack> removeAll(Predicate<AudioTrack> predicate);
 
+	/**
+	 * Removes the tracks at the given positions in a single pass. The caller says
+	 * which track it expects at each position, as it saw them in an earlier
+	 * snapshot. Changes elsewhere in the queue, such as tracks being added to the
+	 * end, don't matter as long as those tracks are still where they were.
+	 * 
+	 * @param sortedIndices
+	 *            Zero-based positions in strictly ascending order. Must be
+	 *            non-negative. Non-null.
+	 * @param expectedTracks
+	 *            The track expected at each position, in the order of
+	 *            {@code sortedIndices}. Compared by identity. Non-null.
+	 * @return The tracks removed, in the order of {@code sortedIndices}.
+	 * @throws QueueChangedException
+	 *             If any of the expected tracks is no longer at its position.
+	 *             Nothing is removed.
+	 */
+	List<AudioTrack> removeAt(int[] sortedIndices, List<AudioTrack> expectedTracks);
+
+	/**
+	 * Removes the tracks from position {@code from} (inclusive) to {@code to}
+	 * (exclusive), as long as they are still the expected ones.
+	 * 
+	 * @param from
+	 *            The inclusive start position.
+	 * @param to
+	 *            The exclusive end position.
+	 * @param expectedTracks
+	 *            The tracks expected in the range, in queue order. Compared by
+	 *            identity. Non-null.
+	 * @return The tracks removed, in queue order.
+	 * @throws QueueChangedException
+	 *             If any of the expected tracks is no longer at its position.
+	 *             Nothing is removed.
+	 */
+	default List<AudioTrack> removeRange(int from, int to, List<AudioTrack> expectedTracks) {
+		Preconditions.checkArgument(from <= to, "from must not be greater than to.");
+
+		return removeAt(IntStream.range(from, to).toArray(), expectedTracks);
+	}
+
+	/**
+	 * Removes all tracks that were added by a given user. O(k) in the number of
+	 * tracks that the user has added.
+	 * 
+	 * @param userId
+	 *            The ID of the user who added the tracks.
+	 * @return The tracks removed, in the order that they were added.
+	 */
+	List<AudioTrack> removeByOwner(long userId);
+
 	/**
 	 * Gets the next track, if any. The returned track will be removed.
 	 * 
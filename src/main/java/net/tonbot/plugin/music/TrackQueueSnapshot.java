@@ -0,0 +1,27 @@
+package net.tonbot.plugin.music;
+
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+
+import lombok.Data;
+
+/**
+ * An immutable copy of a {@link TrackManager}'s upcoming tracks, tagged with
+ * the version of the queue that it was taken from.
+ */
+@Data
+class TrackQueueSnapshot {
+
+	private final long version;
+	private final List<AudioTrack> tracks;
+
+	public TrackQueueSnapshot(long version, List<AudioTrack> tracks) {
+		this.version = version;
+
+		Preconditions.checkNotNull(tracks, "tracks must be non-null.");
+		this.tracks = ImmutableList.copyOf(tracks);
+	}
+}
@@ -0,0 +1,36 @@
+package net.tonbot.plugin.music;
+
+import lombok.Data;
+
+/**
+ * Aggregate figures about a {@link TrackManager}'s upcoming tracks. Streams
+ * have no meaningful duration so they are counted separately.
+ */
+@Data
+class TrackQueueStats {
+
+	/**
+	 * The number of upcoming tracks which are not streams.
+	 */
+	private final int trackCount;
+
+	/**
+	 * The number of upcoming streams.
+	 */
+	private final int streamCount;
+
+	/**
+	 * The total duration of the upcoming tracks which are not streams, in
+	 * milliseconds.
+	 */
+	private final long totalDuration;
+
+	/**
+	 * Gets the number of upcoming tracks, including streams.
+	 * 
+	 * @return The number of upcoming tracks.
+	 */
+	public int getSize() {
+		return trackCount + streamCount;
+	}
+}
@@ -0,0 +1,257 @@
+package net.tonbot.plugin.music;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.RateLimiter;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+
+/**
+ * Resolves {@link LazyYoutubeAudioTrack}s in the background on a fixed number
+ * of workers. Tracks that are about to play are resolved before tracks that are
+ * merely being warmed up. Matches that are already cached are resolved right
+ * away, but YouTube searches are limited to a global rate so that resolving a
+ * big playlist doesn't get the bot throttled.
+ */
+class TrackResolverService {
+
+	private static final Logger LOG = LoggerFactory.getLogger(TrackResolverService.class);
+
+	enum Priority {
+		/**
+		 * The track is one of the next to play.
+		 */
+		NEXT,
+
+		/**
+		 * The track was just imported and might play at some point.
+		 */
+		WARM_UP
+	}
+
+	private final RateLimiter searchRateLimiter;
+	private final boolean warmUpEnabled;
+	private final int queueCapacity;
+
+	private final PriorityBlockingQueue<ResolveTask> queue;
+	private final AtomicInteger[] queuedCounts;
+	private final AtomicLong sequence;
+	private final List<Thread> workers;
+
+	private volatile boolean shutdown;
+
+	/**
+	 * Constructor. Starts the workers.
+	 *
+	 * @param workers
+	 *            The number of worker threads. Must be positive.
+	 * @param queueCapacity
+	 *            The maximum number of tracks waiting to be resolved, per
+	 *            {@link Priority}. Must be positive.
+	 * @param searchesPerSecond
+	 *            The maximum rate of YouTube searches. Must be positive.
+	 * @param warmUpEnabled
+	 *            Whether {@link #warmUp(List)} should do anything.
+	 * @param threadFactory
+	 *            Creates the worker threads. Non-null.
+	 */
+	public TrackResolverService(int workers, int queueCapacity, double searchesPerSecond, boolean warmUpEnabled,
+			ThreadFactory threadFactory) {
+		Preconditions.checkArgument(workers > 0, "workers must be positive.");
+		Preconditions.checkArgument(queueCapacity > 0, "queueCapacity must be positive.");
+		Preconditions.checkArgument(searchesPerSecond > 0, "searchesPerSecond must be positive.");
+		Preconditions.checkNotNull(threadFactory, "threadFactory must be non-null.");
+
+		this.searchRateLimiter = RateLimiter.create(searchesPerSecond);
+		this.warmUpEnabled = warmUpEnabled;
+		this.queueCapacity = queueCapacity;
+		this.queue = new PriorityBlockingQueue<>();
+		this.queuedCounts = new AtomicInteger[Priority.values().length];
+		for (int i = 0; i < queuedCounts.length; i++) {
+			queuedCounts[i] = new AtomicInteger();
+		}
+		this.sequence = new AtomicLong();
+		this.shutdown = false;
+
+		this.workers = new ArrayList<>();
+		for (int i = 0; i < workers; i++) {
+			Thread worker = threadFactory.newThread(this::work);
+			this.workers.add(worker);
+			worker.start();
+		}
+	}
+
+	/**
+	 * Schedules a track to be resolved.
+	 *
+	 * @param track
+	 *            The track. Non-null.
+	 * @param priority
+	 *            The {@link Priority}. Non-null.
+	 * @return A {@link Future} which can be used to cancel the resolution, if it
+	 *         hasn't started yet.
+	 * @throws RejectedExecutionException
+	 *             If too many tracks of the same priority are already waiting, or
+	 *             if this service has been shut down.
+	 */
+	public Future<?> submit(LazyYoutubeAudioTrack track, Priority priority) {
+		Preconditions.checkNotNull(track, "track must be non-null.");
+		Preconditions.checkNotNull(priority, "priority must be non-null.");
+
+		if (shutdown) {
+			throw new RejectedExecutionException("The track resolver has been shut down.");
+		}
+
+		AtomicInteger queuedCount = queuedCounts[priority.ordinal()];
+		if (queuedCount.incrementAndGet() > queueCapacity) {
+			queuedCount.decrementAndGet();
+			throw new RejectedExecutionException("Too many tracks are waiting to be resolved.");
+		}
+
+		ResolveTask task = new ResolveTask(track, priority, sequence.getAndIncrement());
+		queue.add(task);
+
+		return task;
+	}
+
+	/**
+	 * Stops the workers and cancels the tracks that are waiting to be resolved.
+	 * Searches that are already in progress are interrupted. Doesn't wait for the
+	 * workers to stop.
+	 */
+	public void shutdown() {
+		shutdown = true;
+
+		workers.forEach(Thread::interrupt);
+
+		ResolveTask task;
+		while ((task = queue.poll()) != null) {
+			task.cancel(false);
+		}
+	}
+
+	/**
+	 * Schedules newly imported tracks to be resolved when there's nothing more
+	 * urgent to do. Tracks that don't fit in the queue are left to be resolved
+	 * later. No-op if warm up is disabled.
+	 *
+	 * @param tracks
+	 *            The tracks. Tracks that aren't {@link LazyYoutubeAudioTrack}s are
+	 *            ignored. Non-null.
+	 */
+	public void warmUp(List<AudioTrack> tracks) {
+		Preconditions.checkNotNull(tracks, "tracks must be non-null.");
+
+		if (!warmUpEnabled) {
+			return;
+		}
+
+		for (AudioTrack track : tracks) {
+			if (track instanceof LazyYoutubeAudioTrack) {
+				try {
+					submit((LazyYoutubeAudioTrack) track, Priority.WARM_UP);
+				} catch (RejectedExecutionException e) {
+					LOG.debug("Warm up queue is full. The rest of the tracks will be resolved when they're needed.");
+					return;
+				}
+			}
+		}
+	}
+
+	private void work() {
+		while (!shutdown) {
+			ResolveTask task;
+			try {
+				task = queue.take();
+			} catch (InterruptedException e) {
+				return;
+			}
+
+			if (!task.dequeue()) {
+				// Cancelled.
+				continue;
+			}
+
+			// Only actual searches count against the rate limit.
+			if (!task.track.isResolved() && !task.track.resolveFromCache()) {
+				searchRateLimiter.acquire();
+			}
+
+			task.run();
+		}
+	}
+
+	private class ResolveTask extends FutureTask<Void> implements Comparable<ResolveTask> {
+
+		private final LazyYoutubeAudioTrack track;
+		private final Priority priority;
+		private final long sequence;
+
+		// Set once the task no longer counts against the queue capacity.
+		private final AtomicBoolean dequeued;
+
+		public ResolveTask(LazyYoutubeAudioTrack track, Priority priority, long sequence) {
+			super(() -> {
+				try {
+					track.resolve();
+				} catch (Exception e) {
+					// It will be tried again when the track starts to play.
+					LOG.debug("Unable to resolve {} ahead of time.", track.getInfo().title, e);
+				}
+			}, null);
+			this.track = track;
+			this.priority = priority;
+			this.sequence = sequence;
+			this.dequeued = new AtomicBoolean(false);
+		}
+
+		/**
+		 * Stops counting this task against the queue capacity.
+		 * 
+		 * @return False if this task was already dequeued, such as by being
+		 *         cancelled.
+		 */
+		public boolean dequeue() {
+			if (!dequeued.compareAndSet(false, true)) {
+				return false;
+			}
+
+			queuedCounts[priority.ordinal()].decrementAndGet();
+			return true;
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = super.cancel(mayInterruptIfRunning);
+			if (cancelled && dequeue()) {
+				// Frees its place in the queue right away, rather than when a worker
+				// gets to it.
+				queue.remove(this);
+			}
+
+			return cancelled;
+		}
+
+		@Override
+		public int compareTo(ResolveTask o) {
+			int c = priority.compareTo(o.priority);
+			if (c != 0) {
+				return c;
+			}
+
+			return Long.compare(sequence, o.sequence);
+		}
+	}
+}
@@ -1,52 +1,120 @@
 package net.tonbot.plugin.music;
 
-import java.util.ArrayList;
+import java.text.Normalizer;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalNotification;
 import com.google.common.collect.ImmutableList;
-import com.google.inject.Inject;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.sedmelluq.discord.lavaplayer.source.youtube.YoutubeSearchProvider;
 import com.sedmelluq.discord.lavaplayer.track.AudioItem;
 import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist;
 import com.sedmelluq.discord.lavaplayer.track.AudioReference;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
 
+import lombok.Builder;
 import lombok.Data;
 import net.tonbot.common.TonbotTechnicalFault;
 import net.tonbot.plugin.music.SearchResultsEviction.EvictionReason;
 
 /**
  * A class that's responsible for performing searches on YouTube and then
- * remembering its results. The search operations are thread safe.
+ * remembering its results. The search operations are thread safe. <br/>
+ * Hits are shared by all guilds through a cache keyed by the normalized query,
+ * so that popular queries don't hit YouTube each time. Identical queries that
+ * are made at the same time share a single YouTube search. <br/>
+ * Each user's results are only remembered for a while, and only up to a total
+ * number of results. {@link #cleanUp()} should be called periodically so that
+ * results that have expired, or whose session has been destroyed, are evicted
+ * even if there are no new searches.
  */
 class TrackSearcher {
 
+	private static final Logger LOG = LoggerFactory.getLogger(TrackSearcher.class);
+
 	private final YoutubeSearchProvider ytSearchProvider;
 	private final int maxResults;
-	private final Map<SearchResultsKey, SearchResults> searchResultsMap;
+	private final LoadingCache<String, List<AudioTrack>> hitsCache;
+	private final Cache<SearchResultsKey, SearchResults> searchResultsCache;
 	private final List<Function<SearchResultsEviction, Void>> searchResultEvictionListeners;
 
-	@Inject
-	public TrackSearcher(final YoutubeSearchProvider ytSearchProvider, final int maxResults) {
+	/**
+	 * Constructor.
+	 * 
+	 * @param ytSearchProvider
+	 *            {@link YoutubeSearchProvider}. Non-null.
+	 * @param maxResults
+	 *            The maximum number of hits per search. Must be positive.
+	 * @param cacheMaxEntries
+	 *            The maximum number of queries whose hits are cached. Must be
+	 *            positive.
+	 * @param cacheTtl
+	 *            How long hits are cached for. Must be positive.
+	 * @param cacheTtlUnit
+	 *            The {@link TimeUnit} of {@code cacheTtl}. Non-null.
+	 * @param maxRememberedResults
+	 *            The maximum number of {@link SearchResults} to remember across
+	 *            all sessions. Must be positive.
+	 * @param rememberedResultsTtl
+	 *            How long {@link SearchResults} are remembered for. Must be
+	 *            positive.
+	 * @param rememberedResultsTtlUnit
+	 *            The {@link TimeUnit} of {@code rememberedResultsTtl}. Non-null.
+	 * @param ticker
+	 *            The time source. Nullable. Defaults to the system ticker.
+	 */
+	@Builder
+	private TrackSearcher(final YoutubeSearchProvider ytSearchProvider, final int maxResults,
+			final long cacheMaxEntries, final long cacheTtl, final TimeUnit cacheTtlUnit,
+			final long maxRememberedResults, final long rememberedResultsTtl,
+			final TimeUnit rememberedResultsTtlUnit, final Ticker ticker) {
 		this.ytSearchProvider = Preconditions.checkNotNull(ytSearchProvider, "ytSearchProvider must be non-null.");
 
 		Preconditions.checkArgument(maxResults > 0, "maxResults must be positive.");
 		this.maxResults = maxResults;
 
-		this.searchResultsMap = new ConcurrentHashMap<>();
-		this.searchResultEvictionListeners = new ArrayList<>();
+		Preconditions.checkArgument(cacheMaxEntries > 0, "cacheMaxEntries must be positive.");
+		Preconditions.checkArgument(cacheTtl > 0, "cacheTtl must be positive.");
+		Preconditions.checkNotNull(cacheTtlUnit, "cacheTtlUnit must be non-null.");
+		// A LoadingCache only loads a key once at a time. Other threads asking for the
+		// same key wait for that load instead of searching again.
+		Ticker effectiveTicker = ticker != null ? ticker : Ticker.systemTicker();
+		this.hitsCache = CacheBuilder.newBuilder().ticker(effectiveTicker).maximumSize(cacheMaxEntries)
+				.expireAfterWrite(cacheTtl, cacheTtlUnit).recordStats()
+				.build(CacheLoader.from(this::loadHits));
+
+		Preconditions.checkArgument(maxRememberedResults > 0, "maxRememberedResults must be positive.");
+		Preconditions.checkArgument(rememberedResultsTtl > 0, "rememberedResultsTtl must be positive.");
+		Preconditions.checkNotNull(rememberedResultsTtlUnit, "rememberedResultsTtlUnit must be non-null.");
+		this.searchResultsCache = CacheBuilder.newBuilder().ticker(effectiveTicker)
+				.maximumSize(maxRememberedResults).expireAfterWrite(rememberedResultsTtl, rememberedResultsTtlUnit)
+				.removalListener(this::onSearchResultsRemoval).build();
+
+		this.searchResultEvictionListeners = new CopyOnWriteArrayList<>();
 	}
 
 	/**
 	 * Registers a listener. This listener will be called whenever a
-	 * {@link SearchResults} is forgotten by this {@link TrackSearcher}. <br/>
-	 * This method is NOT thread-safe.
+	 * {@link SearchResults} is forgotten by this {@link TrackSearcher}. It may be
+	 * called from any thread.
 	 * 
 	 * @param listener
 	 *            A listener. Non-null.
@@ -68,7 +136,7 @@ class TrackSearcher {
 	 */
 	public Optional<SearchResults> getPreviousSearchResults(AudioSession audioSession, long userId) {
 		SearchResultsKey key = new SearchResultsKey(audioSession, userId);
-		return Optional.ofNullable(searchResultsMap.get(key));
+		return Optional.ofNullable(searchResultsCache.getIfPresent(key));
 	}
 
 	/**
@@ -99,22 +167,23 @@ class TrackSearcher {
 	public SearchResults search(AudioSession audioSession, long userId, String query) {
 		Preconditions.checkNotNull(query, "query must be non-null.");
 
-		AudioItem audioItem = ytSearchProvider.loadSearchResult(query);
-
-		List<AudioTrack> hits;
+		List<AudioTrack> cachedHits;
+		try {
+			cachedHits = hitsCache.getUnchecked(normalize(query));
+		} catch (UncheckedExecutionException e) {
+			Throwables.throwIfUnchecked(e.getCause());
+			throw e;
+		}
 
-		if (audioItem == AudioReference.NO_TRACK) {
-			hits = ImmutableList.of();
-		} else if (audioItem instanceof AudioPlaylist) {
-			List<AudioTrack> searchResultTracks = ((AudioPlaylist) audioItem).getTracks().stream().limit(maxResults)
-					.collect(Collectors.toList());
-			hits = ImmutableList.copyOf(searchResultTracks);
-		} else if (audioItem instanceof AudioTrack) {
-			hits = ImmutableList.of((AudioTrack) audioItem);
-		} else {
-			throw new TonbotTechnicalFault("Unknown return value from YoutubeSearchProvider.");
+		if (LOG.isDebugEnabled()) {
+			CacheStats stats = hitsCache.stats();
+			LOG.debug("Search cache: {} hits, {} misses.", stats.hitCount(), stats.missCount());
 		}
 
+		// The cached tracks are shared, so each search gets its own copies.
+		List<AudioTrack> hits = cachedHits.stream().map(AudioTrack::makeClone)
+				.collect(ImmutableList.toImmutableList());
+
 		SearchResults searchResults = new SearchResults(hits);
 
 		SearchResultsKey key = new SearchResultsKey(audioSession, userId);
@@ -128,15 +197,69 @@ class TrackSearcher {
 		return searchResults;
 	}
 
+	/**
+	 * Gets the hit and miss counts of the search cache.
+	 * 
+	 * @return {@link CacheStats}. Non-null.
+	 */
+	public CacheStats getCacheStats() {
+		return hitsCache.stats();
+	}
+
+	/**
+	 * Evicts {@link SearchResults} that have expired, with
+	 * {@link EvictionReason#EXPIRED}, and those whose {@link AudioSession} has been
+	 * destroyed, with {@link EvictionReason#SESSION_DESTROYED}. Listeners will be
+	 * notified.
+	 */
+	public void cleanUp() {
+		searchResultsCache.cleanUp();
+
+		for (SearchResultsKey key : searchResultsCache.asMap().keySet()) {
+			if (key.getSession().isDestroyed()) {
+				removeLoudly(key, EvictionReason.SESSION_DESTROYED);
+			}
+		}
+	}
+
+	private void onSearchResultsRemoval(RemovalNotification<SearchResultsKey, SearchResults> notification) {
+		// Explicit removals and replacements are notified by whoever made them, with
+		// a more specific reason.
+		if (notification.wasEvicted() && notification.getValue() != null) {
+			notifyListeners(notification.getValue(), EvictionReason.EXPIRED);
+		}
+	}
+
+	private List<AudioTrack> loadHits(String query) {
+		AudioItem audioItem = ytSearchProvider.loadSearchResult(query);
+
+		if (audioItem == AudioReference.NO_TRACK) {
+			return ImmutableList.of();
+		} else if (audioItem instanceof AudioPlaylist) {
+			List<AudioTrack> searchResultTracks = ((AudioPlaylist) audioItem).getTracks().stream().limit(maxResults)
+					.collect(Collectors.toList());
+			return ImmutableList.copyOf(searchResultTracks);
+		} else if (audioItem instanceof AudioTrack) {
+			return ImmutableList.of((AudioTrack) audioItem);
+		} else {
+			throw new TonbotTechnicalFault("Unknown return value from YoutubeSearchProvider.");
+		}
+	}
+
+	private static String normalize(String query) {
+		String normalized = Normalizer.normalize(query, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+		return StringUtils.normalizeSpace(normalized);
+	}
+
 	private void removeLoudly(SearchResultsKey key, EvictionReason reason) {
-		SearchResults removedSearchResults = searchResultsMap.remove(key);
+		SearchResults removedSearchResults = searchResultsCache.asMap().remove(key);
 		if (removedSearchResults != null) {
 			notifyListeners(removedSearchResults, reason);
 		}
 	}
 
 	private void putLoudly(SearchResultsKey key, SearchResults searchResults, EvictionReason reason) {
-		SearchResults removedSearchResults = searchResultsMap.put(key, searchResults);
+		SearchResults removedSearchResults = searchResultsCache.asMap().put(key, searchResults);
 		if (removedSearchResults != null) {
 			notifyListeners(removedSearchResults, reason);
 		}
@@ -0,0 +1,411 @@
+package net.tonbot.plugin.music;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+
+/**
+ * Holds a session's upcoming tracks once, with an index for every
+ * {@link PlayMode}. All indexes are kept up to date on every change, so
+ * switching play modes only changes which index is used to order the tracks.
+ * No tracks are lost by switching back and forth, and every order except
+ * shuffle is kept. The tracks are reshuffled each time shuffle is switched on.
+ * <br/>
+ * Entries are also grouped by the user who added them in an
+ * {@link OwnerIndex}. It's updated before the other indexes when adding and
+ * after them when removing, so the other indexes may rely on it. <br/>
+ * Every mutation holds the write lock, keeps a {@link TrackTally} of the
+ * upcoming tracks up to date, and invalidates the cached snapshot. The snapshot
+ * is then rebuilt at most once per mutation, no matter how many times it is
+ * read.
+ */
+class TrackStore implements TrackManager {
+
+	// Versions are drawn from a single counter so that they never repeat, even
+	// when a session replaces its TrackStore.
+	private static final AtomicLong VERSIONS = new AtomicLong();
+
+	private static final String QUEUE_CHANGED_MESSAGE = "The queue has changed since you last looked at it. Please try again.";
+
+	/**
+	 * Orders entries by the order that they were put.
+	 */
+	static final Comparator<QueueEntry> PUT_ORDER = Comparator.comparingLong(QueueEntry::getSequence);
+
+	/**
+	 * Orders entries by their random shuffle key.
+	 */
+	static final Comparator<QueueEntry> SHUFFLE_ORDER = Comparator.comparingLong(QueueEntry::getShuffleKey)
+			.thenComparingLong(QueueEntry::getSequence);
+
+	private final ReadWriteLock lock;
+	private final TrackTally tally;
+	private final OwnerIndex owners;
+	private final Map<PlayMode, TrackIndex> indexes;
+
+	private long version;
+	private TrackQueueSnapshot snapshot;
+
+	private long nextSequence;
+	private PlayMode playMode;
+	private TrackIndex activeIndex;
+
+	/**
+	 * Creates an empty store.
+	 * 
+	 * @param playMode
+	 *            The initial {@link PlayMode}. Non-null.
+	 */
+	public TrackStore(PlayMode playMode) {
+		Preconditions.checkNotNull(playMode, "playMode must be non-null.");
+
+		this.lock = new ReentrantReadWriteLock();
+		this.tally = new TrackTally();
+		this.owners = new OwnerIndex();
+		this.indexes = new EnumMap<>(PlayMode.class);
+		this.indexes.put(PlayMode.STANDARD, new SortedTrackIndex(PUT_ORDER));
+		this.indexes.put(PlayMode.SHUFFLE, new SortedTrackIndex(SHUFFLE_ORDER));
+		this.indexes.put(PlayMode.ROUND_ROBIN, new RoundRobinTrackIndex(owners));
+		this.indexes.put(PlayMode.FAIR_QUEUE, new FairQueueTrackIndex(owners));
+
+		this.version = VERSIONS.incrementAndGet();
+		this.snapshot = null;
+		this.nextSequence = 0;
+		this.playMode = playMode;
+		this.activeIndex = indexes.get(playMode);
+	}
+
+	/**
+	 * Gets the {@link PlayMode} which orders the upcoming tracks.
+	 * 
+	 * @return {@link PlayMode}. Non-null.
+	 */
+	public PlayMode getPlayMode() {
+		lock.readLock().lock();
+		try {
+			return playMode;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Sets the {@link PlayMode} which orders the upcoming tracks. O(1), except
+	 * that switching to {@link PlayMode#SHUFFLE} reshuffles the tracks in O(n log
+	 * n).
+	 * 
+	 * @param playMode
+	 *            {@link PlayMode}. Non-null.
+	 */
+	public void setPlayMode(PlayMode playMode) {
+		Preconditions.checkNotNull(playMode, "playMode must be non-null.");
+
+		lock.writeLock().lock();
+		try {
+			if (this.playMode == playMode) {
+				return;
+			}
+
+			TrackIndex index = indexes.get(playMode);
+			if (index == null) {
+				throw new IllegalArgumentException("Unknown PlayMode " + playMode);
+			}
+
+			if (playMode == PlayMode.SHUFFLE) {
+				index = reshuffle();
+			}
+
+			this.playMode = playMode;
+			this.activeIndex = index;
+			modified();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public TrackQueueSnapshot getSnapshot() {
+		lock.readLock().lock();
+		try {
+			if (snapshot != null) {
+				return snapshot;
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		lock.writeLock().lock();
+		try {
+			if (snapshot == null) {
+				snapshot = new TrackQueueSnapshot(version, toTracks(activeIndex.slice(0, tally.size())));
+			}
+
+			return snapshot;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return tally.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public List<AudioTrack> slice(int offset, int limit) {
+		Preconditions.checkArgument(offset >= 0, "offset must be non-negative.");
+		Preconditions.checkArgument(limit >= 0, "limit must be non-negative.");
+
+		lock.readLock().lock();
+		try {
+			int size = tally.size();
+			int from = Math.min(offset, size);
+			int to = (int) Math.min((long) from + limit, size);
+
+			if (from == to) {
+				return ImmutableList.of();
+			}
+
+			if (snapshot != null) {
+				return snapshot.getTracks().subList(from, to);
+			}
+
+			return toTracks(activeIndex.slice(from, to));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public TrackQueueStats getStats() {
+		lock.readLock().lock();
+		try {
+			return tally.toStats();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void put(AudioTrack track) {
+		Preconditions.checkNotNull(track, "track must be non-null.");
+
+		lock.writeLock().lock();
+		try {
+			QueueEntry entry = newEntry(track);
+			owners.add(entry);
+			indexes.values().forEach(index -> index.add(entry));
+			tally.add(entry);
+			modified();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void putAll(Collection<AudioTrack> tracks) {
+		Preconditions.checkNotNull(tracks, "tracks must be non-null.");
+
+		lock.writeLock().lock();
+		try {
+			List<QueueEntry> entries = new ArrayList<>(tracks.size());
+			tracks.forEach(track -> entries.add(newEntry(track)));
+
+			entries.forEach(entry -> owners.add(entry));
+			indexes.values().forEach(index -> index.addAll(entries));
+			entries.forEach(entry -> tally.add(entry));
+			modified();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public Optional<AudioTrack> next() {
+		lock.writeLock().lock();
+		try {
+			QueueEntry entry = activeIndex.poll();
+			if (entry == null) {
+				return Optional.empty();
+			}
+
+			for (TrackIndex index : indexes.values()) {
+				if (index != activeIndex) {
+					index.remove(entry);
+				}
+			}
+
+			owners.remove(entry);
+			tally.remove(entry);
+			modified();
+
+			return Optional.of(entry.getTrack());
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public List<AudioTrack> removeAll(Predicate<AudioTrack> predicate) {
+		Preconditions.checkNotNull(predicate, "predicate must be non-null.");
+
+		lock.writeLock().lock();
+		try {
+			List<QueueEntry> entriesToRemove = activeIndex.slice(0, size()).stream()
+					.filter(entry -> predicate.test(entry.getTrack()))
+					.collect(Collectors.toList());
+
+			if (entriesToRemove.isEmpty()) {
+				return ImmutableList.of();
+			}
+
+			return removeEntries(entriesToRemove);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public List<AudioTrack> removeAt(int[] sortedIndices, List<AudioTrack> expectedTracks) {
+		Preconditions.checkNotNull(sortedIndices, "sortedIndices must be non-null.");
+		Preconditions.checkNotNull(expectedTracks, "expectedTracks must be non-null.");
+		Preconditions.checkArgument(sortedIndices.length == expectedTracks.size(),
+				"There must be an expected track for every index.");
+		for (int i = 0; i < sortedIndices.length; i++) {
+			Preconditions.checkArgument(sortedIndices[i] >= 0, "sortedIndices must be non-negative.");
+			Preconditions.checkArgument(i == 0 || sortedIndices[i - 1] < sortedIndices[i],
+					"sortedIndices must be in strictly ascending order.");
+		}
+
+		if (sortedIndices.length == 0) {
+			return ImmutableList.of();
+		}
+
+		lock.writeLock().lock();
+		try {
+			if (sortedIndices[sortedIndices.length - 1] >= tally.size()) {
+				throw new QueueChangedException(QUEUE_CHANGED_MESSAGE);
+			}
+
+			List<QueueEntry> entriesToRemove = activeIndex.select(sortedIndices);
+			for (int i = 0; i < entriesToRemove.size(); i++) {
+				if (entriesToRemove.get(i).getTrack() != expectedTracks.get(i)) {
+					throw new QueueChangedException(QUEUE_CHANGED_MESSAGE);
+				}
+			}
+
+			return removeEntries(entriesToRemove);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public List<AudioTrack> removeByOwner(long userId) {
+		lock.writeLock().lock();
+		try {
+			List<QueueEntry> entriesToRemove = owners.get(userId)
+					.map(ownerQueue -> (List<QueueEntry>) new ArrayList<>(ownerQueue.getEntries()))
+					.orElse(ImmutableList.of());
+
+			if (entriesToRemove.isEmpty()) {
+				return ImmutableList.of();
+			}
+
+			return removeEntries(entriesToRemove);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public TrackQueueStats getStats(long userId) {
+		lock.readLock().lock();
+		try {
+			return owners.get(userId).map(ownerQueue -> ownerQueue.getStats())
+					.orElse(new TrackQueueStats(0, 0, 0));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes entries from every index. Must be called while holding the write
+	 * lock.
+	 * 
+	 * @return The removed tracks, in the same order as the entries.
+	 */
+	private List<AudioTrack> removeEntries(List<QueueEntry> entriesToRemove) {
+		Set<QueueEntry> removeSet = Sets.newIdentityHashSet();
+		removeSet.addAll(entriesToRemove);
+
+		indexes.values().forEach(index -> index.removeAll(removeSet));
+		entriesToRemove.forEach(entry -> owners.remove(entry));
+
+		entriesToRemove.forEach(entry -> tally.remove(entry));
+		modified();
+
+		return toTracks(entriesToRemove);
+	}
+
+	/**
+	 * Bumps the version and invalidates the cached snapshot. Must be called while
+	 * holding the write lock.
+	 */
+	private void modified() {
+		this.version = VERSIONS.incrementAndGet();
+		this.snapshot = null;
+	}
+
+	/**
+	 * Gives every entry a new shuffle key and rebuilds the shuffle index. Must be
+	 * called while holding the write lock, and while the shuffle index isn't the
+	 * active one.
+	 * 
+	 * @return The new shuffle index.
+	 */
+	private TrackIndex reshuffle() {
+		List<QueueEntry> entries = activeIndex.slice(0, size());
+		entries.forEach(entry -> entry.setShuffleKey(ThreadLocalRandom.current().nextLong()));
+
+		TrackIndex shuffleIndex = new SortedTrackIndex(SHUFFLE_ORDER);
+		shuffleIndex.addAll(entries);
+		indexes.put(PlayMode.SHUFFLE, shuffleIndex);
+
+		return shuffleIndex;
+	}
+
+	private QueueEntry newEntry(AudioTrack track) {
+		Preconditions.checkNotNull(track, "track must be non-null.");
+
+		ExtraTrackInfo eti = track.getUserData(ExtraTrackInfo.class);
+		Preconditions.checkNotNull(eti, "track must have ExtraTrackInfo.");
+
+		return new QueueEntry(track, eti.getAddedByUserId(), nextSequence++, ThreadLocalRandom.current().nextLong());
+	}
+
+	private static List<AudioTrack> toTracks(List<QueueEntry> entries) {
+		return entries.stream().map(QueueEntry::getTrack).collect(ImmutableList.toImmutableList());
+	}
+}
@@ -0,0 +1,46 @@
+package net.tonbot.plugin.music;
+
+/**
+ * A running count of tracks, streams and duration, kept up to date as tracks
+ * come and go so that {@link TrackQueueStats} never need to be computed by
+ * scanning. Entries are counted by what their tracks were when put, so removing
+ * an entry always undoes adding it. <br/>
+ * This class is NOT thread-safe.
+ */
+class TrackTally {
+
+	private int trackCount;
+	private int streamCount;
+	private long totalDuration;
+
+	public void add(QueueEntry entry) {
+		if (entry.isStream()) {
+			streamCount++;
+		} else {
+			trackCount++;
+			totalDuration += entry.getDuration();
+		}
+	}
+
+	public void remove(QueueEntry entry) {
+		if (entry.isStream()) {
+			streamCount--;
+		} else {
+			trackCount--;
+			totalDuration -= entry.getDuration();
+		}
+	}
+
+	/**
+	 * Gets the number of tracks, including streams.
+	 * 
+	 * @return The number of tracks.
+	 */
+	public int size() {
+		return trackCount + streamCount;
+	}
+
+	public TrackQueueStats toStats() {
+		return new TrackQueueStats(trackCount, streamCount, totalDuration);
+	}
+}
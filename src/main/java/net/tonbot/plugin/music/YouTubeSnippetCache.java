@@ -0,0 +1,248 @@
+package net.tonbot.plugin.music;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.api.services.youtube.YouTube;
+import com.google.api.services.youtube.model.Channel;
+import com.google.api.services.youtube.model.Video;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.sedmelluq.discord.lavaplayer.source.youtube.YoutubeAudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+
+/**
+ * Caches the snippets of YouTube videos and their channels. Snippets of queued
+ * tracks are prefetched in the background, several videos per request, so that
+ * they're usually cached by the time they're needed.
+ */
+class YouTubeSnippetCache {
+
+	private static final Logger LOG = LoggerFactory.getLogger(YouTubeSnippetCache.class);
+
+	// The YouTube Data API doesn't accept more IDs than this in one request.
+	static final int MAX_IDS_PER_REQUEST = 50;
+
+	// Prefetching is best effort. Videos beyond this are fetched when needed.
+	private static final int MAX_PENDING_VIDEOS = 1000;
+
+	private final YouTube yt;
+	private final Executor executor;
+	private final Cache<String, Video> videos;
+	private final Cache<String, Channel> channels;
+
+	// Guarded by this.
+	private final Set<String> pendingVideoIds;
+	private boolean draining;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param yt
+	 *            {@link YouTube}. Non-null.
+	 * @param maxEntries
+	 *            The maximum number of videos to cache, and separately, the
+	 *            maximum number of channels. Must be positive.
+	 * @param ttl
+	 *            How long snippets are cached for. Must be positive.
+	 * @param ttlUnit
+	 *            The {@link TimeUnit} of {@code ttl}. Non-null.
+	 * @param executor
+	 *            Runs prefetches. Non-null.
+	 */
+	public YouTubeSnippetCache(YouTube yt, long maxEntries, long ttl, TimeUnit ttlUnit, Executor executor) {
+		this.yt = Preconditions.checkNotNull(yt, "yt must be non-null.");
+		Preconditions.checkArgument(maxEntries > 0, "maxEntries must be positive.");
+		Preconditions.checkArgument(ttl > 0, "ttl must be positive.");
+		Preconditions.checkNotNull(ttlUnit, "ttlUnit must be non-null.");
+		this.executor = Preconditions.checkNotNull(executor, "executor must be non-null.");
+
+		this.videos = CacheBuilder.newBuilder().maximumSize(maxEntries).expireAfterWrite(ttl, ttlUnit).build();
+		this.channels = CacheBuilder.newBuilder().maximumSize(maxEntries).expireAfterWrite(ttl, ttlUnit).build();
+		this.pendingVideoIds = new LinkedHashSet<>();
+		this.draining = false;
+	}
+
+	/**
+	 * Fetches the snippets of the given tracks' videos and channels in the
+	 * background, unless they're already cached. Returns immediately.
+	 *
+	 * @param tracks
+	 *            The tracks. Tracks which aren't YouTube videos are ignored.
+	 *            Non-null.
+	 */
+	public void prefetch(List<AudioTrack> tracks) {
+		Preconditions.checkNotNull(tracks, "tracks must be non-null.");
+
+		synchronized (this) {
+			for (AudioTrack track : tracks) {
+				if (pendingVideoIds.size() >= MAX_PENDING_VIDEOS) {
+					break;
+				}
+
+				String videoId = getVideoId(track);
+				if (videoId != null && videos.getIfPresent(videoId) == null) {
+					pendingVideoIds.add(videoId);
+				}
+			}
+
+			if (pendingVideoIds.isEmpty() || draining) {
+				return;
+			}
+
+			this.draining = true;
+		}
+
+		executor.execute(this::drain);
+	}
+
+	/**
+	 * Gets a video's snippet, fetching it if it isn't cached.
+	 *
+	 * @param videoId
+	 *            The video ID. Non-null.
+	 * @return The {@link Video}. Non-null.
+	 * @throws IllegalArgumentException
+	 *             If there is no such video.
+	 * @throws UncheckedIOException
+	 *             If YouTube couldn't be contacted.
+	 */
+	public Video getVideo(String videoId) {
+		Preconditions.checkNotNull(videoId, "videoId must be non-null.");
+
+		Video video = videos.getIfPresent(videoId);
+		if (video == null) {
+			fetchVideos(ImmutableList.of(videoId));
+			video = videos.getIfPresent(videoId);
+		}
+
+		if (video == null) {
+			throw new IllegalArgumentException("Video with ID '" + videoId + "' could not be found.");
+		}
+
+		return video;
+	}
+
+	/**
+	 * Gets a channel's snippet, fetching it if it isn't cached.
+	 *
+	 * @param channelId
+	 *            The channel ID. Non-null.
+	 * @return The {@link Channel}. Non-null.
+	 * @throws IllegalArgumentException
+	 *             If there is no such channel.
+	 * @throws UncheckedIOException
+	 *             If YouTube couldn't be contacted.
+	 */
+	public Channel getChannel(String channelId) {
+		Preconditions.checkNotNull(channelId, "channelId must be non-null.");
+
+		Channel channel = channels.getIfPresent(channelId);
+		if (channel == null) {
+			fetchChannels(ImmutableList.of(channelId));
+			channel = channels.getIfPresent(channelId);
+		}
+
+		if (channel == null) {
+			throw new IllegalArgumentException("Channel with ID '" + channelId + "' could not be found.");
+		}
+
+		return channel;
+	}
+
+	private void drain() {
+		while (true) {
+			List<String> batch = new ArrayList<>();
+			synchronized (this) {
+				Iterator<String> it = pendingVideoIds.iterator();
+				while (it.hasNext() && batch.size() < MAX_IDS_PER_REQUEST) {
+					batch.add(it.next());
+					it.remove();
+				}
+
+				if (batch.isEmpty()) {
+					this.draining = false;
+					return;
+				}
+			}
+
+			try {
+				List<Video> fetchedVideos = fetchVideos(batch);
+
+				Set<String> channelIds = new LinkedHashSet<>();
+				for (Video video : fetchedVideos) {
+					String channelId = video.getSnippet().getChannelId();
+					if (channelId != null && channels.getIfPresent(channelId) == null) {
+						channelIds.add(channelId);
+					}
+				}
+
+				fetchChannels(channelIds);
+			} catch (Exception e) {
+				// They'll be fetched again if they're needed.
+				LOG.warn("Unable to prefetch YouTube snippets.", e);
+			}
+		}
+	}
+
+	private List<Video> fetchVideos(Collection<String> videoIds) {
+		List<Video> fetched = new ArrayList<>();
+
+		for (List<String> batch : Iterables.partition(videoIds, MAX_IDS_PER_REQUEST)) {
+			try {
+				List<Video> items = yt.videos().list("snippet").setId(String.join(",", batch)).execute().getItems();
+				if (items != null) {
+					for (Video video : items) {
+						videos.put(video.getId(), video);
+						fetched.add(video);
+					}
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		return fetched;
+	}
+
+	private void fetchChannels(Collection<String> channelIds) {
+		for (List<String> batch : Iterables.partition(channelIds, MAX_IDS_PER_REQUEST)) {
+			try {
+				List<Channel> items = yt.channels().list("snippet").setId(String.join(",", batch)).execute()
+						.getItems();
+				if (items != null) {
+					for (Channel channel : items) {
+						channels.put(channel.getId(), channel);
+					}
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	private static String getVideoId(AudioTrack track) {
+		if (track instanceof YoutubeAudioTrack) {
+			return track.getIdentifier();
+		} else if (track instanceof LazyYoutubeAudioTrack) {
+			// Only known once it has been resolved.
+			return ((LazyYoutubeAudioTrack) track).getResolvedTrack().map(AudioTrack::getIdentifier).orElse(null);
+		}
+
+		return null;
+	}
+}
@@ -1,7 +1,5 @@
 package net.tonbot.plugin.music;
 
-import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
@@ -9,11 +7,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.api.client.util.Preconditions;
-import com.google.api.services.youtube.YouTube;
 import com.google.api.services.youtube.model.Channel;
-import com.google.api.services.youtube.model.ChannelListResponse;
 import com.google.api.services.youtube.model.Video;
-import com.google.api.services.youtube.model.VideoListResponse;
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 import com.sedmelluq.discord.lavaplayer.source.youtube.YoutubeAudioTrack;
@@ -32,11 +27,11 @@ class YouTubeVideoEmbedAppender implements EmbedAppender {
 	private static final String TRUNCATION_INDICATOR = "…";
 	private static final String YOUTUBE_CHANNEL_URL_BASE = "http://www.youtube.com/channel/";
 
-	private final YouTube yt;
+	private final YouTubeSnippetCache snippetCache;
 
 	@Inject
-	public YouTubeVideoEmbedAppender(YouTube yt) {
-		this.yt = Preconditions.checkNotNull(yt, "yt must be non-null.");
+	public YouTubeVideoEmbedAppender(YouTubeSnippetCache snippetCache) {
+		this.snippetCache = Preconditions.checkNotNull(snippetCache, "snippetCache must be non-null.");
 	}
 
 	@Override
@@ -52,10 +47,10 @@ class YouTubeVideoEmbedAppender implements EmbedAppender {
 		String youtubeVideoId = audioTrack.getIdentifier();
 
 		try {
-			Video video = getVideo(youtubeVideoId);
+			Video video = snippetCache.getVideo(youtubeVideoId);
 			String description = video.getSnippet().getDescription();
 			String videoThumbnailUrl = video.getSnippet().getThumbnails().getDefault().getUrl();
-			Channel channel = getChannel(video.getSnippet().getChannelId());
+			Channel channel = snippetCache.getChannel(video.getSnippet().getChannelId());
 			String channelThumbnail = channel.getSnippet().getThumbnails().getDefault().getUrl();
 
 			embedBuilder.withThumbnail(videoThumbnailUrl);
@@ -74,40 +69,4 @@ class YouTubeVideoEmbedAppender implements EmbedAppender {
 		}
 
 	}
-
-	private Video getVideo(String youtubeVideoId) {
-		try {
-			VideoListResponse videoListResponse = yt.videos().list("snippet").setId(youtubeVideoId).execute();
-
-			List<Video> videoList = videoListResponse.getItems();
-
-			if (videoList.isEmpty()) {
-				throw new IllegalArgumentException("Video with ID '" + youtubeVideoId + "' could not be found.");
-			}
-
-			Video video = videoList.get(0);
-
-			return video;
-		} catch (IOException e) {
-			throw new UncheckedIOException(e);
-		}
-	}
-
-	private Channel getChannel(String channelId) {
-		try {
-			ChannelListResponse channelListResponse = yt.channels().list("snippet").setId(channelId).execute();
-
-			List<Channel> channelList = channelListResponse.getItems();
-
-			if (channelList.isEmpty()) {
-				throw new IllegalArgumentException("Channel with ID '" + channelId + "' could not be found.");
-			}
-
-			Channel channel = channelList.get(0);
-
-			return channel;
-		} catch (IOException e) {
-			throw new UncheckedIOException(e);
-		}
-	}
 }
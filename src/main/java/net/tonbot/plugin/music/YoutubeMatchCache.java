@@ -0,0 +1,321 @@
+package net.tonbot.plugin.music;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.Normalizer;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+import lombok.Data;
+
+/**
+ * A persistent cache of the YouTube videos that songs were matched to, so that
+ * the same song doesn't need to be searched for again. Songs are keyed by their
+ * normalized title, artist, and duration (in buckets of
+ * {@link #DURATION_BUCKET_MS}). <br/>
+ * The whole cache is kept in memory and is bounded by both size (least recently
+ * used entries are evicted first) and age. On disk, it is an append-only log of
+ * matches which is compacted on {@link #load()} and whenever it grows too much.
+ * Removed matches are logged as records without a video ID.
+ * Disk errors are logged and otherwise ignored; the cache keeps working in
+ * memory.
+ */
+class YoutubeMatchCache {
+
+	private static final Logger LOG = LoggerFactory.getLogger(YoutubeMatchCache.class);
+
+	private static final int MAGIC = 0x594D4331; // "YMC1"
+	private static final int FORMAT_VERSION = 1;
+
+	private static final long DURATION_BUCKET_MS = 5000;
+
+	// The log is compacted once it has this many more records than the index.
+	private static final int COMPACTION_SLACK = 1000;
+
+	private static final Match REMOVED = new Match("", "", "", 0, 0);
+
+	private final File file;
+	private final long ttlMs;
+	private final LongSupplier clock;
+
+	// Guarded by this.
+	private final LinkedHashMap<String, Match> index;
+	private DataOutputStream log;
+	private int logRecords;
+
+	/**
+	 * Constructor. The cache is empty until {@link #load()} is called.
+	 *
+	 * @param file
+	 *            The file to persist matches to. Non-null.
+	 * @param maxEntries
+	 *            The maximum number of matches to keep. Must be positive.
+	 * @param ttlMs
+	 *            How long a match is kept for, in milliseconds. Must be positive.
+	 * @param clock
+	 *            Supplies the current time in milliseconds. Non-null.
+	 */
+	public YoutubeMatchCache(File file, int maxEntries, long ttlMs, LongSupplier clock) {
+		this.file = Preconditions.checkNotNull(file, "file must be non-null.");
+		Preconditions.checkArgument(maxEntries > 0, "maxEntries must be positive.");
+		Preconditions.checkArgument(ttlMs > 0, "ttlMs must be positive.");
+		this.ttlMs = ttlMs;
+		this.clock = Preconditions.checkNotNull(clock, "clock must be non-null.");
+
+		this.index = new LinkedHashMap<String, Match>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Match> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Loads the matches from the file, if it exists, and then compacts it.
+	 * Expired matches are dropped. If the file is truncated, all of the complete
+	 * records before the truncation are kept.
+	 */
+	public synchronized void load() {
+		if (file.exists()) {
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+				if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+					LOG.warn("{} is not a match cache or is in an unknown format. It will be overwritten.",
+							file.getAbsolutePath());
+				} else {
+					readRecords(in);
+				}
+			} catch (EOFException e) {
+				// The header is incomplete. There are no records to read.
+			} catch (IOException e) {
+				LOG.warn("Unable to read the match cache at {}. It will be overwritten.", file.getAbsolutePath(), e);
+			}
+		}
+
+		compact();
+	}
+
+	private void readRecords(DataInputStream in) throws IOException {
+		long now = clock.getAsLong();
+
+		try {
+			while (true) {
+				String key = in.readUTF();
+				Match match = new Match(in.readUTF(), in.readUTF(), in.readUTF(), in.readLong(), in.readLong());
+
+				// Later records replace earlier ones with the same key.
+				index.remove(key);
+				if (!match.getVideoId().isEmpty() && !isExpired(match, now)) {
+					index.put(key, match);
+				}
+			}
+		} catch (EOFException e) {
+			// The end of the log, or a record that was only partially written.
+		}
+	}
+
+	/**
+	 * Gets the match for a song.
+	 *
+	 * @param title
+	 *            The song title. Non-null.
+	 * @param artist
+	 *            The song artist. Non-null.
+	 * @param durationMs
+	 *            The song duration in milliseconds.
+	 * @return The {@link Match}, if the song has been matched before and the
+	 *         match hasn't expired.
+	 */
+	public synchronized Optional<Match> get(String title, String artist, long durationMs) {
+		String key = key(title, artist, durationMs);
+		Match match = index.get(key);
+
+		if (match != null && isExpired(match, clock.getAsLong())) {
+			index.remove(key);
+			return Optional.empty();
+		}
+
+		return Optional.ofNullable(match);
+	}
+
+	/**
+	 * Remembers the match for a song.
+	 *
+	 * @param title
+	 *            The song title. Non-null.
+	 * @param artist
+	 *            The song artist. Non-null.
+	 * @param durationMs
+	 *            The song duration in milliseconds.
+	 * @param videoId
+	 *            The matched video's ID. Non-empty.
+	 * @param videoTitle
+	 *            The matched video's title. Non-null.
+	 * @param videoAuthor
+	 *            The matched video's author. Non-null.
+	 * @param videoLength
+	 *            The matched video's length in milliseconds.
+	 */
+	public synchronized void put(String title, String artist, long durationMs, String videoId, String videoTitle,
+			String videoAuthor, long videoLength) {
+		Preconditions.checkNotNull(videoId, "videoId must be non-null.");
+		Preconditions.checkNotNull(videoTitle, "videoTitle must be non-null.");
+		Preconditions.checkNotNull(videoAuthor, "videoAuthor must be non-null.");
+		Preconditions.checkArgument(!videoId.isEmpty(), "videoId must be non-empty.");
+
+		String key = key(title, artist, durationMs);
+		Match match = new Match(videoId, videoTitle, videoAuthor, videoLength, clock.getAsLong());
+		index.put(key, match);
+		append(key, match);
+	}
+
+	/**
+	 * Forgets the match for a song, such as when the matched video can no longer
+	 * be played.
+	 *
+	 * @param title
+	 *            The song title. Non-null.
+	 * @param artist
+	 *            The song artist. Non-null.
+	 * @param durationMs
+	 *            The song duration in milliseconds.
+	 */
+	public synchronized void remove(String title, String artist, long durationMs) {
+		String key = key(title, artist, durationMs);
+		if (index.remove(key) != null) {
+			append(key, REMOVED);
+		}
+	}
+
+	private void append(String key, Match match) {
+		if (log != null) {
+			try {
+				writeRecord(log, key, match);
+				log.flush();
+				logRecords++;
+			} catch (IOException e) {
+				LOG.warn("Unable to write to the match cache at {}. Matches will no longer be saved.",
+						file.getAbsolutePath(), e);
+				closeLog();
+			}
+		}
+
+		if (log != null && logRecords > index.size() + COMPACTION_SLACK) {
+			compact();
+		}
+	}
+
+	/**
+	 * Closes the file. Matches will no longer be saved.
+	 */
+	public synchronized void close() {
+		closeLog();
+	}
+
+	/**
+	 * Rewrites the file so that it only contains the matches in the index, oldest
+	 * first, and then reopens it for appending.
+	 */
+	private void compact() {
+		closeLog();
+
+		long now = clock.getAsLong();
+		index.values().removeIf(match -> isExpired(match, now));
+
+		try {
+			File parent = file.getAbsoluteFile().getParentFile();
+			Files.createDirectories(parent.toPath());
+
+			// Write to a temp file first and then atomically move it to the target.
+			File tmpFile = File.createTempFile(file.getName(), ".tmp", parent);
+			try {
+				try (DataOutputStream out = new DataOutputStream(
+						new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+					out.writeInt(MAGIC);
+					out.writeInt(FORMAT_VERSION);
+					for (Map.Entry<String, Match> entry : index.entrySet()) {
+						writeRecord(out, entry.getKey(), entry.getValue());
+					}
+				}
+				Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				// Only left behind if the write or the move failed.
+				Files.deleteIfExists(tmpFile.toPath());
+			}
+
+			this.log = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+			this.logRecords = index.size();
+		} catch (IOException e) {
+			LOG.warn("Unable to write the match cache at {}. Matches will not be saved.", file.getAbsolutePath(),
+					e);
+		}
+	}
+
+	private void closeLog() {
+		if (log != null) {
+			try {
+				log.close();
+			} catch (IOException e) {
+				LOG.debug("Unable to close the match cache at {}.", file.getAbsolutePath(), e);
+			}
+			log = null;
+		}
+	}
+
+	private boolean isExpired(Match match, long now) {
+		return now - match.getMatchedAt() >= ttlMs;
+	}
+
+	private static void writeRecord(DataOutputStream out, String key, Match match) throws IOException {
+		out.writeUTF(key);
+		out.writeUTF(match.getVideoId());
+		out.writeUTF(match.getTitle());
+		out.writeUTF(match.getAuthor());
+		out.writeLong(match.getLength());
+		out.writeLong(match.getMatchedAt());
+	}
+
+	private static String key(String title, String artist, long durationMs) {
+		Preconditions.checkNotNull(title, "title must be non-null.");
+		Preconditions.checkNotNull(artist, "artist must be non-null.");
+
+		return normalize(title) + '\0' + normalize(artist) + '\0' + (durationMs / DURATION_BUCKET_MS);
+	}
+
+	private static String normalize(String s) {
+		String normalized = Normalizer.normalize(s, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+		return StringUtils.normalizeSpace(normalized);
+	}
+
+	/**
+	 * A YouTube video that a song was matched to.
+	 */
+	@Data
+	static class Match {
+		private final String videoId;
+		private final String title;
+		private final String author;
+		private final long length;
+		private final long matchedAt;
+	}
+}
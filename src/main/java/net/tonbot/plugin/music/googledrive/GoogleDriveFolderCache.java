@@ -0,0 +1,319 @@
+package net.tonbot.plugin.music.googledrive;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.drive.model.File;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+
+import lombok.Data;
+
+/**
+ * Remembers the contents of Google Drive folders, in memory and on disk (one
+ * compressed file per folder), so that they survive restarts. A folder's
+ * listing is only used while the folder's modified date is the same as when it
+ * was listed, so the folder passed to {@link #get(File)} must have a current
+ * modified date, not one that was itself cached. <br/>
+ * Drive doesn't promise that a folder's modified date changes whenever its
+ * contents do, and the changes feed can't be used with an API key. Listings
+ * therefore also expire after a while, which bounds how long such changes go
+ * unnoticed. <br/>
+ * Disk errors are logged and otherwise ignored; they only result in cache
+ * misses.
+ */
+public class GoogleDriveFolderCache {
+
+	private static final Logger LOG = LoggerFactory.getLogger(GoogleDriveFolderCache.class);
+
+	private static final int MAGIC = 0x47444631; // "GDF1"
+	private static final int FORMAT_VERSION = 1;
+	private static final String FILE_SUFFIX = ".folder";
+
+	// Drive IDs are URL safe, so they're safe to use as file names.
+	private static final Pattern FOLDER_ID_PATTERN = Pattern.compile("[A-Za-z0-9_-]+");
+
+	// Once there are too many files on disk, this fraction of them is kept.
+	private static final double EVICTION_KEEP_RATIO = 0.9;
+
+	private final java.io.File dir;
+	private final long maxFolders;
+	private final long ttlMs;
+	private final LongSupplier clock;
+	private final Cache<String, CachedListing> cache;
+
+	// Guarded by this. The number of files on disk, or -1 if not yet counted.
+	private long diskFolders;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param dir
+	 *            The directory to keep the listings in. It will be created if it
+	 *            doesn't exist. Non-null.
+	 * @param maxFolders
+	 *            The maximum number of folders to remember. Must be positive.
+	 * @param ttl
+	 *            How long a listing is remembered for. Must be positive.
+	 * @param ttlUnit
+	 *            The unit of {@code ttl}. Non-null.
+	 */
+	public GoogleDriveFolderCache(java.io.File dir, long maxFolders, long ttl, TimeUnit ttlUnit) {
+		this(dir, maxFolders, ttl, ttlUnit, System::currentTimeMillis);
+	}
+
+	GoogleDriveFolderCache(java.io.File dir, long maxFolders, long ttl, TimeUnit ttlUnit, LongSupplier clock) {
+		this.dir = Preconditions.checkNotNull(dir, "dir must be non-null.");
+		Preconditions.checkArgument(maxFolders > 0, "maxFolders must be positive.");
+		Preconditions.checkArgument(ttl > 0, "ttl must be positive.");
+		Preconditions.checkNotNull(ttlUnit, "ttlUnit must be non-null.");
+		this.clock = Preconditions.checkNotNull(clock, "clock must be non-null.");
+
+		this.maxFolders = maxFolders;
+		this.ttlMs = ttlUnit.toMillis(ttl);
+		this.cache = CacheBuilder.newBuilder().maximumSize(maxFolders).build();
+		this.diskFolders = -1;
+	}
+
+	/**
+	 * Gets a folder's listing.
+	 *
+	 * @param folder
+	 *            The folder. Its ID and modified date must be set. Non-null.
+	 * @return The listing, if the folder hasn't been modified since it was
+	 *         listed.
+	 */
+	public Optional<FolderListing> get(File folder) {
+		Preconditions.checkNotNull(folder, "folder must be non-null.");
+
+		if (folder.getModifiedDate() == null) {
+			return Optional.empty();
+		}
+
+		CachedListing cachedListing = cache.getIfPresent(folder.getId());
+		if (cachedListing == null) {
+			cachedListing = read(folder.getId());
+			if (cachedListing != null) {
+				cache.put(folder.getId(), cachedListing);
+			}
+		}
+
+		if (cachedListing == null || cachedListing.getModifiedDate() != folder.getModifiedDate().getValue()
+				|| clock.getAsLong() - cachedListing.getListedAt() >= ttlMs) {
+			return Optional.empty();
+		}
+
+		return Optional.of(cachedListing.getListing());
+	}
+
+	/**
+	 * Remembers a folder's listing.
+	 *
+	 * @param folder
+	 *            The folder, as it was when it was listed. Its ID must be set.
+	 *            Folders without a modified date are not remembered. Non-null.
+	 * @param listing
+	 *            The folder's listing. Non-null.
+	 */
+	public void put(File folder, FolderListing listing) {
+		Preconditions.checkNotNull(folder, "folder must be non-null.");
+		Preconditions.checkNotNull(listing, "listing must be non-null.");
+
+		DateTime modifiedDate = folder.getModifiedDate();
+		if (modifiedDate == null) {
+			return;
+		}
+
+		CachedListing cachedListing = new CachedListing(modifiedDate.getValue(), clock.getAsLong(), listing);
+		cache.put(folder.getId(), cachedListing);
+		write(folder.getId(), cachedListing);
+	}
+
+	private synchronized CachedListing read(String folderId) {
+		java.io.File file = getFile(folderId);
+		if (file == null) {
+			return null;
+		}
+
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !folderId.equals(in.readUTF())) {
+				return null;
+			}
+
+			long modifiedDate = in.readLong();
+			long listedAt = in.readLong();
+			List<File> files = readFiles(in);
+			List<File> subfolders = readFiles(in);
+
+			// Marks it as recently used.
+			file.setLastModified(System.currentTimeMillis());
+
+			return new CachedListing(modifiedDate, listedAt, new FolderListing(files, subfolders));
+		} catch (FileNotFoundException e) {
+			return null;
+		} catch (IOException e) {
+			LOG.warn("Unable to read cached Google Drive folder from {}", file.getAbsolutePath(), e);
+			return null;
+		}
+	}
+
+	private synchronized void write(String folderId, CachedListing cachedListing) {
+		java.io.File file = getFile(folderId);
+		if (file == null) {
+			return;
+		}
+
+		boolean isNew = !file.exists();
+		java.io.File tempFile = new java.io.File(dir, folderId + FILE_SUFFIX + ".tmp");
+		try {
+			Files.createDirectories(dir.toPath());
+
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tempFile))))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeUTF(folderId);
+				out.writeLong(cachedListing.getModifiedDate());
+				out.writeLong(cachedListing.getListedAt());
+				writeFiles(out, cachedListing.getListing().getFiles());
+				writeFiles(out, cachedListing.getListing().getSubfolders());
+			}
+
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			LOG.warn("Unable to cache Google Drive folder to {}", file.getAbsolutePath(), e);
+			tempFile.delete();
+			return;
+		}
+
+		if (isNew) {
+			// Counting the files means listing the directory, so it's only done once.
+			diskFolders = diskFolders < 0 ? countFiles() : diskFolders + 1;
+			if (diskFolders > maxFolders) {
+				evictLeastRecentlyUsed();
+			}
+		}
+	}
+
+	private long countFiles() {
+		java.io.File[] files = dir.listFiles((d, fileName) -> fileName.endsWith(FILE_SUFFIX));
+		return files == null ? 0 : files.length;
+	}
+
+	private void evictLeastRecentlyUsed() {
+		java.io.File[] files = dir.listFiles((d, fileName) -> fileName.endsWith(FILE_SUFFIX));
+		if (files == null) {
+			diskFolders = 0;
+			return;
+		}
+
+		// Some slack is left, so that the directory isn't listed on every put.
+		long keep = (long) (maxFolders * EVICTION_KEEP_RATIO);
+		Arrays.sort(files, Comparator.comparingLong(java.io.File::lastModified));
+		long remaining = files.length;
+		for (int i = 0; i < files.length && remaining > keep; i++) {
+			if (files[i].delete()) {
+				remaining--;
+			} else {
+				LOG.warn("Unable to delete cached Google Drive folder {}", files[i].getAbsolutePath());
+			}
+		}
+
+		diskFolders = remaining;
+	}
+
+	private java.io.File getFile(String folderId) {
+		if (folderId == null || !FOLDER_ID_PATTERN.matcher(folderId).matches()) {
+			return null;
+		}
+
+		return new java.io.File(dir, folderId + FILE_SUFFIX);
+	}
+
+	private static void writeFiles(DataOutputStream out, List<File> files) throws IOException {
+		out.writeInt(files.size());
+		for (File file : files) {
+			writeNullableUTF(out, file.getId());
+			writeNullableUTF(out, file.getTitle());
+			writeNullableUTF(out, file.getMimeType());
+			writeNullableUTF(out, file.getWebContentLink());
+			out.writeBoolean(file.getModifiedDate() != null);
+			if (file.getModifiedDate() != null) {
+				out.writeLong(file.getModifiedDate().getValue());
+			}
+		}
+	}
+
+	private static List<File> readFiles(DataInputStream in) throws IOException {
+		int count = in.readInt();
+		List<File> files = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			File file = new File().setId(readNullableUTF(in)).setTitle(readNullableUTF(in))
+					.setMimeType(readNullableUTF(in)).setWebContentLink(readNullableUTF(in));
+			if (in.readBoolean()) {
+				file.setModifiedDate(new DateTime(in.readLong()));
+			}
+			files.add(file);
+		}
+
+		return files;
+	}
+
+	private static void writeNullableUTF(DataOutputStream out, String s) throws IOException {
+		out.writeBoolean(s != null);
+		if (s != null) {
+			out.writeUTF(s);
+		}
+	}
+
+	private static String readNullableUTF(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	/**
+	 * The contents of a folder.
+	 */
+	@Data
+	public static class FolderListing {
+		private final List<File> files;
+		private final List<File> subfolders;
+
+		public FolderListing(List<File> files, List<File> subfolders) {
+			this.files = ImmutableList.copyOf(files);
+			this.subfolders = ImmutableList.copyOf(subfolders);
+		}
+	}
+
+	@Data
+	private static class CachedListing {
+		private final long modifiedDate;
+		private final long listedAt;
+		private final FolderListing listing;
+	}
+}
@@ -1,5 +1,6 @@
 package net.tonbot.plugin.music.googledrive;
 
+import java.io.Closeable;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
@@ -7,9 +8,18 @@ import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
@@ -22,6 +32,8 @@ import com.google.api.client.repackaged.com.google.common.base.Preconditions;
 import com.google.api.services.drive.Drive;
 import com.google.api.services.drive.model.File;
 import com.google.api.services.drive.model.FileList;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Iterators;
 import com.google.inject.Inject;
 import com.sedmelluq.discord.lavaplayer.player.DefaultAudioPlayerManager;
 import com.sedmelluq.discord.lavaplayer.source.AudioSourceManager;
@@ -30,7 +42,9 @@ import com.sedmelluq.discord.lavaplayer.track.AudioItem;
 import com.sedmelluq.discord.lavaplayer.track.AudioReference;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
-import com.sedmelluq.discord.lavaplayer.track.BasicAudioPlaylist;
+
+import net.tonbot.plugin.music.IncrementalAudioPlaylist;
+import net.tonbot.plugin.music.googledrive.GoogleDriveFolderCache.FolderListing;
 
 /**
  * Plays a media file shared via Google Drive share link.
@@ -44,13 +58,41 @@ public class GoogleDriveSourceManager implements AudioSourceManager {
 
 	private static final String FOLDER_MIME_TYPE = "application/vnd.google-apps.folder";
 
+	// Only the fields that are used are requested, which keeps responses small.
+	private static final String FILE_FIELDS = "id,title,mimeType,webContentLink,modifiedDate";
+	private static final String FILE_LIST_FIELDS = "nextPageToken,items(" + FILE_FIELDS + ")";
+	private static final String SUBFOLDER_LIST_FIELDS = "nextPageToken,items(id,modifiedDate)";
+
+	// The largest page size that files.list allows.
+	private static final int MAX_RESULTS_PER_PAGE = 1000;
+
 	private final Drive drive;
 	private final HttpAudioSourceManager httpAsm;
+	private final ExecutorService folderListExecutor;
+	private final GoogleDriveFolderCache folderCache;
 
+	/**
+	 * Constructor.
+	 * 
+	 * @param drive
+	 *            {@link Drive}. Non-null.
+	 * @param httpAsm
+	 *            {@link HttpAudioSourceManager}. Non-null.
+	 * @param folderListExecutor
+	 *            Lists folders. It is shut down with this source manager.
+	 *            Non-null.
+	 * @param folderCache
+	 *            Remembers the contents of folders that have been listed.
+	 *            Non-null.
+	 */
 	@Inject
-	public GoogleDriveSourceManager(Drive drive, HttpAudioSourceManager httpAsm) {
+	public GoogleDriveSourceManager(Drive drive, HttpAudioSourceManager httpAsm, ExecutorService folderListExecutor,
+			GoogleDriveFolderCache folderCache) {
 		this.drive = Preconditions.checkNotNull(drive, "drive must be non-null.");
 		this.httpAsm = Preconditions.checkNotNull(httpAsm, "httpAsm must be non-null.");
+		this.folderListExecutor = Preconditions.checkNotNull(folderListExecutor,
+				"folderListExecutor must be non-null.");
+		this.folderCache = Preconditions.checkNotNull(folderCache, "folderCache must be non-null.");
 	}
 
 	@Override
@@ -79,7 +121,7 @@ public class GoogleDriveSourceManager implements AudioSourceManager {
 				return null;
 			}
 
-			File rootFile = drive.files().get(rootFileId).execute();
+			File rootFile = drive.files().get(rootFileId).setFields(FILE_FIELDS).execute();
 			boolean rootIsFolder = StringUtils.equals(rootFile.getMimeType(), FOLDER_MIME_TYPE);
 
 			LOG.debug("File with ID {} is a folder? {}", rootFileId, rootIsFolder);
@@ -89,14 +131,18 @@ public class GoogleDriveSourceManager implements AudioSourceManager {
 						new AudioReference(rootFile.getWebContentLink(), rootFile.getTitle()));
 				return audioItem;
 			} else {
-				List<File> files = getFilesRecursively(rootFileId);
-				List<AudioTrack> audioTracks = files.stream()
-						.map(file -> new LazyGoogleDriveAudioTrack(new AudioTrackInfo(file.getTitle(), "",
-								Long.MAX_VALUE, file.getWebContentLink(), true, file.getWebContentLink()), httpAsm,
-								manager))
-						.collect(Collectors.toList());
-				BasicAudioPlaylist playlist = new BasicAudioPlaylist(rootFile.getTitle(), audioTracks, null, false);
-				return playlist;
+				// Each folder is converted to tracks as it is listed so that the first folder
+				// can start playing while the rest are still being listed.
+				FolderIterator folders = new FolderIterator(rootFile);
+				Iterator<List<AudioTrack>> chunks = Iterators.transform(folders,
+						files -> files.stream()
+								.map(file -> new LazyGoogleDriveAudioTrack(new AudioTrackInfo(file.getTitle(), "",
+										Long.MAX_VALUE, file.getWebContentLink(), true, file.getWebContentLink()),
+										httpAsm, manager))
+								.collect(Collectors.toList()));
+
+				// Closing the playlist cancels the folders that are still being listed.
+				return IncrementalAudioPlaylist.of(rootFile.getTitle(), chunks, folders::close);
 			}
 
 		} catch (MalformedURLException e) {
@@ -106,32 +152,172 @@ public class GoogleDriveSourceManager implements AudioSourceManager {
 		}
 	}
 
-	private List<File> getFilesRecursively(String folderId) throws IOException {
+	/**
+	 * Lists every file in a folder. <br/>
+	 * A folder that hasn't been modified since it was last listed has its files
+	 * taken from the cache. Its subfolders are still listed, which is much
+	 * cheaper, because their own modified dates may have changed since. Each
+	 * subfolder is then checked against the cache in the same way when it is
+	 * listed. <br/>
+	 * Only the changes feed could tell which subfolders changed without listing
+	 * them, and it can't be used with an API key.
+	 *
+	 * @param folder
+	 *            The folder, with a current modified date. Non-null.
+	 */
+	private FolderListing listFolder(File folder) throws IOException {
+		Optional<FolderListing> cachedListing = folderCache.get(folder);
+		if (cachedListing.isPresent()) {
+			if (cachedListing.get().getSubfolders().isEmpty()) {
+				return cachedListing.get();
+			}
+
+			List<File> subfolders = listFiles(
+					"'" + folder.getId() + "' in parents and mimeType = '" + FOLDER_MIME_TYPE + "'",
+					SUBFOLDER_LIST_FIELDS);
+
+			return new FolderListing(cachedListing.get().getFiles(), subfolders);
+		}
+
+		List<File> subfolders = new ArrayList<>();
+		List<File> files = new ArrayList<>();
+		listFiles("'" + folder.getId() + "' in parents", FILE_LIST_FIELDS).forEach(file -> {
+			if (StringUtils.equals(file.getMimeType(), FOLDER_MIME_TYPE)) {
+				subfolders.add(file);
+			} else {
+				LOG.debug("Found a file: {}", file.getTitle());
+				files.add(file);
+			}
+		});
+
+		FolderListing listing = new FolderListing(files, subfolders);
+		folderCache.put(folder, listing);
+
+		return listing;
+	}
+
+	/**
+	 * Lists the files matching a query, ordered by title, following all pages of
+	 * results.
+	 */
+	private List<File> listFiles(String q, String fields) throws IOException {
 		List<File> files = new ArrayList<>();
-		getFilesRecursively(folderId, files);
+
+		String pageToken = null;
+		do {
+			FileList fileList = drive.files().list().setQ(q).setOrderBy("title").setMaxResults(MAX_RESULTS_PER_PAGE)
+					.setFields(fields).setPageToken(pageToken).execute();
+
+			files.addAll(fileList.getItems());
+			pageToken = fileList.getNextPageToken();
+		} while (!StringUtils.isEmpty(pageToken));
 
 		return files;
 	}
 
-	private void getFilesRecursively(String folderId, List<File> acc) throws IOException {
+	/**
+	 * Walks a folder tree breadth-first, returning one folder per call to
+	 * {@link #next()}. Each element is the list of files (but not subfolders) in
+	 * that folder. <br/>
+	 * When a folder is returned, all of its subfolders start being listed at once,
+	 * so that folders on the same level are listed in parallel. They are still
+	 * returned in order. <br/>
+	 * {@link #next()} may be called by one thread while another calls
+	 * {@link #close()}.
+	 */
+	private class FolderIterator implements Iterator<List<File>>, Closeable {
 
-		StringBuffer qBuilder = new StringBuffer();
-		qBuilder.append("'").append(folderId).append("' in parents");
+		// All guarded by this.
+		private final Deque<Future<FolderListing>> pendingListings;
+		private Future<FolderListing> awaited;
+		private boolean closed;
 
-		FileList fileList = drive.files().list().setQ(qBuilder.toString()).setOrderBy("title").execute();
+		public FolderIterator(File rootFolder) {
+			this.pendingListings = new ArrayDeque<>();
+			this.closed = false;
 
-		List<String> subfolderIds = new ArrayList<>();
-		fileList.getItems().forEach(file -> {
-			if (StringUtils.equals(file.getMimeType(), FOLDER_MIME_TYPE)) {
-				subfolderIds.add(file.getId());
-			} else {
-				LOG.debug("Found a file: {}", file.getTitle());
-				acc.add(file);
+			synchronized (this) {
+				submit(rootFolder);
+			}
+		}
+
+		@Override
+		public synchronized boolean hasNext() {
+			return !closed && !pendingListings.isEmpty();
+		}
+
+		/**
+		 * Gets the files in the next folder, waiting for it to be listed if needed.
+		 *
+		 * @throws CancellationException
+		 *             if this iterator was closed while waiting.
+		 * @throws UncheckedIOException
+		 *             if the folder couldn't be listed. The folders after it are
+		 *             cancelled.
+		 */
+		@Override
+		public List<File> next() {
+			Future<FolderListing> listingFuture;
+			synchronized (this) {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+
+				listingFuture = pendingListings.removeFirst();
+				awaited = listingFuture;
+			}
+
+			FolderListing listing;
+			try {
+				listing = listingFuture.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				close();
+				throw new IllegalStateException("Interrupted while listing Google Drive folder.", e);
+			} catch (ExecutionException e) {
+				close();
+				Throwables.throwIfUnchecked(e.getCause());
+				throw new IllegalStateException("Unable to list Google Drive folder.", e.getCause());
+			} finally {
+				synchronized (this) {
+					awaited = null;
+				}
 			}
-		});
 
-		for (String subfolderId : subfolderIds) {
-			getFilesRecursively(subfolderId, acc);
+			synchronized (this) {
+				listing.getSubfolders().forEach(this::submit);
+			}
+
+			return listing.getFiles();
+		}
+
+		/**
+		 * Cancels the folders that are still being listed, including one that
+		 * {@link #next()} may be waiting on. No more folders are listed.
+		 */
+		@Override
+		public synchronized void close() {
+			closed = true;
+
+			if (awaited != null) {
+				awaited.cancel(true);
+			}
+			pendingListings.forEach(f -> f.cancel(true));
+			pendingListings.clear();
+		}
+
+		private void submit(File folder) {
+			if (closed) {
+				return;
+			}
+
+			pendingListings.addLast(folderListExecutor.submit(() -> {
+				try {
+					return listFolder(folder);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}));
 		}
 	}
 
@@ -142,7 +328,7 @@ public class GoogleDriveSourceManager implements AudioSourceManager {
 
 	@Override
 	public void shutdown() {
-
+		folderListExecutor.shutdownNow();
 	}
 
 	@Override
@@ -11,12 +11,14 @@ import java.net.URL;
 import java.net.URLConnection;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
 import org.apache.commons.io.ByteOrderMark;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.input.BOMInputStream;
@@ -25,6 +27,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.api.client.repackaged.com.google.common.base.Preconditions;
+import com.google.common.collect.Iterators;
 import com.google.inject.Inject;
 import com.sedmelluq.discord.lavaplayer.player.DefaultAudioPlayerManager;
 import com.sedmelluq.discord.lavaplayer.source.AudioSourceManager;
@@ -32,9 +35,9 @@ import com.sedmelluq.discord.lavaplayer.track.AudioItem;
 import com.sedmelluq.discord.lavaplayer.track.AudioReference;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
-import com.sedmelluq.discord.lavaplayer.track.BasicAudioPlaylist;
 
 import net.tonbot.plugin.music.AudioTrackFactory;
+import net.tonbot.plugin.music.IncrementalAudioPlaylist;
 import net.tonbot.plugin.music.SongMetadata;
 
 /**
@@ -51,6 +54,8 @@ public class ITunesPlaylistSourceManager implements AudioSourceManager {
 
 	private static final char DELIMITER = '\t';
 
+	private static final int CHUNK_SIZE = 100;
+
 	private static final String USER_AGENT = "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_12_6) AppleWebKit/603.3.8 (KHTML, like Gecko) Version/10.1.2 Safari/603.3.8";
 
 	private static final String DISCORD_HOST = "cdn.discordapp.com";
@@ -85,22 +90,28 @@ public class ITunesPlaylistSourceManager implements AudioSourceManager {
 				return null;
 			}
 
-			List<SongMetadata> songMetadata = getSongMetadata(url);
-			List<AudioTrack> tracks = audioTrackFactory.getAudioTracks(songMetadata);
+			CSVParser parser = openPlaylist(url);
+			Iterator<List<AudioTrack>> chunks = Iterators.transform(getSongMetadataChunks(parser),
+					songMetadata -> audioTrackFactory.getAudioTracks(songMetadata));
 
 			String playlistName = FilenameUtils.getBaseName(url.getPath());
 			if (StringUtils.isEmpty(playlistName)) {
 				playlistName = DEFAULT_PLAYLIST_NAME;
 			}
 
-			return new BasicAudioPlaylist(playlistName, tracks, null, false);
+			// The download stays open until the rest of the playlist has been read, or
+			// the load is stopped.
+			return IncrementalAudioPlaylist.of(playlistName, chunks, () -> closeQuietly(parser));
 
 		} catch (MalformedURLException | InvalidItunesPlaylistException e) {
 			return null;
 		}
 	}
 
-	private List<SongMetadata> getSongMetadata(URL url) {
+	/**
+	 * Downloads the playlist and reads its header.
+	 */
+	private CSVParser openPlaylist(URL url) {
 
 		try {
 			URLConnection connection = url.openConnection();
@@ -119,43 +130,78 @@ public class ITunesPlaylistSourceManager implements AudioSourceManager {
 			}
 			LOG.debug("Detected character set: " + charset);
 
-			Reader iTunesPlaylistReader = new InputStreamReader(bomStream, charset);
-
-			CSVParser parser = csvFormat.parse(iTunesPlaylistReader);
-			Map<String, Integer> headerMap = parser.getHeaderMap();
-
-			if (!headerMap.containsKey(TRACK_TITLE_COLUMN) || !headerMap.containsKey(TRACK_ARTIST_COLUMN)
-					|| !headerMap.containsKey(TRACK_DURATION_COLUMN)) {
-				throw new InvalidItunesPlaylistException("File doesn't appear to be an iTunes playlist.");
-			}
+			return parsePlaylist(new InputStreamReader(bomStream, charset));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
 
-			List<SongMetadata> songMetadata = parser.getRecords().stream().map(record -> {
+	/**
+	 * Reads the header of a playlist. The reader is closed if the header isn't
+	 * that of an iTunes playlist. Otherwise, the caller must close the returned
+	 * parser.
+	 * 
+	 * @throws InvalidItunesPlaylistException
+	 *             if the header is missing any of the required columns.
+	 */
+	CSVParser parsePlaylist(Reader iTunesPlaylistReader) throws IOException {
+		CSVParser parser = csvFormat.parse(iTunesPlaylistReader);
+		Map<String, Integer> headerMap = parser.getHeaderMap();
+
+		if (!headerMap.containsKey(TRACK_TITLE_COLUMN) || !headerMap.containsKey(TRACK_ARTIST_COLUMN)
+				|| !headerMap.containsKey(TRACK_DURATION_COLUMN)) {
+			closeQuietly(parser);
+			throw new InvalidItunesPlaylistException("File doesn't appear to be an iTunes playlist.");
+		}
 
-				String title = record.get(TRACK_TITLE_COLUMN);
-				String artist = record.get(TRACK_ARTIST_COLUMN);
-				String timeInSecs = record.get(TRACK_DURATION_COLUMN);
+		return parser;
+	}
 
-				if (StringUtils.isAnyBlank(title, artist, timeInSecs)) {
-					LOG.debug("A track had an empty title, artist, or time. The track will be ignored.");
-					return null;
-				}
+	/**
+	 * Reads the playlist in chunks of up to {@link #CHUNK_SIZE} records. The
+	 * records are only read as the chunks are consumed. Records which are missing
+	 * any fields are left out, so chunks may be smaller or even empty.
+	 */
+	Iterator<List<SongMetadata>> getSongMetadataChunks(CSVParser parser) {
+		return Iterators.transform(Iterators.partition(parser.iterator(), CHUNK_SIZE),
+				records -> records.stream().map(record -> getSongMetadata(record)).filter(sm -> sm != null)
+						.collect(Collectors.toList()));
+	}
 
-				long timeInMs;
-				try {
-					timeInMs = Long.parseLong(timeInSecs) * 1000;
-					Preconditions.checkArgument(timeInMs >= 0);
-				} catch (IllegalArgumentException e) {
-					LOG.debug("A track had an invalid time. The track will be ignored.");
-					return null;
-				}
+	private void closeQuietly(CSVParser parser) {
+		try {
+			parser.close();
+		} catch (IOException e) {
+			LOG.debug("Unable to close an iTunes playlist.", e);
+		}
+	}
 
-				return new SongMetadata(title, artist, timeInMs);
-			}).filter(sm -> sm != null).collect(Collectors.toList());
+	/**
+	 * Gets the {@link SongMetadata} from a playlist record.
+	 * 
+	 * @return The {@link SongMetadata}, or null if the record is missing any
+	 *         fields.
+	 */
+	private SongMetadata getSongMetadata(CSVRecord record) {
+		String title = record.get(TRACK_TITLE_COLUMN);
+		String artist = record.get(TRACK_ARTIST_COLUMN);
+		String timeInSecs = record.get(TRACK_DURATION_COLUMN);
+
+		if (StringUtils.isAnyBlank(title, artist, timeInSecs)) {
+			LOG.debug("A track had an empty title, artist, or time. The track will be ignored.");
+			return null;
+		}
 
-			return songMetadata;
-		} catch (IOException e) {
-			throw new UncheckedIOException(e);
+		long timeInMs;
+		try {
+			timeInMs = Long.parseLong(timeInSecs) * 1000;
+			Preconditions.checkArgument(timeInMs >= 0);
+		} catch (IllegalArgumentException e) {
+			LOG.debug("A track had an invalid time. The track will be ignored.");
+			return null;
 		}
+
+		return new SongMetadata(title, artist, timeInMs);
 	}
 
 	@Override
@@ -179,7 +225,7 @@ public class ITunesPlaylistSourceManager implements AudioSourceManager {
 	}
 
 	@SuppressWarnings("serial")
-	private static class InvalidItunesPlaylistException extends RuntimeException {
+	static class InvalidItunesPlaylistException extends RuntimeException {
 		public InvalidItunesPlaylistException(String message) {
 			super(message);
 		}
@@ -0,0 +1,147 @@
+package net.tonbot.plugin.music.spotify;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.client.repackaged.com.google.common.base.Preconditions;
+import com.wrapper.spotify.Api;
+import com.wrapper.spotify.HttpManager;
+import com.wrapper.spotify.exceptions.WebApiException;
+import com.wrapper.spotify.methods.AbstractRequest;
+import com.wrapper.spotify.models.Page;
+import com.wrapper.spotify.models.SimpleArtist;
+import com.wrapper.spotify.models.SimpleTrack;
+
+/**
+ * Gets a page of an album's tracks. The {@link Api} has no request for this
+ * endpoint. <br/>
+ * Only the fields that are needed to play the tracks are read: their names,
+ * durations, and the names of their artists.
+ *
+ * @see <a href=
+ *      "https://developer.spotify.com/web-api/get-albums-tracks/">Get an
+ *      Album's Tracks</a>
+ */
+class AlbumTracksRequest extends AbstractRequest {
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	private AlbumTracksRequest(Builder builder) {
+		super(builder);
+	}
+
+	/**
+	 * Gets the page of tracks.
+	 *
+	 * @return The page of tracks.
+	 * @throws IOException
+	 *             If Spotify couldn't be contacted or the response couldn't be
+	 *             read.
+	 * @throws WebApiException
+	 *             If Spotify returned an error.
+	 */
+	public Page<SimpleTrack> get() throws IOException, WebApiException {
+		JsonNode json = OBJECT_MAPPER.readTree(getJson());
+
+		List<SimpleTrack> tracks = new ArrayList<>();
+		for (JsonNode item : json.path("items")) {
+			List<SimpleArtist> artists = new ArrayList<>();
+			for (JsonNode artistNode : item.path("artists")) {
+				SimpleArtist artist = new SimpleArtist();
+				artist.setId(artistNode.path("id").asText(null));
+				artist.setName(artistNode.path("name").asText(""));
+				artists.add(artist);
+			}
+
+			SimpleTrack track = new SimpleTrack();
+			track.setId(item.path("id").asText(null));
+			track.setName(item.path("name").asText(""));
+			track.setDuration(item.path("duration_ms").asInt());
+			track.setArtists(artists);
+			tracks.add(track);
+		}
+
+		Page<SimpleTrack> page = new Page<>();
+		page.setItems(tracks);
+		page.setLimit(json.path("limit").asInt());
+		page.setOffset(json.path("offset").asInt());
+		page.setTotal(json.path("total").asInt());
+		page.setNext(json.path("next").asText(null));
+		return page;
+	}
+
+	/**
+	 * Creates a builder that sends requests to the same Web API as the
+	 * {@link Api}'s defaults.
+	 *
+	 * @param httpManager
+	 *            Sends the request. Non-null.
+	 * @return A new {@link Builder}.
+	 */
+	public static Builder builder(HttpManager httpManager) {
+		Preconditions.checkNotNull(httpManager, "httpManager must be non-null.");
+
+		return new Builder().httpManager(httpManager).scheme(Api.DEFAULT_SCHEME).host(Api.DEFAULT_HOST)
+				.port(Api.DEFAULT_PORT);
+	}
+
+	public static final class Builder extends AbstractRequest.Builder<Builder> {
+
+		/**
+		 * Sets the album.
+		 *
+		 * @param albumId
+		 *            The album's ID. Non-null.
+		 * @return This builder.
+		 */
+		public Builder id(String albumId) {
+			Preconditions.checkNotNull(albumId, "albumId must be non-null.");
+			return path("/v1/albums/" + albumId + "/tracks");
+		}
+
+		/**
+		 * Sets the access token. The {@link Api} doesn't share its own, so it has to
+		 * be set on each request.
+		 *
+		 * @param accessToken
+		 *            The access token. Non-null.
+		 * @return This builder.
+		 */
+		public Builder accessToken(String accessToken) {
+			Preconditions.checkNotNull(accessToken, "accessToken must be non-null.");
+			return header("Authorization", "Bearer " + accessToken);
+		}
+
+		public Builder offset(int offset) {
+			Preconditions.checkArgument(offset >= 0, "offset must be non-negative.");
+			return parameter("offset", String.valueOf(offset));
+		}
+
+		public Builder limit(int limit) {
+			Preconditions.checkArgument(limit > 0, "limit must be positive.");
+			return parameter("limit", String.valueOf(limit));
+		}
+
+		/**
+		 * Sets the market, so that tracks which aren't available in it are replaced
+		 * by ones that are, where possible.
+		 *
+		 * @param market
+		 *            An ISO 3166-1 alpha-2 country code. Non-null.
+		 * @return This builder.
+		 */
+		public Builder market(String market) {
+			Preconditions.checkNotNull(market, "market must be non-null.");
+			return parameter("market", market);
+		}
+
+		@Override
+		public AlbumTracksRequest build() {
+			Preconditions.checkState(path != null, "The album ID must be set.");
+			return new AlbumTracksRequest(this);
+		}
+	}
+}
@@ -0,0 +1,187 @@
+package net.tonbot.plugin.music.spotify;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.google.api.client.repackaged.com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.wrapper.spotify.models.Page;
+
+/**
+ * Iterates over the pages of a paged Spotify resource, such as a playlist's
+ * tracks, in order. The first page says how many items there are, so the
+ * remaining pages are fetched by offset, a few at a time ahead of the page
+ * that's needed next. <br/>
+ * {@link #next()} may be called by one thread while another calls
+ * {@link #close()}.
+ *
+ * @param <T>
+ *            The type of the items.
+ */
+class PageIterator<T> implements Iterator<Page<T>>, Closeable {
+
+	private final PageFetcher<T> pageFetcher;
+	private final ExecutorService executor;
+	private final int maxConcurrentRequests;
+	private final int total;
+	private final int pageSize;
+
+	// All guarded by this.
+	private final Deque<Future<Page<T>>> inFlight;
+	private Future<Page<T>> awaited;
+	private Page<T> firstPage;
+	private int nextOffset;
+	private boolean closed;
+	private boolean exhausted;
+
+	/**
+	 * Constructor. Starts fetching the pages after the first one.
+	 *
+	 * @param firstPage
+	 *            The first page, which was already fetched. Non-null.
+	 * @param pageFetcher
+	 *            Fetches the rest of the pages. Non-null.
+	 * @param executor
+	 *            Runs {@code pageFetcher}. Non-null.
+	 * @param maxConcurrentRequests
+	 *            The maximum number of pages that are fetched at the same time.
+	 *            Must be positive.
+	 */
+	public PageIterator(Page<T> firstPage, PageFetcher<T> pageFetcher, ExecutorService executor,
+			int maxConcurrentRequests) {
+		this.firstPage = Preconditions.checkNotNull(firstPage, "firstPage must be non-null.");
+		this.pageFetcher = Preconditions.checkNotNull(pageFetcher, "pageFetcher must be non-null.");
+		this.executor = Preconditions.checkNotNull(executor, "executor must be non-null.");
+		Preconditions.checkArgument(maxConcurrentRequests > 0, "maxConcurrentRequests must be positive.");
+		this.maxConcurrentRequests = maxConcurrentRequests;
+
+		this.total = firstPage.getTotal();
+		this.pageSize = firstPage.getLimit() > 0 ? firstPage.getLimit() : Math.max(firstPage.getItems().size(), 1);
+		this.nextOffset = firstPage.getOffset() + pageSize;
+		this.inFlight = new ArrayDeque<>();
+		this.closed = false;
+		this.exhausted = false;
+
+		synchronized (this) {
+			fillWindow();
+		}
+	}
+
+	@Override
+	public synchronized boolean hasNext() {
+		return !closed && (firstPage != null || !inFlight.isEmpty());
+	}
+
+	/**
+	 * Whether every page has been returned by {@link #next()}. Unlike
+	 * {@link #hasNext()}, this isn't affected by {@link #close()}.
+	 *
+	 * @return True if the last page has been returned.
+	 */
+	public synchronized boolean isExhausted() {
+		return exhausted;
+	}
+
+	/**
+	 * Gets the next page, waiting for it to be fetched if needed.
+	 *
+	 * @throws CancellationException
+	 *             if this iterator was closed while waiting.
+	 * @throws IllegalStateException
+	 *             if the page couldn't be fetched. The pages after it are
+	 *             cancelled.
+	 */
+	@Override
+	public Page<T> next() {
+		Future<Page<T>> pageFuture;
+		boolean lastPage;
+		synchronized (this) {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			if (firstPage != null) {
+				Page<T> page = firstPage;
+				firstPage = null;
+				exhausted = inFlight.isEmpty();
+				return page;
+			}
+
+			pageFuture = inFlight.removeFirst();
+			awaited = pageFuture;
+			fillWindow();
+			lastPage = inFlight.isEmpty();
+		}
+
+		try {
+			Page<T> page = pageFuture.get();
+			synchronized (this) {
+				exhausted = lastPage;
+			}
+			return page;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			close();
+			throw new IllegalStateException("Interrupted while fetching a page from Spotify.", e);
+		} catch (ExecutionException e) {
+			close();
+			Throwables.throwIfUnchecked(e.getCause());
+			throw new IllegalStateException("Unable to fetch a page from Spotify.", e.getCause());
+		} finally {
+			synchronized (this) {
+				awaited = null;
+			}
+		}
+	}
+
+	/**
+	 * Cancels the pages that are still being fetched, including one that
+	 * {@link #next()} may be waiting on. No more pages are fetched.
+	 */
+	@Override
+	public synchronized void close() {
+		closed = true;
+
+		if (awaited != null) {
+			awaited.cancel(true);
+		}
+		inFlight.forEach(f -> f.cancel(true));
+		inFlight.clear();
+	}
+
+	private void fillWindow() {
+		while (!closed && inFlight.size() < maxConcurrentRequests && nextOffset < total) {
+			int offset = nextOffset;
+			inFlight.addLast(executor.submit(() -> pageFetcher.fetch(offset, pageSize)));
+			nextOffset += pageSize;
+		}
+	}
+
+	/**
+	 * Fetches a page.
+	 *
+	 * @param <T>
+	 *            The type of the items.
+	 */
+	@FunctionalInterface
+	interface PageFetcher<T> {
+
+		/**
+		 * Fetches the page at an offset.
+		 *
+		 * @param offset
+		 *            The index of the first item of the page.
+		 * @param limit
+		 *            The page size.
+		 * @return The page.
+		 */
+		Page<T> fetch(int offset, int limit);
+	}
+}
@@ -0,0 +1,198 @@
+package net.tonbot.plugin.music.spotify;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import lombok.Data;
+import net.tonbot.plugin.music.SongMetadata;
+
+/**
+ * Remembers the tracks of Spotify playlists on disk, one compressed file per
+ * playlist. Each entry is only valid for the playlist's snapshot ID at the time
+ * that it was cached, so a playlist that has changed since is never served
+ * stale. Least recently used playlists are deleted when there are too many.
+ * <br/>
+ * Disk errors are logged and otherwise ignored; they only result in cache
+ * misses.
+ */
+public class SpotifyPlaylistCache {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SpotifyPlaylistCache.class);
+
+	private static final int MAGIC = 0x53504331; // "SPC1"
+	private static final int FORMAT_VERSION = 1;
+	private static final String FILE_SUFFIX = ".playlist";
+
+	// Playlist IDs are base 62, so they're safe to use as file names.
+	private static final Pattern PLAYLIST_ID_PATTERN = Pattern.compile("[A-Za-z0-9]+");
+
+	private final File dir;
+	private final int maxPlaylists;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param dir
+	 *            The directory to keep the playlists in. It will be created if it
+	 *            doesn't exist. Non-null.
+	 * @param maxPlaylists
+	 *            The maximum number of playlists to keep. Must be positive.
+	 */
+	public SpotifyPlaylistCache(File dir, int maxPlaylists) {
+		this.dir = Preconditions.checkNotNull(dir, "dir must be non-null.");
+		Preconditions.checkArgument(maxPlaylists > 0, "maxPlaylists must be positive.");
+		this.maxPlaylists = maxPlaylists;
+	}
+
+	/**
+	 * Gets a cached playlist.
+	 *
+	 * @param playlistId
+	 *            The playlist ID. Non-null.
+	 * @param snapshotId
+	 *            The playlist's current snapshot ID. Non-null.
+	 * @return The cached playlist, if it was cached at the same snapshot.
+	 */
+	public synchronized Optional<CachedPlaylist> get(String playlistId, String snapshotId) {
+		Preconditions.checkNotNull(playlistId, "playlistId must be non-null.");
+		Preconditions.checkNotNull(snapshotId, "snapshotId must be non-null.");
+
+		File file = getFile(playlistId);
+		if (file == null) {
+			return Optional.empty();
+		}
+
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !playlistId.equals(in.readUTF())
+					|| !snapshotId.equals(in.readUTF())) {
+				return Optional.empty();
+			}
+
+			String name = in.readUTF();
+			int count = in.readInt();
+			List<SongMetadata> tracks = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				tracks.add(new SongMetadata(in.readUTF(), in.readUTF(), in.readLong()));
+			}
+
+			// Marks it as recently used.
+			file.setLastModified(System.currentTimeMillis());
+
+			return Optional.of(new CachedPlaylist(name, ImmutableList.copyOf(tracks)));
+		} catch (FileNotFoundException e) {
+			return Optional.empty();
+		} catch (IOException e) {
+			LOG.warn("Unable to read cached Spotify playlist from {}", file.getAbsolutePath(), e);
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Caches a playlist, replacing whatever was cached for it before.
+	 *
+	 * @param playlistId
+	 *            The playlist ID. Non-null.
+	 * @param snapshotId
+	 *            The snapshot ID of the playlist that the tracks were fetched
+	 *            from. Non-null.
+	 * @param name
+	 *            The playlist's name. Non-null.
+	 * @param tracks
+	 *            The playlist's tracks, in order. Non-null.
+	 */
+	public synchronized void put(String playlistId, String snapshotId, String name, List<SongMetadata> tracks) {
+		Preconditions.checkNotNull(playlistId, "playlistId must be non-null.");
+		Preconditions.checkNotNull(snapshotId, "snapshotId must be non-null.");
+		Preconditions.checkNotNull(name, "name must be non-null.");
+		Preconditions.checkNotNull(tracks, "tracks must be non-null.");
+
+		File file = getFile(playlistId);
+		if (file == null) {
+			return;
+		}
+
+		File tempFile = new File(dir, playlistId + FILE_SUFFIX + ".tmp");
+		try {
+			Files.createDirectories(dir.toPath());
+
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tempFile))))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeUTF(playlistId);
+				out.writeUTF(snapshotId);
+				out.writeUTF(name);
+				out.writeInt(tracks.size());
+				for (SongMetadata track : tracks) {
+					out.writeUTF(track.getName());
+					out.writeUTF(track.getArtist());
+					out.writeLong(track.getDuration());
+				}
+			}
+
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			LOG.warn("Unable to cache Spotify playlist to {}", file.getAbsolutePath(), e);
+			tempFile.delete();
+			return;
+		}
+
+		evictLeastRecentlyUsed();
+	}
+
+	private void evictLeastRecentlyUsed() {
+		File[] files = dir.listFiles((d, fileName) -> fileName.endsWith(FILE_SUFFIX));
+		if (files == null || files.length <= maxPlaylists) {
+			return;
+		}
+
+		Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+		for (int i = 0; i < files.length - maxPlaylists; i++) {
+			if (!files[i].delete()) {
+				LOG.warn("Unable to delete cached Spotify playlist {}", files[i].getAbsolutePath());
+			}
+		}
+	}
+
+	private File getFile(String playlistId) {
+		if (!PLAYLIST_ID_PATTERN.matcher(playlistId).matches()) {
+			return null;
+		}
+
+		return new File(dir, playlistId + FILE_SUFFIX);
+	}
+
+	/**
+	 * A playlist's tracks as they were when cached.
+	 */
+	@Data
+	static class CachedPlaylist {
+		private final String name;
+		private final List<SongMetadata> tracks;
+	}
+}
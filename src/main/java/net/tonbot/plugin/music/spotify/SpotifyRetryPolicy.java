@@ -0,0 +1,126 @@
+package net.tonbot.plugin.music.spotify;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.wrapper.spotify.exceptions.BadRequestException;
+import com.wrapper.spotify.exceptions.ServerErrorException;
+import com.wrapper.spotify.exceptions.WebApiException;
+
+/**
+ * Retries Spotify Web API requests that were rate limited or failed with a
+ * server error, backing off exponentially. <br/>
+ * The API client doesn't expose the Retry-After header, so when a request is
+ * rate limited, all requests made through the same policy hold off until the
+ * backoff has passed, rather than only the one that was rejected.
+ */
+class SpotifyRetryPolicy {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SpotifyRetryPolicy.class);
+
+	// The API client reports the HTTP status code as the message.
+	private static final String TOO_MANY_REQUESTS = "429";
+
+	private final int maxAttempts;
+	private final long initialBackoffMs;
+
+	// Requests aren't made before this time, in System.nanoTime() terms.
+	private volatile long holdOffUntilNanos;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param maxAttempts
+	 *            The maximum number of times a request is made. Must be positive.
+	 * @param initialBackoffMs
+	 *            How long to wait before the first retry. Later retries wait twice
+	 *            as long as the previous one. Must be positive.
+	 */
+	public SpotifyRetryPolicy(int maxAttempts, long initialBackoffMs) {
+		Preconditions.checkArgument(maxAttempts > 0, "maxAttempts must be positive.");
+		Preconditions.checkArgument(initialBackoffMs > 0, "initialBackoffMs must be positive.");
+
+		this.maxAttempts = maxAttempts;
+		this.initialBackoffMs = initialBackoffMs;
+		this.holdOffUntilNanos = System.nanoTime();
+	}
+
+	/**
+	 * Makes a request, retrying it if needed. Blocks while backing off.
+	 *
+	 * @param request
+	 *            The request. Non-null.
+	 * @return The response.
+	 * @throws IOException
+	 *             If Spotify couldn't be contacted.
+	 * @throws WebApiException
+	 *             If the request failed, and either it shouldn't be retried or it
+	 *             has been tried too many times.
+	 * @throws IllegalStateException
+	 *             If interrupted while backing off.
+	 */
+	public <T> T execute(SpotifyRequest<T> request) throws IOException, WebApiException {
+		Preconditions.checkNotNull(request, "request must be non-null.");
+
+		long backoffMs = initialBackoffMs;
+		for (int attempt = 1;; attempt++) {
+			sleepUntil(holdOffUntilNanos);
+
+			try {
+				return request.get();
+			} catch (BadRequestException | ServerErrorException e) {
+				boolean rateLimited = e instanceof BadRequestException
+						&& StringUtils.equals(e.getMessage(), TOO_MANY_REQUESTS);
+				if (!(rateLimited || e instanceof ServerErrorException) || attempt >= maxAttempts) {
+					throw e;
+				}
+
+				// Jitter keeps concurrent requests from retrying all at once.
+				long delayMs = backoffMs + ThreadLocalRandom.current().nextLong(backoffMs / 2 + 1);
+				LOG.debug("Spotify request failed with {}. Retrying in {} ms.", e.getMessage(), delayMs);
+
+				long retryAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+				if (rateLimited) {
+					holdOffAllUntil(retryAtNanos);
+				}
+				sleepUntil(retryAtNanos);
+
+				backoffMs *= 2;
+			}
+		}
+	}
+
+	private synchronized void holdOffAllUntil(long nanos) {
+		if (nanos - holdOffUntilNanos > 0) {
+			this.holdOffUntilNanos = nanos;
+		}
+	}
+
+	private static void sleepUntil(long nanos) {
+		long remainingNanos = nanos - System.nanoTime();
+		if (remainingNanos <= 0) {
+			return;
+		}
+
+		try {
+			TimeUnit.NANOSECONDS.sleep(remainingNanos);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting to retry a Spotify request.", e);
+		}
+	}
+
+	/**
+	 * A Spotify Web API request.
+	 */
+	@FunctionalInterface
+	interface SpotifyRequest<T> {
+		T get() throws IOException, WebApiException;
+	}
+}
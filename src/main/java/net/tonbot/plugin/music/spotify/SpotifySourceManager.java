@@ -4,111 +4,292 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.net.MalformedURLException;
-import java.net.URI;
-import java.net.URISyntaxException;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
-import org.apache.http.NameValuePair;
-import org.apache.http.client.utils.URLEncodedUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.api.client.repackaged.com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.sedmelluq.discord.lavaplayer.player.DefaultAudioPlayerManager;
 import com.sedmelluq.discord.lavaplayer.source.AudioSourceManager;
 import com.sedmelluq.discord.lavaplayer.track.AudioItem;
+import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist;
 import com.sedmelluq.discord.lavaplayer.track.AudioReference;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
 import com.sedmelluq.discord.lavaplayer.track.BasicAudioPlaylist;
 import com.wrapper.spotify.Api;
+import com.wrapper.spotify.HttpManager;
 import com.wrapper.spotify.exceptions.WebApiException;
-import com.wrapper.spotify.methods.PlaylistRequest;
-import com.wrapper.spotify.methods.PlaylistTracksRequest.Builder;
+import com.wrapper.spotify.models.Album;
+import com.wrapper.spotify.models.Artist;
 import com.wrapper.spotify.models.Page;
 import com.wrapper.spotify.models.Playlist;
 import com.wrapper.spotify.models.PlaylistTrack;
+import com.wrapper.spotify.models.SimpleArtist;
+import com.wrapper.spotify.models.SimpleTrack;
 import com.wrapper.spotify.models.Track;
 
 import lombok.Data;
 import lombok.NonNull;
 import net.tonbot.plugin.music.AudioTrackFactory;
+import net.tonbot.plugin.music.IncrementalAudioPlaylist;
 import net.tonbot.plugin.music.SongMetadata;
+import net.tonbot.plugin.music.spotify.SpotifyPlaylistCache.CachedPlaylist;
+import net.tonbot.plugin.music.spotify.SpotifyRetryPolicy.SpotifyRequest;
 
 public class SpotifySourceManager implements AudioSourceManager {
 
+	private static final Logger LOG = LoggerFactory.getLogger(SpotifySourceManager.class);
+
 	private static final String SPOTIFY_DOMAIN = "open.spotify.com";
 	private static final int EXPECTED_PATH_COMPONENTS = 4;
 
+	// The maximum number of IDs that the several tracks endpoint accepts.
+	private static final int MAX_TRACKS_PER_REQUEST = 50;
+
+	// The number of pages of a playlist or album that are fetched at the same
+	// time.
+	private static final int MAX_CONCURRENT_PAGE_REQUESTS = 4;
+	private static final int MAX_REQUEST_ATTEMPTS = 5;
+	private static final long INITIAL_BACKOFF_MS = 1000;
+
 	private final Api spotifyApi;
+	private final HttpManager httpManager;
+	private final SpotifyTokenManager tokenManager;
+	private final String market;
 	private final AudioTrackFactory audioTrackFactory;
-
+	private final ExecutorService pageFetchExecutor;
+	private final SpotifyPlaylistCache playlistCache;
+	private final ObjectMapper objectMapper;
+	private final SpotifyRetryPolicy retryPolicy;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param spotifyApi
+	 *            {@link Api}. Non-null.
+	 * @param tokenManager
+	 *            Keeps {@code spotifyApi}'s access token valid. Non-null.
+	 * @param market
+	 *            The market (an ISO 3166-1 alpha-2 country code) to get artists'
+	 *            top tracks for, and to replace unavailable album tracks in.
+	 *            Client credentials don't come with one. Non-null.
+	 * @param audioTrackFactory
+	 *            {@link AudioTrackFactory}. Non-null.
+	 * @param pageFetchExecutor
+	 *            Fetches pages of playlists and albums. It is shut down with
+	 *            this source manager. Non-null.
+	 * @param playlistCache
+	 *            Remembers the tracks of playlists that have been loaded.
+	 *            Non-null.
+	 * @param objectMapper
+	 *            {@link ObjectMapper}. Non-null.
+	 */
 	@Inject
-	public SpotifySourceManager(Api spotifyApi, AudioTrackFactory audioTrackFactory) {
+	public SpotifySourceManager(Api spotifyApi, SpotifyTokenManager tokenManager, String market,
+			AudioTrackFactory audioTrackFactory, ExecutorService pageFetchExecutor, SpotifyPlaylistCache playlistCache,
+			ObjectMapper objectMapper) {
+		this(spotifyApi, Api.DEFAULT_HTTP_MANAGER, tokenManager, market, audioTrackFactory, pageFetchExecutor,
+				playlistCache, objectMapper);
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param httpManager
+	 *            Sends the requests that {@code spotifyApi} can't build. Non-null.
+	 */
+	SpotifySourceManager(Api spotifyApi, HttpManager httpManager, SpotifyTokenManager tokenManager, String market,
+			AudioTrackFactory audioTrackFactory, ExecutorService pageFetchExecutor, SpotifyPlaylistCache playlistCache,
+			ObjectMapper objectMapper) {
 		this.spotifyApi = Preconditions.checkNotNull(spotifyApi, "spotifyApi must be non-null.");
+		this.httpManager = Preconditions.checkNotNull(httpManager, "httpManager must be non-null.");
+		this.tokenManager = Preconditions.checkNotNull(tokenManager, "tokenManager must be non-null.");
+		this.market = Preconditions.checkNotNull(market, "market must be non-null.");
 		this.audioTrackFactory = Preconditions.checkNotNull(audioTrackFactory, "audioTrackFactory must be non-null.");
+		this.pageFetchExecutor = Preconditions.checkNotNull(pageFetchExecutor,
+				"pageFetchExecutor must be non-null.");
+		this.playlistCache = Preconditions.checkNotNull(playlistCache, "playlistCache must be non-null.");
+		this.objectMapper = Preconditions.checkNotNull(objectMapper, "objectMapper must be non-null.");
+		this.retryPolicy = new SpotifyRetryPolicy(MAX_REQUEST_ATTEMPTS, INITIAL_BACKOFF_MS);
 	}
 
 	@Override
 	public String getSourceName() {
-		return "Spotify Playlist";
+		return "Spotify";
 	}
 
 	@Override
 	public AudioItem loadItem(DefaultAudioPlayerManager manager, AudioReference reference) {
-		try {
-			URL url = new URL(reference.identifier);
+		// Several track links may have been pasted at once.
+		String[] identifiers = StringUtils.split(reference.identifier);
+		if (identifiers.length > 1) {
+			return handleAsTrackList(identifiers);
+		}
 
-			if (!StringUtils.equals(url.getHost(), SPOTIFY_DOMAIN)) {
-				return null;
-			}
+		URL url = toSpotifyUrl(reference.identifier);
+		if (url == null) {
+			return null;
+		}
 
-			AudioItem audioItem = null;
-			audioItem = handleAsPlaylist(url);
+		AudioItem audioItem = null;
+		audioItem = handleAsPlaylist(url);
 
-			if (audioItem == null) {
-				audioItem = handleAsTrack(url);
-			}
+		if (audioItem == null) {
+			audioItem = handleAsAlbum(url);
+		}
 
-			return audioItem;
+		if (audioItem == null) {
+			audioItem = handleAsArtist(url);
+		}
 
-		} catch (MalformedURLException e) {
-			return null;
+		if (audioItem == null) {
+			audioItem = handleAsTrack(url);
 		}
+
+		return audioItem;
 	}
 
 	private AudioTrack handleAsTrack(URL url) {
-		Path path = Paths.get(url.getPath());
+		String trackId = extractId(url, "track");
+		if (trackId == null) {
+			return null;
+		}
 
-		if (path.getNameCount() < 2) {
+		List<AudioTrack> tracks = getAudioTracks(ImmutableList.of(trackId));
+		return tracks.isEmpty() ? null : tracks.get(0);
+	}
+
+	/**
+	 * Loads tracks from several track links as one playlist.
+	 * 
+	 * @return The playlist. Null if any of the identifiers isn't a Spotify track
+	 *         link.
+	 */
+	private AudioItem handleAsTrackList(String[] identifiers) {
+		List<String> trackIds = new ArrayList<>();
+		for (String identifier : identifiers) {
+			URL url = toSpotifyUrl(identifier);
+			String trackId = url != null ? extractId(url, "track") : null;
+			if (trackId == null) {
+				return null;
+			}
+
+			trackIds.add(trackId);
+		}
+
+		List<AudioTrack> tracks = getAudioTracks(trackIds);
+		if (tracks.isEmpty()) {
+			return AudioReference.NO_TRACK;
+		}
+
+		return new BasicAudioPlaylist("Spotify Tracks", tracks, null, false);
+	}
+
+	private AudioItem handleAsAlbum(URL url) {
+		String albumId = extractId(url, "album");
+		if (albumId == null) {
 			return null;
 		}
 
-		if (!StringUtils.equals(path.getName(0).toString(), "track")) {
+		Album album;
+		try {
+			album = execute(() -> spotifyApi.getAlbum(albumId).build().get());
+		} catch (IOException | WebApiException e) {
+			throw new IllegalStateException("Unable to fetch album from Spotify API.", e);
+		}
+
+		// The first page of tracks comes with the album. Longer albums have more.
+		List<SongMetadata> songMetadata = new ArrayList<>();
+		try (PageIterator<SimpleTrack> pages = new PageIterator<>(album.getTracks(),
+				(offset, limit) -> getAlbumTracks(albumId, offset, limit), pageFetchExecutor,
+				MAX_CONCURRENT_PAGE_REQUESTS)) {
+			pages.forEachRemaining(page -> page.getItems().stream()
+					.map(track -> getSongMetadata(track.getName(), track.getArtists(), track.getDuration()))
+					.forEach(songMetadata::add));
+		}
+
+		return new BasicAudioPlaylist(album.getName(), audioTrackFactory.getAudioTracks(songMetadata), null, false);
+	}
+
+	private AudioItem handleAsArtist(URL url) {
+		String artistId = extractId(url, "artist");
+		if (artistId == null) {
 			return null;
 		}
 
-		String trackId = path.getName(1).toString();
+		Artist artist;
+		List<Track> topTracks;
+		try {
+			artist = execute(() -> spotifyApi.getArtist(artistId).build().get());
+			topTracks = execute(
+					() -> spotifyApi.getTopTracksForArtist(artistId, market).build().get());
+		} catch (IOException | WebApiException e) {
+			throw new IllegalStateException("Unable to fetch artist from Spotify API.", e);
+		}
+
+		List<SongMetadata> songMetadata = topTracks.stream().map(track -> getSongMetadata(track))
+				.collect(Collectors.toList());
 
-		Track track;
+		return new BasicAudioPlaylist(artist.getName() + " - Top Tracks",
+				audioTrackFactory.getAudioTracks(songMetadata), null, false);
+	}
+
+	private Page<SimpleTrack> getAlbumTracks(String albumId, int offset, int limit) {
 		try {
-			track = spotifyApi.getTrack(trackId).build().get();
+			return execute(() -> AlbumTracksRequest.builder(httpManager).accessToken(tokenManager.getAccessToken())
+					.id(albumId).offset(offset).limit(limit).market(market).build().get());
 		} catch (IOException | WebApiException e) {
-			throw new IllegalStateException("Unable to fetch track from Spotify API.", e);
+			throw new IllegalStateException("Unable to fetch album tracks from Spotify API.", e);
 		}
+	}
 
-		SongMetadata songMetadata = getSongMetadata(track);
+	/**
+	 * Gets the tracks with the given IDs, several at a time. Tracks that don't
+	 * exist are left out. <br/>
+	 * The response is read as JSON, since Spotify returns null for tracks that
+	 * don't exist, which the API client can't parse.
+	 */
+	private List<AudioTrack> getAudioTracks(List<String> trackIds) {
+		List<SongMetadata> songMetadata = new ArrayList<>();
+
+		for (List<String> batch : Lists.partition(trackIds, MAX_TRACKS_PER_REQUEST)) {
+			JsonNode tracks;
+			try {
+				String json = execute(() -> spotifyApi.getTracks(batch).build().getJson());
+				tracks = objectMapper.readTree(json).path("tracks");
+			} catch (IOException | WebApiException e) {
+				throw new IllegalStateException("Unable to fetch tracks from Spotify API.", e);
+			}
+
+			for (JsonNode track : tracks) {
+				if (!track.isNull()) {
+					songMetadata.add(new SongMetadata(track.path("name").asText(),
+							track.path("artists").path(0).path("name").asText(""), track.path("duration_ms").asLong()));
+				}
+			}
+		}
 
-		return audioTrackFactory.getAudioTrack(songMetadata);
+		return audioTrackFactory.getAudioTracks(songMetadata);
 	}
 
-	private BasicAudioPlaylist handleAsPlaylist(URL url) {
+	private AudioPlaylist handleAsPlaylist(URL url) {
 		PlaylistKey playlistKey;
 		try {
 			playlistKey = extractPlaylistId(url);
@@ -116,55 +297,116 @@ public class SpotifySourceManager implements AudioSourceManager {
 			return null;
 		}
 
-		PlaylistRequest playlistRequest = spotifyApi.getPlaylist(playlistKey.getUserId(), playlistKey.getPlaylistId())
-				.build();
+		// Playlists that haven't changed since they were last loaded don't need any
+		// of their tracks to be fetched again.
+		String snapshotId = getSnapshotId(playlistKey);
+		if (snapshotId != null) {
+			Optional<CachedPlaylist> cachedPlaylist = playlistCache.get(playlistKey.getPlaylistId(), snapshotId);
+			if (cachedPlaylist.isPresent()) {
+				return new BasicAudioPlaylist(cachedPlaylist.get().getName(),
+						audioTrackFactory.getAudioTracks(cachedPlaylist.get().getTracks()), null, false);
+			}
+		}
 
 		Playlist playlist;
 		try {
-			playlist = playlistRequest.get();
+			playlist = execute(
+					() -> spotifyApi.getPlaylist(playlistKey.getUserId(), playlistKey.getPlaylistId()).build().get());
 		} catch (IOException | WebApiException e) {
 			throw new IllegalStateException("Unable to fetch playlist from Spotify API.", e);
 		}
 
-		List<PlaylistTrack> playlistTracks = getAllPlaylistTracks(playlist);
+		// Each page of the playlist is converted to tracks as it arrives so that the
+		// first page can start playing while the rest are still being fetched. Once
+		// the last page has arrived, the whole playlist is cached.
+		PageIterator<PlaylistTrack> pages = new PageIterator<>(playlist.getTracks(),
+				(offset, limit) -> getPlaylistTracks(playlist, offset, limit), pageFetchExecutor,
+				MAX_CONCURRENT_PAGE_REQUESTS);
+		List<SongMetadata> allSongMetadata = new ArrayList<>();
+		Iterator<List<AudioTrack>> chunks = Iterators.transform(pages, page -> {
+			List<SongMetadata> songMetadata = getSongMetadata(page.getItems());
+			allSongMetadata.addAll(songMetadata);
+
+			if (snapshotId != null && pages.isExhausted()) {
+				playlistCache.put(playlistKey.getPlaylistId(), snapshotId, playlist.getName(), allSongMetadata);
+			}
 
-		List<SongMetadata> songMetadata = getSongMetadata(playlistTracks);
-		List<AudioTrack> audioTracks = audioTrackFactory.getAudioTracks(songMetadata);
+			return audioTrackFactory.getAudioTracks(songMetadata);
+		});
 
-		return new BasicAudioPlaylist(playlist.getName(), audioTracks, null, false);
+		// Closing the playlist cancels the pages that are still being fetched.
+		return IncrementalAudioPlaylist.of(playlist.getName(), chunks, pages::close);
 	}
 
-	private List<PlaylistTrack> getAllPlaylistTracks(Playlist playlist) {
-		List<PlaylistTrack> playlistTracks = new ArrayList<>();
+	private Page<PlaylistTrack> getPlaylistTracks(Playlist playlist, int offset, int limit) {
+		try {
+			return execute(() -> spotifyApi.getPlaylistTracks(playlist.getOwner().getId(), playlist.getId())
+					.offset(offset).limit(limit).build().get());
+		} catch (IOException | WebApiException e) {
+			throw new IllegalStateException("Unable to query Spotify for playlist tracks.", e);
+		}
+	}
 
-		Page<PlaylistTrack> currentPage = playlist.getTracks();
+	/**
+	 * Gets the playlist's snapshot ID, which changes whenever the playlist does.
+	 * Only the snapshot ID is requested, so this is much cheaper than fetching the
+	 * playlist.
+	 * 
+	 * @return The snapshot ID. Null if it couldn't be fetched.
+	 */
+	private String getSnapshotId(PlaylistKey playlistKey) {
+		try {
+			String json = execute(() -> spotifyApi.getPlaylist(playlistKey.getUserId(), playlistKey.getPlaylistId())
+					.fields("snapshot_id").build().getJson());
+			JsonNode snapshotId = objectMapper.readTree(json).get("snapshot_id");
 
-		do {
-			playlistTracks.addAll(currentPage.getItems());
+			return snapshotId != null && snapshotId.isTextual() ? snapshotId.asText() : null;
+		} catch (IOException | WebApiException e) {
+			LOG.debug("Unable to fetch snapshot ID of playlist {}. It will be loaded without the cache.",
+					playlistKey.getPlaylistId(), e);
+			return null;
+		}
+	}
 
-			if (currentPage.getNext() == null) {
-				currentPage = null;
-			} else {
+	/**
+	 * Makes a request with a valid access token, retrying it if needed. The
+	 * request must be built within {@code request}, since the access token is
+	 * added when it is built.
+	 */
+	private <T> T execute(SpotifyRequest<T> request) throws IOException, WebApiException {
+		return retryPolicy.execute(() -> {
+			tokenManager.ensureValidToken();
+			return request.get();
+		});
+	}
 
-				try {
-					URI nextPageUri = new URI(currentPage.getNext());
-					List<NameValuePair> queryPairs = URLEncodedUtils.parse(nextPageUri, StandardCharsets.UTF_8);
+	private static URL toSpotifyUrl(String identifier) {
+		try {
+			URL url = new URL(identifier);
+			return StringUtils.equals(url.getHost(), SPOTIFY_DOMAIN) ? url : null;
+		} catch (MalformedURLException e) {
+			return null;
+		}
+	}
 
-					Builder b = spotifyApi.getPlaylistTracks(playlist.getOwner().getId(), playlist.getId());
-					for (NameValuePair queryPair : queryPairs) {
-						b = b.parameter(queryPair.getName(), queryPair.getValue());
-					}
+	/**
+	 * Gets the ID from a link of the form {@code /<type>/<id>}.
+	 * 
+	 * @return The ID. Null if the link isn't of that form.
+	 */
+	private static String extractId(URL url, String type) {
+		Path path = Paths.get(url.getPath());
 
-					currentPage = b.build().get();
-				} catch (IOException | WebApiException e) {
-					throw new IllegalStateException("Unable to query Spotify for playlist tracks.", e);
-				} catch (URISyntaxException e) {
-					throw new IllegalStateException("Spotify returned an invalid 'next page' URI.", e);
-				}
-			}
-		} while (currentPage != null);
+		if (path.getNameCount() < 2) {
+			return null;
+		}
+
+		if (!StringUtils.equals(path.getName(0).toString(), type)) {
+			return null;
+		}
 
-		return playlistTracks;
+		String id = path.getName(1).toString();
+		return StringUtils.isBlank(id) ? null : id;
 	}
 
 	private PlaylistKey extractPlaylistId(URL url) {
@@ -199,9 +441,13 @@ public class SpotifySourceManager implements AudioSourceManager {
 	}
 
 	private SongMetadata getSongMetadata(Track track) {
-		String firstArtistName = track.getArtists().isEmpty() ? "" : track.getArtists().get(0).getName();
+		return getSongMetadata(track.getName(), track.getArtists(), track.getDuration());
+	}
 
-		return new SongMetadata(track.getName(), firstArtistName, track.getDuration());
+	private SongMetadata getSongMetadata(String name, List<SimpleArtist> artists, long duration) {
+		String firstArtistName = artists.isEmpty() ? "" : artists.get(0).getName();
+
+		return new SongMetadata(name, firstArtistName, duration);
 	}
 
 	@Override
@@ -221,7 +467,7 @@ public class SpotifySourceManager implements AudioSourceManager {
 
 	@Override
 	public void shutdown() {
-
+		pageFetchExecutor.shutdownNow();
 	}
 
 	@Data
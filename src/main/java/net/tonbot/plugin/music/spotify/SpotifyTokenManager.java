@@ -0,0 +1,206 @@
+package net.tonbot.plugin.music.spotify;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.wrapper.spotify.Api;
+import com.wrapper.spotify.exceptions.BadRequestException;
+import com.wrapper.spotify.exceptions.WebApiException;
+import com.wrapper.spotify.models.ClientCredentials;
+
+import net.tonbot.plugin.music.spotify.SpotifyRetryPolicy.SpotifyRequest;
+
+/**
+ * Keeps the {@link Api}'s access token valid, using the Client Credentials
+ * Flow. <br/>
+ * The first token is fetched in the background by {@link #start()}, and each
+ * token is refreshed in the background some time before it expires. Background
+ * fetches run on their own executor; the scheduler only decides when they
+ * start, so a slow Accounts Service never holds up its other tasks. If a
+ * request needs a token before then, it fetches one itself. Concurrent callers
+ * share a single fetch.
+ *
+ * @see <a href=
+ *      "https://developer.spotify.com/web-api/authorization-guide/#client-credentials-flow">Client
+ *      Credentials Flow</a>
+ */
+public class SpotifyTokenManager {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SpotifyTokenManager.class);
+
+	// Tokens are considered expired this long before they actually expire, so
+	// that requests in progress don't fail.
+	private static final long EXPIRY_MARGIN_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+	// Tokens are refreshed in the background this long before they expire.
+	private static final long REFRESH_AHEAD_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+	private static final long RETRY_DELAY_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+	private final SpotifyRequest<ClientCredentials> tokenRequest;
+	private final Consumer<String> tokenSetter;
+	private final ScheduledExecutorService scheduler;
+	private final Executor fetchExecutor;
+	private final LongSupplier nanoClock;
+
+	// Guarded by this.
+	private CompletableFuture<Void> inFlightFetch;
+	private ScheduledFuture<?> scheduledRefresh;
+
+	private volatile String accessToken;
+	private volatile boolean hasToken;
+	private volatile long expiresAtNanos;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param api
+	 *            The {@link Api} to keep the access token of. Its client ID and
+	 *            secret must be set. Non-null.
+	 * @param scheduler
+	 *            Times background refreshes. Only short tasks are run on it.
+	 *            Non-null.
+	 * @param fetchExecutor
+	 *            Fetches tokens in the background. Non-null.
+	 */
+	public SpotifyTokenManager(Api api, ScheduledExecutorService scheduler, Executor fetchExecutor) {
+		this(() -> api.clientCredentialsGrant().build().get(), api::setAccessToken, scheduler, fetchExecutor,
+				System::nanoTime);
+	}
+
+	SpotifyTokenManager(SpotifyRequest<ClientCredentials> tokenRequest, Consumer<String> tokenSetter,
+			ScheduledExecutorService scheduler, Executor fetchExecutor, LongSupplier nanoClock) {
+		this.tokenRequest = Preconditions.checkNotNull(tokenRequest, "tokenRequest must be non-null.");
+		this.tokenSetter = Preconditions.checkNotNull(tokenSetter, "tokenSetter must be non-null.");
+		this.scheduler = Preconditions.checkNotNull(scheduler, "scheduler must be non-null.");
+		this.fetchExecutor = Preconditions.checkNotNull(fetchExecutor, "fetchExecutor must be non-null.");
+		this.nanoClock = Preconditions.checkNotNull(nanoClock, "nanoClock must be non-null.");
+		this.hasToken = false;
+	}
+
+	/**
+	 * Starts fetching the first token in the background. Returns immediately.
+	 */
+	public void start() {
+		fetchExecutor.execute(this::refreshInBackground);
+	}
+
+	/**
+	 * Makes sure that the {@link Api} has an access token that won't expire soon,
+	 * fetching a new one if needed. Requests should be built after this is called.
+	 *
+	 * @throws IOException
+	 *             If the Spotify Accounts Service couldn't be contacted.
+	 * @throws WebApiException
+	 *             If a token couldn't be obtained, such as when the credentials
+	 *             are invalid.
+	 */
+	public void ensureValidToken() throws IOException, WebApiException {
+		if (hasToken && nanoClock.getAsLong() - (expiresAtNanos - EXPIRY_MARGIN_NANOS) < 0) {
+			return;
+		}
+
+		try {
+			fetchToken().join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			Throwables.propagateIfPossible(cause, IOException.class, WebApiException.class);
+			throw new IllegalStateException("Unable to get a Spotify access token.", cause);
+		}
+	}
+
+	/**
+	 * Gets the access token, for requests that the {@link Api} can't build. Call
+	 * {@link #ensureValidToken()} first.
+	 *
+	 * @return The access token.
+	 * @throws IllegalStateException
+	 *             If no token has been fetched yet.
+	 */
+	public String getAccessToken() {
+		String token = this.accessToken;
+		Preconditions.checkState(token != null, "No access token has been fetched yet.");
+		return token;
+	}
+
+	/**
+	 * Fetches a token, unless a fetch is already in progress, in which case that
+	 * fetch is joined.
+	 *
+	 * @return A future that completes when the fetch is done.
+	 */
+	private CompletableFuture<Void> fetchToken() {
+		CompletableFuture<Void> fetch;
+		synchronized (this) {
+			if (inFlightFetch != null) {
+				return inFlightFetch;
+			}
+
+			fetch = new CompletableFuture<>();
+			this.inFlightFetch = fetch;
+		}
+
+		// The thread that started the fetch makes the request.
+		try {
+			ClientCredentials credentials = tokenRequest.get();
+			long now = nanoClock.getAsLong();
+			long expiresInNanos = TimeUnit.SECONDS.toNanos(credentials.getExpiresIn());
+
+			tokenSetter.accept(credentials.getAccessToken());
+			this.accessToken = credentials.getAccessToken();
+			this.expiresAtNanos = now + expiresInNanos;
+			this.hasToken = true;
+
+			long refreshInNanos = Math.max(expiresInNanos - REFRESH_AHEAD_NANOS, expiresInNanos / 2);
+			scheduleRefresh(refreshInNanos);
+
+			fetch.complete(null);
+		} catch (Exception e) {
+			fetch.completeExceptionally(e);
+		} finally {
+			synchronized (this) {
+				this.inFlightFetch = null;
+			}
+		}
+
+		return fetch;
+	}
+
+	private void refreshInBackground() {
+		try {
+			fetchToken().join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof BadRequestException) {
+				// Retrying won't help. Requests will keep trying to get a token, and fail.
+				LOG.warn("Unable to get access token from Spotify Accounts Service. Please check if the "
+						+ "supplied credentials are valid.", e.getCause());
+				return;
+			}
+
+			LOG.warn("Unable to refresh the Spotify access token. Retrying soon.", e.getCause());
+			scheduleRefresh(RETRY_DELAY_NANOS);
+		}
+	}
+
+	private synchronized void scheduleRefresh(long delayNanos) {
+		// There's only ever one refresh coming up.
+		if (scheduledRefresh != null) {
+			scheduledRefresh.cancel(false);
+		}
+
+		this.scheduledRefresh = scheduler.schedule(() -> fetchExecutor.execute(this::refreshInBackground), delayNanos,
+				TimeUnit.NANOSECONDS);
+	}
+}
@@ -0,0 +1,412 @@
+package net.tonbot.plugin.music
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Future
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+
+import com.sedmelluq.discord.lavaplayer.player.AudioLoadResultHandler
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayer
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager
+import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackEndReason
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo
+
+import net.tonbot.common.BotUtils
+import spock.lang.Specification
+import sx.blah.discord.api.IDiscordClient
+import sx.blah.discord.handle.obj.IUser
+
+class AudioSessionTest extends Specification {
+
+	IDiscordClient mockedDiscordClient
+	AudioPlayerManager mockedAudioPlayerManager
+	AudioPlayer mockedPlayer
+	AudioPlayer mockedStandbyPlayer
+	AudioTrack playingTrack
+	AudioTrack standbyTrack
+	LavaplayerAudioProvider audioProvider
+	BotUtils mockedBotUtils
+	ScheduledExecutorService mockedScheduler
+	ExecutorService mockedPlaylistLoader
+	IUser mockedUser
+
+	Future<Void> mockedLoadFuture
+	ScheduledFuture<?> mockedTimeoutFuture
+	AudioLoadResultHandler loadResultHandler
+	Runnable timeoutTask
+	Runnable preloadTask
+	Future<?> mockedChunkLoadFuture
+	List<Runnable> chunkLoadTasks
+
+	AudioSession audioSession
+
+	def setup() {
+		this.mockedDiscordClient = Mock(IDiscordClient)
+		this.mockedAudioPlayerManager = Mock(AudioPlayerManager)
+		this.mockedPlayer = Mock(AudioPlayer)
+		mockedPlayer.getPlayingTrack() >> { playingTrack }
+		mockedPlayer.stopTrack() >> { playingTrack = null }
+		this.mockedStandbyPlayer = Mock(AudioPlayer)
+		mockedStandbyPlayer.playTrack(_) >> { AudioTrack track -> standbyTrack = track }
+		mockedStandbyPlayer.getPlayingTrack() >> { standbyTrack }
+		mockedStandbyPlayer.stopTrack() >> { standbyTrack = null }
+		this.mockedBotUtils = Mock(BotUtils)
+		this.mockedScheduler = Mock(ScheduledExecutorService)
+		this.mockedPlaylistLoader = Mock(ExecutorService)
+		this.mockedUser = Mock(IUser)
+		mockedUser.getLongID() >> 1
+
+		this.mockedLoadFuture = Mock(Future)
+		this.mockedTimeoutFuture = Mock(ScheduledFuture)
+		this.mockedChunkLoadFuture = Mock(Future)
+		this.chunkLoadTasks = []
+
+		mockedAudioPlayerManager.loadItem("identifier", _) >> { String identifier, AudioLoadResultHandler handler ->
+			loadResultHandler = handler
+			return mockedLoadFuture
+		}
+		mockedScheduler.schedule(_ as Runnable, 60, TimeUnit.SECONDS) >> { Runnable task, long delay, TimeUnit unit ->
+			timeoutTask = task
+			return mockedTimeoutFuture
+		}
+		mockedScheduler.schedule(_ as Runnable, _, TimeUnit.MILLISECONDS) >> { Runnable task, long delay, TimeUnit unit ->
+			preloadTask = task
+			return Mock(ScheduledFuture)
+		}
+		mockedPlaylistLoader.submit(_ as Runnable) >> { Runnable task ->
+			chunkLoadTasks.add(task)
+			return mockedChunkLoadFuture
+		}
+
+		this.audioProvider = new LavaplayerAudioProvider(mockedPlayer, mockedStandbyPlayer)
+		this.audioSession = new AudioSession(mockedDiscordClient, mockedAudioPlayerManager, audioProvider, 1234,
+				mockedBotUtils, mockedScheduler, mockedPlaylistLoader, Mock(TrackResolverService), null)
+	}
+
+	def "a load which completes in time enqueues its tracks and cancels the timeout"() {
+		given:
+		AudioTrack loadedTrack = track()
+		AudioTrack clonedTrack = track()
+		loadedTrack.makeClone() >> clonedTrack
+
+		when:
+		CompletableFuture<AudioLoadResult> result = audioSession.enqueue("identifier", mockedUser, 60, TimeUnit.SECONDS)
+		loadResultHandler.trackLoaded(loadedTrack)
+
+		then:
+		result.get().getLoadedTracks() == Optional.of([loadedTrack])
+		audioSession.getStatus().getUpcomingTracks() == [clonedTrack]
+		1 * mockedTimeoutFuture.cancel(false)
+		0 * mockedLoadFuture.cancel(_)
+	}
+
+	def "a load which times out is cancelled"() {
+		when:
+		CompletableFuture<AudioLoadResult> result = audioSession.enqueue("identifier", mockedUser, 60, TimeUnit.SECONDS)
+		timeoutTask.run()
+
+		then:
+		1 * mockedLoadFuture.cancel(true)
+
+		when:
+		result.get()
+
+		then:
+		ExecutionException e = thrown()
+		e.getCause() instanceof TimeoutException
+	}
+
+	def "a track which loads after the timeout is not enqueued"() {
+		given:
+		AudioTrack loadedTrack = track()
+		CompletableFuture<AudioLoadResult> result = audioSession.enqueue("identifier", mockedUser, 60, TimeUnit.SECONDS)
+		timeoutTask.run()
+
+		when:
+		loadResultHandler.trackLoaded(loadedTrack)
+
+		then:
+		0 * loadedTrack.makeClone()
+		audioSession.getStatus().getUpcomingTracks() == []
+		result.isCompletedExceptionally()
+	}
+
+	def "a playlist which loads after the timeout is not enqueued"() {
+		given:
+		AudioPlaylist playlist = Mock()
+		playlist.getTracks() >> [track(), track()]
+		CompletableFuture<AudioLoadResult> result = audioSession.enqueue("identifier", mockedUser, 60, TimeUnit.SECONDS)
+		timeoutTask.run()
+
+		when:
+		loadResultHandler.playlistLoaded(playlist)
+
+		then:
+		audioSession.getStatus().getUpcomingTracks() == []
+		result.isCompletedExceptionally()
+	}
+
+	def "a load which was cancelled by the caller enqueues nothing"() {
+		given:
+		AudioTrack loadedTrack = track()
+		CompletableFuture<AudioLoadResult> result = audioSession.enqueue("identifier", mockedUser, 60, TimeUnit.SECONDS)
+
+		when:
+		result.cancel(true)
+		loadResultHandler.trackLoaded(loadedTrack)
+
+		then:
+		1 * mockedLoadFuture.cancel(true)
+		1 * mockedTimeoutFuture.cancel(false)
+		0 * loadedTrack.makeClone()
+		audioSession.getStatus().getUpcomingTracks() == []
+	}
+
+	def "the rest of a playlist is loaded on the playlist loader"() {
+		given:
+		playingTrack = track()
+		AudioTrack first = track()
+		AudioTrack second = track()
+		AudioTrack third = track()
+		Runnable mockedOnClose = Mock()
+		AudioPlaylist playlist = IncrementalAudioPlaylist.of("Playlist", [[first], [second, third]].iterator(),
+				mockedOnClose)
+
+		when:
+		CompletableFuture<AudioLoadResult> result = audioSession.enqueue("identifier", mockedUser, 60, TimeUnit.SECONDS)
+		loadResultHandler.playlistLoaded(playlist)
+
+		then:
+		audioSession.getStatus().getUpcomingTracks() == [first]
+		chunkLoadTasks.size() == 1
+
+		when:
+		PlaylistLoadProgress progress = result.get().getPlaylistLoadProgress().get()
+		chunkLoadTasks[0].run()
+
+		then:
+		audioSession.getStatus().getUpcomingTracks() == [first, second, third]
+		progress.getCompletion().get() == 3
+		1 * mockedOnClose.run()
+	}
+
+	def "stopping, skipping everything, or destroying the session stops loading the rest of a playlist"() {
+		given:
+		playingTrack = track()
+		AudioTrack second = track()
+		Runnable mockedOnClose = Mock()
+		AudioPlaylist playlist = IncrementalAudioPlaylist.of("Playlist", [[track()], [second]].iterator(),
+				mockedOnClose)
+		CompletableFuture<AudioLoadResult> result = audioSession.enqueue("identifier", mockedUser, 60, TimeUnit.SECONDS)
+		loadResultHandler.playlistLoaded(playlist)
+		PlaylistLoadProgress progress = result.get().getPlaylistLoadProgress().get()
+
+		when:
+		action(audioSession)
+
+		then:
+		1 * mockedChunkLoadFuture.cancel(true)
+		1 * mockedOnClose.run()
+		progress.getCompletion().isCancelled()
+
+		when: "the load was already running when it was cancelled"
+		chunkLoadTasks[0].run()
+
+		then:
+		0 * mockedOnClose.run()
+		!audioSession.getStatus().getUpcomingTracks().contains(second)
+
+		where:
+		action << [
+			{ AudioSession s -> s.stop() },
+			{ AudioSession s -> s.skipAll() },
+			{ AudioSession s -> s.destroy() }
+		]
+	}
+
+	def "skipping a single track keeps loading the rest of a playlist"() {
+		given:
+		playingTrack = track()
+		Runnable mockedOnClose = Mock()
+		AudioPlaylist playlist = IncrementalAudioPlaylist.of("Playlist", [[track()], [track()]].iterator(),
+				mockedOnClose)
+		audioSession.enqueue("identifier", mockedUser, 60, TimeUnit.SECONDS)
+		loadResultHandler.playlistLoaded(playlist)
+
+		when:
+		audioSession.skip()
+
+		then:
+		0 * mockedChunkLoadFuture.cancel(_)
+		0 * mockedOnClose.run()
+	}
+
+	def "a playlist which loads after the session was destroyed is closed right away"() {
+		given:
+		playingTrack = track()
+		Runnable mockedOnClose = Mock()
+		AudioPlaylist playlist = IncrementalAudioPlaylist.of("Playlist", [[track()], [track()]].iterator(),
+				mockedOnClose)
+		audioSession.enqueue("identifier", mockedUser, 60, TimeUnit.SECONDS)
+		audioSession.destroy()
+
+		when:
+		loadResultHandler.playlistLoaded(playlist)
+
+		then:
+		chunkLoadTasks.isEmpty()
+		1 * mockedOnClose.run()
+	}
+
+	def "the next track is preloaded shortly before the current one ends and handed over"() {
+		given:
+		AudioTrack current = startPlaying()
+		AudioTrack next = enqueueTrack()
+
+		when:
+		preloadTask.run()
+
+		then:
+		audioProvider.getPreloadedSource() == next
+		standbyTrack != null
+
+		when:
+		AudioTrack preloadedTrack = standbyTrack
+		audioSession.onTrackEnd(mockedPlayer, current, AudioTrackEndReason.FINISHED)
+
+		then:
+		1 * mockedPlayer.stopTrack()
+		0 * mockedPlayer.playTrack(_)
+		0 * mockedStandbyPlayer.playTrack(_)
+		audioProvider.getActivePlayer() == mockedStandbyPlayer
+		mockedStandbyPlayer.getPlayingTrack() == preloadedTrack
+		audioSession.getStatus().getUpcomingTracks() == []
+	}
+
+	def "a track which wasn't preloaded is played on the active player"() {
+		given:
+		AudioTrack current = startPlaying()
+		enqueueTrack()
+		AudioTrack other = enqueueTrack()
+		preloadTask.run()
+
+		when: "the preloaded track is skipped"
+		audioSession.skip({ it != other } as java.util.function.Predicate)
+
+		then:
+		audioProvider.getPreloadedSource() == null
+		standbyTrack == null
+
+		when:
+		audioSession.onTrackEnd(mockedPlayer, current, AudioTrackEndReason.FINISHED)
+
+		then:
+		1 * mockedPlayer.playTrack(other)
+		0 * mockedStandbyPlayer.playTrack(_)
+		audioProvider.getActivePlayer() == mockedPlayer
+	}
+
+	def "skipping to the preloaded track hands it over"() {
+		given:
+		startPlaying()
+		AudioTrack next = enqueueTrack()
+		preloadTask.run()
+
+		when:
+		audioSession.skip()
+
+		then:
+		0 * mockedPlayer.playTrack(_)
+		audioProvider.getActivePlayer() == mockedStandbyPlayer
+		audioProvider.getPreloadedSource() == null
+	}
+
+	def "the preload is cancelled when it won't be played"() {
+		given:
+		startPlaying()
+		enqueueTrack()
+		preloadTask.run()
+
+		when:
+		action(audioSession)
+
+		then:
+		audioProvider.getPreloadedSource() == null
+		standbyTrack == null
+		audioProvider.getActivePlayer() == mockedPlayer
+
+		when: "the scheduled preload runs anyway"
+		preloadTask.run()
+
+		then:
+		audioProvider.getPreloadedSource() == null
+
+		where:
+		description                       | action
+		"the current track repeats"       | { AudioSession s -> s.setLoopingMode(RepeatMode.ONE) }
+		"the music is stopped"            | { AudioSession s -> s.stop() }
+		"all upcoming tracks are skipped" | { AudioSession s -> s.skipAll() }
+	}
+
+	def "events from the standby player are ignored"() {
+		given:
+		AudioTrack current = startPlaying()
+		enqueueTrack()
+		preloadTask.run()
+		AudioTrack preloadedTrack = standbyTrack
+
+		when:
+		audioSession.onTrackStart(mockedStandbyPlayer, preloadedTrack)
+		audioSession.onTrackException(mockedStandbyPlayer, preloadedTrack, Mock(FriendlyException))
+		audioSession.onTrackStuck(mockedStandbyPlayer, preloadedTrack, 1000)
+		audioSession.onTrackEnd(mockedStandbyPlayer, preloadedTrack, AudioTrackEndReason.FINISHED)
+
+		then:
+		0 * mockedPlayer.playTrack(_)
+		0 * mockedPlayer.stopTrack()
+		0 * mockedBotUtils.sendMessage(*_)
+		standbyTrack == preloadedTrack
+		audioProvider.getPreloadedSource() != null
+		audioSession.getStatus().getUpcomingTracks().size() == 1
+	}
+
+	/**
+	 * Starts a track on the active player which is about to end, which schedules
+	 * the next track to be preloaded.
+	 */
+	private AudioTrack startPlaying() {
+		AudioTrack current = track()
+		current.getPosition() >> 998000
+		playingTrack = current
+		audioSession.onTrackStart(mockedPlayer, current)
+		assert preloadTask != null
+		return current
+	}
+
+	private AudioTrack enqueueTrack() {
+		audioSession.enqueue(cloneableTrack(), mockedUser)
+		return audioSession.getStatus().getUpcomingTracks().last()
+	}
+
+	private AudioTrack cloneableTrack() {
+		AudioTrack original = track()
+		original.makeClone() >> { cloneableTrack() }
+		return original
+	}
+
+	private AudioTrack track() {
+		AudioTrack track = Mock()
+		track.getInfo() >> new AudioTrackInfo("Title", "Author", 1000000, "id", false, "http://fake.com/resource")
+		track.getDuration() >> 1000000
+		track.getUserData() >> ExtraTrackInfo.builder().addedByUserId(1).build()
+		track.getUserData(ExtraTrackInfo) >> ExtraTrackInfo.builder().addedByUserId(1).build()
+		return track
+	}
+}
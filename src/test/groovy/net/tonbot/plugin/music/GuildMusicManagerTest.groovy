@@ -0,0 +1,62 @@
+package net.tonbot.plugin.music
+
+import com.fasterxml.jackson.databind.ObjectMapper
+
+import spock.lang.Specification
+import sx.blah.discord.api.IDiscordClient
+import sx.blah.discord.handle.obj.IGuild
+import sx.blah.discord.handle.obj.IRole
+
+class GuildMusicManagerTest extends Specification {
+
+	File saveDir
+	ObjectMapper mockedObjectMapper
+
+	GuildMusicManager guildMusicManager
+
+	def setup() {
+		this.saveDir = File.createTempDir()
+		this.mockedObjectMapper = Mock(ObjectMapper)
+
+		IRole mockedEveryoneRole = Mock()
+		IGuild mockedGuild = Mock()
+		mockedGuild.getEveryoneRole() >> mockedEveryoneRole
+		IDiscordClient mockedDiscordClient = Mock()
+		mockedDiscordClient.getGuildByID(1234) >> mockedGuild
+
+		this.guildMusicManager = new GuildMusicManager(mockedDiscordClient, Mock(AudioSessionFactory), saveDir,
+				mockedObjectMapper)
+		guildMusicManager.getPermission(1234)
+	}
+
+	def cleanup() {
+		saveDir.deleteDir()
+	}
+
+	def "a guild's permissions are saved to a file named after the guild"() {
+		when:
+		guildMusicManager.save()
+
+		then:
+		1 * mockedObjectMapper.writeValue(_ as File, _) >> { File file, Object value -> file.text = "saved" }
+		saveDir.list() as List == ["1234"]
+		new File(saveDir, "1234").text == "saved"
+	}
+
+	def "the temp file is deleted if the permissions couldn't be written"() {
+		given:
+		new File(saveDir, "1234").text = "previous"
+
+		when:
+		guildMusicManager.save()
+
+		then:
+		1 * mockedObjectMapper.writeValue(_ as File, _) >> { File file, Object value ->
+			file.text = "partial"
+			throw new IOException("Disk full")
+		}
+		thrown UncheckedIOException
+		saveDir.list() as List == ["1234"]
+		new File(saveDir, "1234").text == "previous"
+	}
+}
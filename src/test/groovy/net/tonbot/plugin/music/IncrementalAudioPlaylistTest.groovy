@@ -0,0 +1,84 @@
+package net.tonbot.plugin.music
+
+import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack
+import com.sedmelluq.discord.lavaplayer.track.BasicAudioPlaylist
+
+import spock.lang.Specification
+
+class IncrementalAudioPlaylistTest extends Specification {
+
+	Runnable mockedOnClose
+
+	def setup() {
+		this.mockedOnClose = Mock(Runnable)
+	}
+
+	def "empty chunks before the first tracks are skipped"() {
+		given:
+		AudioTrack first = Mock()
+		AudioTrack second = Mock()
+		AudioTrack third = Mock()
+
+		when:
+		AudioPlaylist playlist = IncrementalAudioPlaylist.of("Playlist", [[], [], [first, second], [], [third]].iterator(),
+				mockedOnClose)
+
+		then:
+		playlist instanceof IncrementalAudioPlaylist
+		playlist.getName() == "Playlist"
+		playlist.getTracks() == [first, second]
+		0 * mockedOnClose.run()
+
+		when:
+		Iterator<List<AudioTrack>> remainingChunks = ((IncrementalAudioPlaylist) playlist).getRemainingChunks()
+
+		then:
+		remainingChunks.collect() == [[], [third]]
+	}
+
+	def "a playlist with one non-empty chunk is a regular playlist"() {
+		when:
+		AudioPlaylist playlist = IncrementalAudioPlaylist.of("Playlist", chunks.iterator(), mockedOnClose)
+
+		then:
+		playlist instanceof BasicAudioPlaylist
+		1 * mockedOnClose.run()
+
+		where:
+		chunks << [
+			[],
+			[[]],
+			[[Mock(AudioTrack)]],
+			[[], [Mock(AudioTrack)]]
+		]
+	}
+
+	def "the playlist is closed if the first chunk can't be fetched"() {
+		given:
+		Iterator<List<AudioTrack>> chunks = Mock()
+		chunks.hasNext() >> true
+		chunks.next() >> { throw new UncheckedIOException(new IOException("Oh no")) }
+
+		when:
+		IncrementalAudioPlaylist.of("Playlist", chunks, mockedOnClose)
+
+		then:
+		thrown UncheckedIOException
+		1 * mockedOnClose.run()
+	}
+
+	def "close runs onClose only once"() {
+		given:
+		IncrementalAudioPlaylist playlist = IncrementalAudioPlaylist.of("Playlist",
+				[[Mock(AudioTrack)], [Mock(AudioTrack)]].iterator(), mockedOnClose)
+
+		when:
+		playlist.close()
+		playlist.close()
+
+		then:
+		1 * mockedOnClose.run() >> { throw new IllegalStateException("Oh no") }
+		noExceptionThrown()
+	}
+}
@@ -0,0 +1,177 @@
+package net.tonbot.plugin.music
+
+import spock.lang.Specification
+
+class IndexedTreeTest extends Specification {
+
+	static final Comparator<Integer> NATURAL_ORDER = { a, b -> a <=> b } as Comparator
+
+	IndexedTree<Integer> tree
+
+	def setup() {
+		this.tree = new IndexedTree<>()
+	}
+
+	def "an empty tree has nothing in it"() {
+		expect:
+		tree.isEmpty()
+		tree.size() == 0
+		tree.toList() == []
+		tree.sublist(0, 0) == []
+		tree.upperBound(5, NATURAL_ORDER) == 0
+		tree.removeIf({ true }) == []
+		tree.isEmpty()
+	}
+
+	def "an empty tree rejects positional access"() {
+		when:
+		operation(tree)
+
+		then:
+		thrown IndexOutOfBoundsException
+
+		where:
+		operation << [
+			{ t -> t.get(0) },
+			{ t -> t.removeAt(0) },
+			{ t -> t.sublist(0, 1) },
+			{ t -> t.add(1, 1) }
+		]
+	}
+
+	def "removeAt removes the element at each position"() {
+		given:
+		tree.reset((0..9).toList())
+
+		expect:
+		tree.removeAt(index) == index
+		tree.toList() == (0..9).findAll { it != index }
+		tree.size() == 9
+
+		where:
+		index << [0, 4, 9]
+	}
+
+	def "removeAt rejects positions out of bounds"() {
+		given:
+		tree.reset([1, 2, 3])
+
+		when:
+		tree.removeAt(index)
+
+		then:
+		thrown IndexOutOfBoundsException
+		tree.toList() == [1, 2, 3]
+
+		where:
+		index << [-1, 3]
+	}
+
+	def "removeAt keeps the rest of the tree in order"() {
+		given:
+		Random random = new Random(seed)
+		List<Integer> expected = (0..199).toList()
+		tree.reset(expected)
+
+		when:
+		(1..150).each {
+			int index = random.nextInt(expected.size())
+			assert tree.removeAt(index) == expected.remove(index)
+		}
+
+		then:
+		tree.toList() == expected
+		tree.size() == 50
+
+		where:
+		seed << [1, 2, 3]
+	}
+
+	def "upperBound goes after every equal element"() {
+		given:
+		[1, 3, 3, 3, 5].each { tree.add(tree.upperBound(it, NATURAL_ORDER), it) }
+
+		expect:
+		tree.upperBound(value, NATURAL_ORDER) == expected
+
+		where:
+		value | expected
+		0     | 0
+		1     | 1
+		2     | 1
+		3     | 4
+		4     | 4
+		5     | 5
+		6     | 5
+	}
+
+	def "inserting at upperBound keeps duplicates in insertion order"() {
+		given:
+		Comparator<List<Integer>> byKey = { a, b -> a[0] <=> b[0] } as Comparator
+		IndexedTree<List<Integer>> pairs = new IndexedTree<>()
+		List<List<Integer>> values = [[2, 0], [1, 1], [2, 2], [1, 3], [2, 4], [0, 5]]
+
+		when:
+		values.each { pairs.add(pairs.upperBound(it, byKey), it) }
+
+		then:
+		pairs.toList() == [[0, 5], [1, 1], [1, 3], [2, 0], [2, 2], [2, 4]]
+	}
+
+	def "sublist returns the elements in range"() {
+		given:
+		tree.reset((0..9).toList())
+
+		expect:
+		tree.sublist(from, to) == (from..<to).toList()
+
+		where:
+		from | to
+		0    | 0
+		0    | 10
+		3    | 7
+		9    | 10
+		10   | 10
+	}
+
+	def "sublist rejects ranges out of bounds"() {
+		given:
+		tree.reset([1, 2, 3])
+
+		when:
+		tree.sublist(from, to)
+
+		then:
+		thrown IndexOutOfBoundsException
+
+		where:
+		from | to
+		-1   | 2
+		0    | 4
+		2    | 1
+	}
+
+	def "removeIf removes matching elements and preserves order"() {
+		given:
+		tree.reset([1, 2, 2, 3, 2, 4])
+
+		when:
+		List<Integer> removed = tree.removeIf({ it == 2 })
+
+		then:
+		removed == [2, 2, 2]
+		tree.toList() == [1, 3, 4]
+		tree.get(1) == 3
+	}
+
+	def "removeIf can remove everything or nothing"() {
+		given:
+		tree.reset([1, 2, 3])
+
+		expect:
+		tree.removeIf({ false }) == []
+		tree.toList() == [1, 2, 3]
+		tree.removeIf({ true }) == [1, 2, 3]
+		tree.isEmpty()
+	}
+}
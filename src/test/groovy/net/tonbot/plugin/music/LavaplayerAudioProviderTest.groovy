@@ -0,0 +1,163 @@
+package net.tonbot.plugin.music
+
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayer
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack
+import com.sedmelluq.discord.lavaplayer.track.playback.AudioFrame
+
+import spock.lang.Specification
+
+class LavaplayerAudioProviderTest extends Specification {
+
+	AudioPlayer mockedActivePlayer
+	AudioPlayer mockedStandbyPlayer
+	AudioTrack standbyTrack
+
+	LavaplayerAudioProvider audioProvider
+
+	def setup() {
+		this.mockedActivePlayer = Mock(AudioPlayer)
+		this.mockedStandbyPlayer = Mock(AudioPlayer)
+		mockedStandbyPlayer.playTrack(_) >> { AudioTrack track -> standbyTrack = track }
+		mockedStandbyPlayer.getPlayingTrack() >> { standbyTrack }
+
+		this.audioProvider = new LavaplayerAudioProvider(mockedActivePlayer, mockedStandbyPlayer)
+	}
+
+	def "only the preloaded track is handed over"() {
+		given:
+		AudioTrack source = Mock()
+		AudioTrack otherSource = Mock()
+		audioProvider.preload(source, Mock(AudioTrack))
+
+		expect:
+		!audioProvider.handOver(otherSource)
+		audioProvider.getActivePlayer() == mockedActivePlayer
+
+		audioProvider.handOver(source)
+		audioProvider.getActivePlayer() == mockedStandbyPlayer
+		audioProvider.getPreloadedSource() == null
+
+		// The players swapped roles, so the same track can't be handed over twice.
+		!audioProvider.handOver(source)
+	}
+
+	def "a preloaded track which was cleaned up is not handed over"() {
+		given:
+		AudioTrack source = Mock()
+		audioProvider.preload(source, Mock(AudioTrack))
+		standbyTrack = null
+
+		expect:
+		!audioProvider.handOver(source)
+		audioProvider.getActivePlayer() == mockedActivePlayer
+	}
+
+	def "preloading replaces the previously preloaded track"() {
+		given:
+		AudioTrack firstSource = Mock()
+		AudioTrack secondSource = Mock()
+		AudioTrack secondTrack = Mock()
+
+		when:
+		audioProvider.preload(firstSource, Mock(AudioTrack))
+		audioProvider.preload(secondSource, secondTrack)
+
+		then:
+		audioProvider.getPreloadedSource() == secondSource
+		standbyTrack == secondTrack
+		!audioProvider.handOver(firstSource)
+		audioProvider.handOver(secondSource)
+	}
+
+	def "cancelling a preload stops the standby player once"() {
+		given:
+		AudioTrack source = Mock()
+		audioProvider.preload(source, Mock(AudioTrack))
+
+		when:
+		audioProvider.cancelPreload()
+		audioProvider.cancelPreload()
+
+		then:
+		1 * mockedStandbyPlayer.stopTrack()
+		0 * mockedActivePlayer.stopTrack()
+		audioProvider.getPreloadedSource() == null
+		!audioProvider.handOver(source)
+	}
+
+	def "frames come from the active player"() {
+		given:
+		AudioFrame frame = frame(1)
+		mockedActivePlayer.provide() >> frame
+
+		expect:
+		audioProvider.isReady()
+		audioProvider.provide() == frame.data
+	}
+
+	def "the standby player is never asked for frames until it is handed over"() {
+		given:
+		AudioTrack source = Mock()
+		audioProvider.preload(source, Mock(AudioTrack))
+
+		when:
+		audioProvider.isReady()
+
+		then:
+		1 * mockedActivePlayer.provide() >> frame(1)
+		0 * mockedStandbyPlayer.provide()
+	}
+
+	def "a track handed over while a frame is provided plays in the same frame"() {
+		given:
+		AudioTrack source = Mock()
+		audioProvider.preload(source, Mock(AudioTrack))
+		AudioFrame nextFrame = frame(2)
+
+		when:
+		boolean ready = audioProvider.isReady()
+
+		then:
+		// The active track ends during provide(), and its end event hands over the next
+		// one.
+		1 * mockedActivePlayer.provide() >> {
+			audioProvider.handOver(source)
+			return null
+		}
+		1 * mockedStandbyPlayer.provide() >> nextFrame
+		ready
+		audioProvider.provide() == nextFrame.data
+		audioProvider.getActivePlayer() == mockedStandbyPlayer
+	}
+
+	def "no frame is provided if nothing is playing"() {
+		when:
+		boolean ready = audioProvider.isReady()
+
+		then:
+		1 * mockedActivePlayer.provide() >> null
+		0 * mockedStandbyPlayer.provide()
+		!ready
+	}
+
+	def "preloading is disabled without a standby player"() {
+		given:
+		LavaplayerAudioProvider provider = new LavaplayerAudioProvider(mockedActivePlayer, null)
+		AudioTrack source = Mock()
+
+		expect:
+		!provider.isPreloadEnabled()
+		!provider.handOver(source)
+
+		when:
+		provider.cancelPreload()
+		provider.preload(source, Mock(AudioTrack))
+
+		then:
+		thrown IllegalStateException
+	}
+
+	private AudioFrame frame(int b) {
+		return new AudioFrame(0, [b] as byte[], 100)
+	}
+}
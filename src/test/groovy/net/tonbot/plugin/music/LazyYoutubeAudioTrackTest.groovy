@@ -0,0 +1,128 @@
+package net.tonbot.plugin.music
+
+import java.util.function.LongSupplier
+
+import com.sedmelluq.discord.lavaplayer.source.youtube.YoutubeAudioSourceManager
+import com.sedmelluq.discord.lavaplayer.source.youtube.YoutubeAudioTrack
+import com.sedmelluq.discord.lavaplayer.source.youtube.YoutubeSearchProvider
+import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo
+import com.sedmelluq.discord.lavaplayer.track.playback.LocalAudioTrackExecutor
+
+import spock.lang.Specification
+
+class LazyYoutubeAudioTrackTest extends Specification {
+
+	File dir
+	YoutubeMatchCache matchCache
+	YoutubeAudioSourceManager sourceManager
+	YoutubeSearchProvider mockedSearchProvider
+	LocalAudioTrackExecutor executor
+
+	LazyYoutubeAudioTrack track
+
+	def setup() {
+		this.dir = File.createTempDir()
+		this.matchCache = new YoutubeMatchCache(new File(dir, "matches.cache"), 10, 100000, { 0L } as LongSupplier)
+		matchCache.load()
+
+		this.sourceManager = Mock(YoutubeAudioSourceManager)
+		this.mockedSearchProvider = Mock(YoutubeSearchProvider)
+		this.executor = Mock(LocalAudioTrackExecutor)
+
+		this.track = Spy(LazyYoutubeAudioTrack, constructorArgs: [
+			new AudioTrackInfo("Song", "Artist", 200000, "song", false, null),
+			sourceManager,
+			mockedSearchProvider,
+			matchCache
+		])
+	}
+
+	def cleanup() {
+		matchCache.close()
+		dir.deleteDir()
+	}
+
+	def "a track which was searched for is matched and cached"() {
+		when:
+		track.process(executor)
+
+		then:
+		1 * mockedSearchProvider.loadSearchResult("Song Artist") >> searchResult("new")
+		1 * track.processDelegate({ it.getIdentifier() == "new" }, executor)
+		matchCache.get("Song", "Artist", 200000).get().getVideoId() == "new"
+	}
+
+	def "a cached match which fails to play is replaced by a new search"() {
+		given:
+		matchCache.put("Song", "Artist", 200000, "old", "Old Video", "Uploader", 200000)
+
+		when:
+		track.process(executor)
+
+		then:
+		1 * track.processDelegate({ it.getIdentifier() == "old" }, executor) >> {
+			throw new IllegalStateException("Video unavailable")
+		}
+
+		then:
+		1 * mockedSearchProvider.loadSearchResult("Song Artist") >> searchResult("new")
+
+		then:
+		1 * track.processDelegate({ it.getIdentifier() == "new" }, executor)
+		matchCache.get("Song", "Artist", 200000).get().getVideoId() == "new"
+		track.getResolvedTrack().get().getIdentifier() == "new"
+	}
+
+	def "a cached match is searched for again only once"() {
+		given:
+		matchCache.put("Song", "Artist", 200000, "old", "Old Video", "Uploader", 200000)
+
+		when:
+		track.process(executor)
+
+		then:
+		1 * mockedSearchProvider.loadSearchResult("Song Artist") >> searchResult("new")
+		2 * track.processDelegate(_, executor) >> { throw new IllegalStateException("Video unavailable") }
+		thrown IllegalStateException
+	}
+
+	def "the cached match is forgotten if the new search finds nothing else"() {
+		given:
+		matchCache.put("Song", "Artist", 200000, "old", "Old Video", "Uploader", 200000)
+
+		when:
+		track.process(executor)
+
+		then:
+		1 * track.processDelegate(_, executor) >> { throw new IllegalStateException("Video unavailable") }
+		1 * mockedSearchProvider.loadSearchResult("Song Artist") >> result
+		thrown IllegalStateException
+		matchCache.get("Song", "Artist", 200000).map({ it.getVideoId() }) == expectedMatch
+
+		where:
+		result              | expectedMatch
+		searchResult()      | Optional.empty()
+		searchResult("old") | Optional.of("old")
+	}
+
+	def "a match which was just searched for is not searched for again when it fails to play"() {
+		when:
+		track.process(executor)
+
+		then:
+		1 * mockedSearchProvider.loadSearchResult("Song Artist") >> searchResult("new")
+		1 * track.processDelegate(_, executor) >> { throw new IllegalStateException("Video unavailable") }
+		thrown IllegalStateException
+		matchCache.get("Song", "Artist", 200000).get().getVideoId() == "new"
+	}
+
+	private AudioPlaylist searchResult(String... videoIds) {
+		AudioPlaylist playlist = Mock()
+		playlist.getTracks() >> videoIds.collect {
+			new YoutubeAudioTrack(new AudioTrackInfo("Video " + it, "Uploader", 200000, it, false, null),
+					sourceManager)
+		}
+		return playlist
+	}
+}
@@ -0,0 +1,91 @@
+package net.tonbot.plugin.music
+
+import java.util.concurrent.Future
+import java.util.concurrent.RejectedExecutionException
+
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo
+
+import spock.lang.Specification
+
+class LookAheadResolverTest extends Specification {
+
+	TrackResolverService resolverService
+	List<AudioTrack> upcoming
+	LookAheadResolver resolver
+
+	def setup() {
+		this.resolverService = Mock(TrackResolverService)
+		this.upcoming = []
+		this.resolver = new LookAheadResolver(resolverService, { upcoming })
+	}
+
+	def "only unresolved lazy tracks are resolved"() {
+		given:
+		LazyYoutubeAudioTrack unresolved = lazyTrack(false)
+		LazyYoutubeAudioTrack resolved = lazyTrack(true)
+		AudioTrack other = Mock(AudioTrack)
+		upcoming.addAll([unresolved, resolved, other])
+
+		when:
+		resolver.refresh()
+
+		then:
+		1 * resolverService.submit(_, TrackResolverService.Priority.NEXT) >> Mock(Future)
+	}
+
+	def "pending resolutions are not scheduled twice"() {
+		given:
+		upcoming.add(lazyTrack(false))
+
+		when:
+		resolver.refresh()
+		resolver.refresh()
+
+		then:
+		1 * resolverService.submit(_, TrackResolverService.Priority.NEXT) >> Mock(Future)
+	}
+
+	def "resolutions of tracks that are no longer upcoming are cancelled"() {
+		given:
+		LazyYoutubeAudioTrack t1 = lazyTrack(false)
+		LazyYoutubeAudioTrack t2 = lazyTrack(false)
+		Future f1 = Mock(Future)
+		Future f2 = Mock(Future)
+		upcoming.addAll([t1, t2])
+		resolverService.submit(_, TrackResolverService.Priority.NEXT) >>> [f1, f2]
+		resolver.refresh()
+
+		when:
+		upcoming.remove(t1)
+		resolver.refresh()
+
+		then:
+		1 * f1.cancel(false)
+		0 * f2.cancel(_)
+	}
+
+	def "a busy pool is tried again on the next refresh"() {
+		given:
+		upcoming.add(lazyTrack(false))
+
+		when:
+		resolver.refresh()
+
+		then:
+		1 * resolverService.submit(_, TrackResolverService.Priority.NEXT) >> { throw new RejectedExecutionException() }
+
+		when:
+		resolver.refresh()
+
+		then:
+		1 * resolverService.submit(_, TrackResolverService.Priority.NEXT) >> Mock(Future)
+	}
+
+	private LazyYoutubeAudioTrack lazyTrack(boolean resolved) {
+		LazyYoutubeAudioTrack track = Mock(LazyYoutubeAudioTrack)
+		track.isResolved() >> resolved
+		track.getInfo() >> new AudioTrackInfo("title", "author", 0, "", false, "")
+		return track
+	}
+}
@@ -0,0 +1,93 @@
+package net.tonbot.plugin.music
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutorService
+
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo
+
+import net.tonbot.common.BotUtils
+import net.tonbot.plugin.music.permissions.MusicPermissions
+import spock.lang.Specification
+import sx.blah.discord.api.IDiscordClient
+import sx.blah.discord.handle.impl.events.guild.channel.message.MessageReceivedEvent
+import sx.blah.discord.handle.obj.IChannel
+import sx.blah.discord.handle.obj.IGuild
+import sx.blah.discord.handle.obj.IMessage
+import sx.blah.discord.handle.obj.IUser
+
+class PlayActivityTest extends Specification {
+
+	long guildId = 1234
+	long userId = 5678
+
+	BotUtils mockedBotUtils
+	AudioSession mockedAudioSession
+	TrackSearcher mockedTrackSearcher
+	ExecutorService mockedLoadResultExecutor
+	List<Runnable> loadResultTasks
+
+	IUser mockedUser
+	IChannel mockedChannel
+	MessageReceivedEvent mockedEvent
+
+	PlayActivity activity
+
+	def setup() {
+		this.mockedBotUtils = Mock(BotUtils)
+		this.mockedAudioSession = Mock(AudioSession)
+
+		this.mockedTrackSearcher = Mock(TrackSearcher)
+		mockedTrackSearcher.getPreviousSearchResults(_, _) >> Optional.empty()
+
+		this.loadResultTasks = []
+		this.mockedLoadResultExecutor = Mock(ExecutorService)
+		mockedLoadResultExecutor.execute(_) >> { Runnable task -> loadResultTasks.add(task) }
+
+		IGuild mockedGuild = Mock()
+		mockedGuild.getLongID() >> guildId
+
+		this.mockedUser = Mock(IUser)
+		mockedUser.getLongID() >> userId
+		mockedUser.getDisplayName(mockedGuild) >> "Tester"
+
+		this.mockedChannel = Mock(IChannel)
+		mockedChannel.getGuild() >> mockedGuild
+
+		IMessage mockedMessage = Mock()
+		mockedMessage.getAttachments() >> []
+
+		this.mockedEvent = Mock(MessageReceivedEvent)
+		mockedEvent.getGuild() >> mockedGuild
+		mockedEvent.getAuthor() >> mockedUser
+		mockedEvent.getChannel() >> mockedChannel
+		mockedEvent.getMessage() >> mockedMessage
+
+		GuildMusicManager mockedGuildMusicManager = Mock()
+		mockedGuildMusicManager.getPermission(guildId) >> Mock(MusicPermissions)
+
+		this.activity = new PlayActivity("t!", Mock(IDiscordClient), mockedGuildMusicManager, mockedTrackSearcher,
+				mockedBotUtils, mockedLoadResultExecutor)
+	}
+
+	def "the reply to a load is sent from the load result executor, even if the load has already completed"() {
+		given:
+		AudioTrack mockedTrack = Mock()
+		mockedTrack.getInfo() >> new AudioTrackInfo("Title", "Author", 1000, "id", false, "http://fake.com/resource")
+		mockedAudioSession.enqueue("http://fake.com/track", mockedUser, _, _) >> CompletableFuture.completedFuture(
+				AudioLoadResult.builder().loadedTracks([mockedTrack]).build())
+
+		when:
+		activity.enactWithSession(mockedEvent, new PlayRequest(query: "http://fake.com/track"), mockedAudioSession)
+
+		then:
+		0 * mockedBotUtils.sendMessage(*_)
+		loadResultTasks.size() == 1
+
+		when:
+		loadResultTasks.remove(0).run()
+
+		then:
+		1 * mockedBotUtils.sendMessage(mockedChannel, "**Title** was queued by **Tester**")
+	}
+}
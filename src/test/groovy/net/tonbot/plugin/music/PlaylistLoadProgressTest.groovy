@@ -0,0 +1,76 @@
+package net.tonbot.plugin.music
+
+import java.util.concurrent.CancellationException
+import java.util.concurrent.ExecutionException
+import java.util.function.IntConsumer
+
+import spock.lang.Specification
+
+class PlaylistLoadProgressTest extends Specification {
+
+	PlaylistLoadProgress progress
+
+	def setup() {
+		this.progress = new PlaylistLoadProgress(100)
+	}
+
+	def "listeners are told the running count after every chunk"() {
+		given:
+		IntConsumer mockedListener = Mock()
+		progress.addChunkListener(mockedListener)
+
+		when:
+		progress.chunkLoaded(100)
+
+		then:
+		1 * mockedListener.accept(200)
+		progress.getLoadedCount() == 200
+
+		when:
+		progress.chunkLoaded(42)
+
+		then:
+		1 * mockedListener.accept(242)
+		progress.getLoadedCount() == 242
+		!progress.getCompletion().isDone()
+	}
+
+	def "done completes with the total count"() {
+		given:
+		progress.chunkLoaded(50)
+
+		when:
+		progress.done()
+
+		then:
+		progress.getCompletion().get() == 150
+	}
+
+	def "failed completes exceptionally"() {
+		given:
+		IOException failure = new IOException("Oh no")
+
+		when:
+		progress.failed(failure)
+		progress.getCompletion().get()
+
+		then:
+		ExecutionException e = thrown()
+		e.getCause() == failure
+		progress.getLoadedCount() == 100
+	}
+
+	def "cancelled cancels the completion"() {
+		when:
+		progress.cancelled()
+
+		then:
+		progress.getCompletion().isCancelled()
+
+		when:
+		progress.getCompletion().get()
+
+		then:
+		thrown CancellationException
+	}
+}
@@ -1,6 +1,5 @@
 package net.tonbot.plugin.music
 
-import com.google.common.base.Predicates
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack
 import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo
 
@@ -71,13 +70,12 @@ class SkipActivityTest extends Specification {
 			.build()
 		
 		when:
-		activity.enactWithSession(mockedEvent, "", mockedAudioSession)
+		activity.enactWithSession(mockedEvent, new SkipRequest(input: args), mockedAudioSession)
 		
 		then:
 		1 * mockedAudioSession.getStatus() >> status
 		1 * mockedCurrentTrack.getUserData() >> ExtraTrackInfo.builder()
 			.addedByUserId(userId)
-			.addTimestamp(0)
 			.build()
 		
 		then:
@@ -112,13 +110,12 @@ class SkipActivityTest extends Specification {
 			.build()
 		
 		when:
-		activity.enactWithSession(mockedEvent, "", mockedAudioSession)
+		activity.enactWithSession(mockedEvent, new SkipRequest(input: args), mockedAudioSession)
 		
 		then:
 		1 * mockedAudioSession.getStatus() >> status
 		1 * mockedCurrentTrack.getUserData() >> ExtraTrackInfo.builder()
 			.addedByUserId(otherUserId)
-			.addTimestamp(0)
 			.build()
 			
 		then: "the user does have permission to skip other users' tracks"
@@ -156,13 +153,12 @@ class SkipActivityTest extends Specification {
 			.build()
 		
 		when:
-		activity.enactWithSession(mockedEvent, "", mockedAudioSession)
+		activity.enactWithSession(mockedEvent, new SkipRequest(input: args), mockedAudioSession)
 		
 		then:
 		1 * mockedAudioSession.getStatus() >> status
 		1 * mockedCurrentTrack.getUserData() >> ExtraTrackInfo.builder()
 			.addedByUserId(otherUserId)
-			.addTimestamp(0)
 			.build()
 			
 		then: "the user does not have permission to skip other users' tracks"
@@ -180,6 +176,7 @@ class SkipActivityTest extends Specification {
 
 	def "skip currently playing track - no currently playing track"() {
 		given:
+		String args = ""
 		AudioSessionStatus status = AudioSessionStatus.builder()
 			.nowPlaying(null)
 			.upcomingTracks([])
@@ -188,7 +185,7 @@ class SkipActivityTest extends Specification {
 			.build()
 		
 		when:
-		activity.enactWithSession(mockedEvent, "", mockedAudioSession)
+		activity.enactWithSession(mockedEvent, new SkipRequest(input: args), mockedAudioSession)
 
 		then:
 		1 * mockedAudioSession.getStatus() >> status
@@ -205,13 +202,13 @@ class SkipActivityTest extends Specification {
 		AudioTrack mockedAudioTrack = Mock()
 
 		when:
-		activity.enactWithSession(mockedEvent, args, mockedAudioSession)
+		activity.enactWithSession(mockedEvent, new SkipRequest(input: args), mockedAudioSession)
 
 		then: "the user does have permission to skip all tracks"
 		1 * mockedMusicPermissions.checkPermission(mockedUser, Action.SKIP_ALL)
 		
 		then:
-		1 * mockedAudioSession.skip(Predicates.alwaysTrue()) >> [
+		1 * mockedAudioSession.skipAll() >> [
 			mockedAudioTrack,
 			mockedAudioTrack
 		]
@@ -228,17 +225,13 @@ class SkipActivityTest extends Specification {
 
 	def "skip my tracks"(String args) {
 		given:
-		long otherUserId = 999999
 		AudioTrack mockedMyAudioTrack = Mock()
-		AudioTrack mockedTheirAudioTrack = Mock()
 
 		when:
-		activity.enactWithSession(mockedEvent, args, mockedAudioSession)
+		activity.enactWithSession(mockedEvent, new SkipRequest(input: args), mockedAudioSession)
 
 		then:
-		1 * mockedMyAudioTrack.getUserData() >> ExtraTrackInfo.builder().addedByUserId(userId).addTimestamp(0L).build()
-		1 * mockedTheirAudioTrack.getUserData() >> ExtraTrackInfo.builder().addedByUserId(otherUserId).addTimestamp(0L).build()
-		1 * mockedAudioSession.skip({it -> it.test(mockedMyAudioTrack) && !it.test(mockedTheirAudioTrack)}) >> [
+		1 * mockedAudioSession.skipTracksAddedBy(userId) >> [
 			mockedMyAudioTrack,
 			mockedMyAudioTrack
 		]
@@ -273,18 +266,18 @@ class SkipActivityTest extends Specification {
 				.build()
 
 		when:
-		activity.enactWithSession(mockedEvent, args, mockedAudioSession)
+		activity.enactWithSession(mockedEvent, new SkipRequest(input: args), mockedAudioSession)
 
 		then:
 		1 * mockedAudioSession.getStatus() >> audioSessionStatus
 		
 		then:
-		_ * mockedAudioTrack1.getUserData() >> ExtraTrackInfo.builder().addedByUserId(otherUserId).addTimestamp(0L).build()
-		_ * mockedAudioTrack2.getUserData() >> ExtraTrackInfo.builder().addedByUserId(userId).addTimestamp(0L).build()
-		_ * mockedAudioTrack3.getUserData() >> ExtraTrackInfo.builder().addedByUserId(otherUserId).addTimestamp(0L).build()
+		_ * mockedAudioTrack1.getUserData() >> ExtraTrackInfo.builder().addedByUserId(otherUserId).build()
+		_ * mockedAudioTrack2.getUserData() >> ExtraTrackInfo.builder().addedByUserId(userId).build()
+		_ * mockedAudioTrack3.getUserData() >> ExtraTrackInfo.builder().addedByUserId(otherUserId).build()
 		
 		then:
-		1 * mockedAudioSession.skip({it -> !it.test(mockedAudioTrack1) && it.test(mockedAudioTrack2) && !it.test(mockedAudioTrack3)}) >> [mockedAudioTrack2]
+		1 * mockedAudioSession.skip([1] as int[], [mockedAudioTrack2]) >> [mockedAudioTrack2]
 
 		then:
 		1 * mockedAudioTrack2.getInfo() >> new AudioTrackInfo(
@@ -317,19 +310,19 @@ class SkipActivityTest extends Specification {
 				.build()
 
 		when:
-		activity.enactWithSession(mockedEvent, args, mockedAudioSession)
+		activity.enactWithSession(mockedEvent, new SkipRequest(input: args), mockedAudioSession)
 
 		then:
 		1 * mockedAudioSession.getStatus() >> audioSessionStatus
 		
 		then:
-		_ * mockedAudioTrack1.getUserData() >> ExtraTrackInfo.builder().addedByUserId(otherUserId).addTimestamp(0L).build()
-		_ * mockedAudioTrack2.getUserData() >> ExtraTrackInfo.builder().addedByUserId(otherUserId).addTimestamp(0L).build()
-		_ * mockedAudioTrack3.getUserData() >> ExtraTrackInfo.builder().addedByUserId(otherUserId).addTimestamp(0L).build()
+		_ * mockedAudioTrack1.getUserData() >> ExtraTrackInfo.builder().addedByUserId(otherUserId).build()
+		_ * mockedAudioTrack2.getUserData() >> ExtraTrackInfo.builder().addedByUserId(otherUserId).build()
+		_ * mockedAudioTrack3.getUserData() >> ExtraTrackInfo.builder().addedByUserId(otherUserId).build()
 		1 * mockedMusicPermissions.checkPermission(mockedUser, Action.SKIP_OTHERS)
 		
 		then:
-		1 * mockedAudioSession.skip({it -> !it.test(mockedAudioTrack1) && it.test(mockedAudioTrack2) && !it.test(mockedAudioTrack3)}) >> [mockedAudioTrack2]
+		1 * mockedAudioSession.skip([1] as int[], [mockedAudioTrack2]) >> [mockedAudioTrack2]
 
 		then:
 		1 * mockedAudioTrack2.getInfo() >> new AudioTrackInfo(
@@ -362,15 +355,15 @@ class SkipActivityTest extends Specification {
 				.build()
 
 		when:
-		activity.enactWithSession(mockedEvent, args, mockedAudioSession)
+		activity.enactWithSession(mockedEvent, new SkipRequest(input: args), mockedAudioSession)
 
 		then:
 		1 * mockedAudioSession.getStatus() >> audioSessionStatus
 		
 		then:
-		_ * mockedAudioTrack1.getUserData() >> ExtraTrackInfo.builder().addedByUserId(otherUserId).addTimestamp(0L).build()
-		_ * mockedAudioTrack2.getUserData() >> ExtraTrackInfo.builder().addedByUserId(otherUserId).addTimestamp(0L).build()
-		_ * mockedAudioTrack3.getUserData() >> ExtraTrackInfo.builder().addedByUserId(otherUserId).addTimestamp(0L).build()
+		_ * mockedAudioTrack1.getUserData() >> ExtraTrackInfo.builder().addedByUserId(otherUserId).build()
+		_ * mockedAudioTrack2.getUserData() >> ExtraTrackInfo.builder().addedByUserId(otherUserId).build()
+		_ * mockedAudioTrack3.getUserData() >> ExtraTrackInfo.builder().addedByUserId(otherUserId).build()
 		1 * mockedMusicPermissions.checkPermission(mockedUser, Action.SKIP_OTHERS) >> { throw new PermissionsException("Not allowed!") }
 		
 		then:
@@ -396,19 +389,19 @@ class SkipActivityTest extends Specification {
 				.build()
 
 		when:
-		activity.enactWithSession(mockedEvent, args, mockedAudioSession)
+		activity.enactWithSession(mockedEvent, new SkipRequest(input: args), mockedAudioSession)
 
 		then:
 		1 * mockedAudioSession.getStatus() >> audioSessionStatus
 		
 		then:
-		_ * mockedAudioTrack1.getUserData() >> ExtraTrackInfo.builder().addedByUserId(otherUserId).addTimestamp(0L).build()
-		_ * mockedAudioTrack2.getUserData() >> ExtraTrackInfo.builder().addedByUserId(otherUserId).addTimestamp(0L).build()
-		_ * mockedAudioTrack3.getUserData() >> ExtraTrackInfo.builder().addedByUserId(otherUserId).addTimestamp(0L).build()
+		_ * mockedAudioTrack1.getUserData() >> ExtraTrackInfo.builder().addedByUserId(otherUserId).build()
+		_ * mockedAudioTrack2.getUserData() >> ExtraTrackInfo.builder().addedByUserId(otherUserId).build()
+		_ * mockedAudioTrack3.getUserData() >> ExtraTrackInfo.builder().addedByUserId(otherUserId).build()
 		1 * mockedMusicPermissions.checkPermission(mockedUser, Action.SKIP_OTHERS)
 		
 		then:
-		1 * mockedAudioSession.skip({it -> !it.test(mockedAudioTrack1) && it.test(mockedAudioTrack2) && it.test(mockedAudioTrack3)}) >> [
+		1 * mockedAudioSession.skip([1, 2] as int[], [mockedAudioTrack2, mockedAudioTrack3]) >> [
 			mockedAudioTrack2,
 			mockedAudioTrack3
 		]
@@ -447,7 +440,7 @@ class SkipActivityTest extends Specification {
 				.build()
 
 		when:
-		activity.enactWithSession(mockedEvent, args, mockedAudioSession)
+		activity.enactWithSession(mockedEvent, new SkipRequest(input: args), mockedAudioSession)
 
 		then:
 		1 * mockedAudioSession.getStatus() >> audioSessionStatus
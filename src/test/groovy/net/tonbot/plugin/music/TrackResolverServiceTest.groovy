@@ -0,0 +1,164 @@
+package net.tonbot.plugin.music
+
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.Future
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.ThreadFactory
+
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo
+
+import spock.lang.Specification
+
+class TrackResolverServiceTest extends Specification {
+
+	List<Runnable> workers
+	TrackResolverService resolverService
+
+	def setup() {
+		this.workers = []
+
+		// The workers are only started when the test wants them to.
+		ThreadFactory threadFactory = { Runnable r ->
+			workers.add(r)
+			return new Thread()
+		} as ThreadFactory
+
+		this.resolverService = new TrackResolverService(1, 3, 100, true, threadFactory)
+	}
+
+	def "tracks to play next are resolved before warm up tracks"() {
+		given:
+		Queue<String> resolved = new ConcurrentLinkedQueue<>()
+		LazyYoutubeAudioTrack w1 = lazyTrack("w1", resolved)
+		LazyYoutubeAudioTrack w2 = lazyTrack("w2", resolved)
+		LazyYoutubeAudioTrack n1 = lazyTrack("n1", resolved)
+		LazyYoutubeAudioTrack n2 = lazyTrack("n2", resolved)
+
+		resolverService.warmUp([w1, w2])
+		resolverService.submit(n1, TrackResolverService.Priority.NEXT)
+		resolverService.submit(n2, TrackResolverService.Priority.NEXT)
+
+		when:
+		Thread worker = new Thread(workers[0])
+		worker.start()
+		long deadline = System.currentTimeMillis() + 5000
+		while (resolved.size() < 4 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10)
+		}
+		worker.interrupt()
+
+		then:
+		resolved as List == ["n1", "n2", "w1", "w2"]
+	}
+
+	def "cancelled tracks are not resolved"() {
+		given:
+		Queue<String> resolved = new ConcurrentLinkedQueue<>()
+		LazyYoutubeAudioTrack t1 = lazyTrack("t1", resolved)
+		LazyYoutubeAudioTrack t2 = lazyTrack("t2", resolved)
+
+		resolverService.submit(t1, TrackResolverService.Priority.NEXT).cancel(false)
+		resolverService.submit(t2, TrackResolverService.Priority.NEXT)
+
+		when:
+		Thread worker = new Thread(workers[0])
+		worker.start()
+		long deadline = System.currentTimeMillis() + 5000
+		while (resolved.isEmpty() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10)
+		}
+		worker.interrupt()
+
+		then:
+		resolved as List == ["t2"]
+	}
+
+	def "each priority has its own queue capacity"() {
+		given:
+		(1..3).each { resolverService.submit(lazyTrack("n", []), TrackResolverService.Priority.NEXT) }
+
+		when:
+		resolverService.submit(lazyTrack("n", []), TrackResolverService.Priority.NEXT)
+
+		then:
+		thrown(RejectedExecutionException)
+
+		when:
+		resolverService.submit(lazyTrack("w", []), TrackResolverService.Priority.WARM_UP)
+
+		then:
+		notThrown(RejectedExecutionException)
+	}
+
+	def "cancelled tracks no longer count against the queue capacity"() {
+		given:
+		List<Future<?>> futures = (1..3).collect {
+			resolverService.submit(lazyTrack("n", []), TrackResolverService.Priority.NEXT)
+		}
+
+		when:
+		futures[1].cancel(false)
+		resolverService.submit(lazyTrack("n", []), TrackResolverService.Priority.NEXT)
+
+		then:
+		notThrown(RejectedExecutionException)
+
+		when:
+		futures[1].cancel(false)
+		resolverService.submit(lazyTrack("n", []), TrackResolverService.Priority.NEXT)
+
+		then:
+		thrown(RejectedExecutionException)
+	}
+
+	def "shutdown cancels the tracks waiting to be resolved and rejects new ones"() {
+		given:
+		List<Future<?>> futures = [
+			resolverService.submit(lazyTrack("n", []), TrackResolverService.Priority.NEXT),
+			resolverService.submit(lazyTrack("w", []), TrackResolverService.Priority.WARM_UP)
+		]
+
+		when:
+		resolverService.shutdown()
+
+		then:
+		futures.every { it.isCancelled() }
+
+		when:
+		resolverService.submit(lazyTrack("n", []), TrackResolverService.Priority.NEXT)
+
+		then:
+		thrown(RejectedExecutionException)
+	}
+
+	def "shutdown stops idle workers"() {
+		given:
+		List<Thread> threads = []
+		ThreadFactory threadFactory = { Runnable r ->
+			Thread thread = new Thread(r)
+			threads.add(thread)
+			return thread
+		} as ThreadFactory
+		TrackResolverService service = new TrackResolverService(2, 3, 100, true, threadFactory)
+
+		when:
+		service.shutdown()
+		threads.each { it.join(10000) }
+
+		then:
+		threads.size() == 2
+		threads.every { !it.isAlive() }
+	}
+
+	private LazyYoutubeAudioTrack lazyTrack(String name, Collection<String> resolved) {
+		LazyYoutubeAudioTrack track = Mock(LazyYoutubeAudioTrack)
+		track.isResolved() >> false
+		track.resolveFromCache() >> true
+		track.resolve() >> {
+			resolved.add(name)
+			return true
+		}
+		track.getInfo() >> new AudioTrackInfo(name, "author", 0, "", false, "")
+		return track
+	}
+}
@@ -0,0 +1,157 @@
+package net.tonbot.plugin.music
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.function.Function
+
+import com.google.common.base.Ticker
+
+import com.sedmelluq.discord.lavaplayer.source.youtube.YoutubeSearchProvider
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException
+import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack
+
+import spock.lang.Specification
+
+class TrackSearcherTest extends Specification {
+
+	YoutubeSearchProvider ytSearchProvider
+	AudioSession audioSession
+	long nanos
+	List<SearchResultsEviction> evictions
+	TrackSearcher trackSearcher
+
+	def setup() {
+		this.ytSearchProvider = Mock(YoutubeSearchProvider)
+		this.audioSession = Mock(AudioSession)
+		this.nanos = 0
+		this.evictions = []
+		this.trackSearcher = TrackSearcher.builder().ytSearchProvider(ytSearchProvider).maxResults(10)
+				.cacheMaxEntries(100).cacheTtl(1).cacheTtlUnit(TimeUnit.HOURS)
+				.maxRememberedResults(2).rememberedResultsTtl(10).rememberedResultsTtlUnit(TimeUnit.MINUTES)
+				.ticker({ nanos } as Ticker).build()
+		this.trackSearcher.addSearchResultEvictionListener({ evictions.add(it); null } as Function)
+	}
+
+	def "hits of equivalent queries are cached and copied"() {
+		given:
+		AudioTrack hit = Mock(AudioTrack)
+		AudioTrack copy1 = Mock(AudioTrack)
+		AudioTrack copy2 = Mock(AudioTrack)
+		hit.makeClone() >>> [copy1, copy2]
+
+		when:
+		SearchResults results1 = trackSearcher.search(audioSession, 1, "Never Gonna  Give You Up")
+		SearchResults results2 = trackSearcher.search(audioSession, 2, "never gonna give you up ")
+
+		then:
+		1 * ytSearchProvider.loadSearchResult("never gonna give you up") >> playlist(hit)
+		results1.getHits() == [copy1]
+		results2.getHits() == [copy2]
+		trackSearcher.getCacheStats().hitCount() == 1
+		trackSearcher.getCacheStats().missCount() == 1
+	}
+
+	def "identical queries in flight at the same time share one search"() {
+		given:
+		CountDownLatch searchStarted = new CountDownLatch(1)
+		CountDownLatch searchMayFinish = new CountDownLatch(1)
+		int searches = 0
+		ytSearchProvider.loadSearchResult("query") >> {
+			searches++
+			searchStarted.countDown()
+			searchMayFinish.await()
+			playlist(track())
+		}
+
+		when:
+		Thread first = Thread.start { trackSearcher.search(audioSession, 1, "query") }
+		searchStarted.await()
+		Thread second = Thread.start { trackSearcher.search(audioSession, 2, "query") }
+		Thread.sleep(100)
+		searchMayFinish.countDown()
+		first.join()
+		second.join()
+
+		then:
+		searches == 1
+	}
+
+	def "failed searches are not cached"() {
+		given:
+		AudioTrack hit = track()
+
+		when:
+		trackSearcher.search(audioSession, 1, "query")
+
+		then:
+		1 * ytSearchProvider.loadSearchResult("query") >> {
+			throw new FriendlyException("Oops", FriendlyException.Severity.COMMON, null)
+		}
+		thrown FriendlyException
+
+		when:
+		trackSearcher.search(audioSession, 1, "query")
+
+		then:
+		1 * ytSearchProvider.loadSearchResult("query") >> playlist(hit)
+	}
+
+	def "remembered results expire"() {
+		given:
+		ytSearchProvider.loadSearchResult(_) >> { playlist(track()) }
+		SearchResults results = trackSearcher.search(audioSession, 1, "query")
+
+		when:
+		nanos += TimeUnit.MINUTES.toNanos(11)
+		trackSearcher.cleanUp()
+
+		then:
+		!trackSearcher.getPreviousSearchResults(audioSession, 1).isPresent()
+		evictions.size() == 1
+		evictions[0].getReason() == SearchResultsEviction.EvictionReason.EXPIRED
+		evictions[0].getEvictedSearchResults().is(results)
+	}
+
+	def "remembered results are forgotten when there are too many"() {
+		given:
+		ytSearchProvider.loadSearchResult(_) >> { playlist(track()) }
+
+		when:
+		(1..3).each { trackSearcher.search(audioSession, it, "query") }
+
+		then:
+		!trackSearcher.getPreviousSearchResults(audioSession, 1).isPresent()
+		trackSearcher.getPreviousSearchResults(audioSession, 3).isPresent()
+		evictions*.getReason() == [SearchResultsEviction.EvictionReason.EXPIRED]
+	}
+
+	def "remembered results are forgotten when the session is destroyed"() {
+		given:
+		AudioSession destroyedSession = Mock(AudioSession)
+		destroyedSession.isDestroyed() >> true
+		ytSearchProvider.loadSearchResult(_) >> { playlist(track()) }
+		trackSearcher.search(audioSession, 1, "query")
+		trackSearcher.search(destroyedSession, 1, "query")
+
+		when:
+		trackSearcher.cleanUp()
+
+		then:
+		trackSearcher.getPreviousSearchResults(audioSession, 1).isPresent()
+		!trackSearcher.getPreviousSearchResults(destroyedSession, 1).isPresent()
+		evictions*.getReason() == [SearchResultsEviction.EvictionReason.SESSION_DESTROYED]
+	}
+
+	private AudioTrack track() {
+		AudioTrack track = Mock(AudioTrack)
+		track.makeClone() >> track
+		return track
+	}
+
+	private AudioPlaylist playlist(AudioTrack... tracks) {
+		AudioPlaylist playlist = Mock(AudioPlaylist)
+		playlist.getTracks() >> (tracks as List)
+		return playlist
+	}
+}
@@ -0,0 +1,563 @@
+package net.tonbot.plugin.music
+
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo
+
+import spock.lang.Specification
+
+class TrackStoreTest extends Specification {
+
+	TrackStore trackManager
+
+	def setup() {
+		this.trackManager = new TrackStore(PlayMode.STANDARD)
+	}
+
+	def "tracks are ordered by when they were put"() {
+		given:
+		Random random = new Random(seed)
+		List<AudioTrack> expected = []
+
+		when:
+		(1..20).each {
+			List<AudioTrack> batch = (1..random.nextInt(30)).collect { track(random.nextInt(3)) }
+			trackManager.putAll(batch)
+			expected.addAll(batch)
+
+			if (random.nextBoolean()) {
+				AudioTrack added = track(random.nextInt(3))
+				trackManager.put(added)
+				expected.add(added)
+			}
+		}
+
+		then:
+		trackManager.getView() == expected
+
+		where:
+		seed << [1, 2, 3]
+	}
+
+	def "next returns tracks in the order that they were put"() {
+		given:
+		AudioTrack t1 = track(1)
+		AudioTrack t2 = track(2)
+		AudioTrack t3 = track(1)
+		AudioTrack t4 = track(3)
+
+		trackManager.putAll([t1, t2])
+		trackManager.put(t3)
+		trackManager.put(t4)
+
+		expect:
+		trackManager.next() == Optional.of(t1)
+		trackManager.next() == Optional.of(t2)
+		trackManager.next() == Optional.of(t3)
+		trackManager.next() == Optional.of(t4)
+		trackManager.next() == Optional.empty()
+	}
+
+	def "removeAll removes matching tracks and preserves order"() {
+		given:
+		List<AudioTrack> tracks = (0..9).collect { track(1) }
+		trackManager.putAll(tracks)
+
+		when:
+		List<AudioTrack> removed = trackManager.removeAll({ it -> tracks.indexOf(it) % 3 == 0 })
+
+		then:
+		removed == [tracks[0], tracks[3], tracks[6], tracks[9]]
+		trackManager.getView() == [tracks[1], tracks[2], tracks[4], tracks[5], tracks[7], tracks[8]]
+	}
+
+	def "snapshots are reused until the queue is modified"() {
+		given:
+		trackManager.put(track(1))
+		TrackQueueSnapshot first = trackManager.getSnapshot()
+
+		expect:
+		trackManager.getSnapshot().is(first)
+
+		when:
+		trackManager.removeAll({ it -> false })
+
+		then:
+		trackManager.getSnapshot().is(first)
+
+		when:
+		trackManager.put(track(2))
+		TrackQueueSnapshot second = trackManager.getSnapshot()
+
+		then:
+		second.getVersion() > first.getVersion()
+		second.getTracks().size() == 2
+		first.getTracks().size() == 1
+	}
+
+	def "round robin: up next alternates between users"() {
+		given:
+		trackManager.setPlayMode(PlayMode.ROUND_ROBIN)
+		AudioTrack a1 = track(1)
+		AudioTrack a2 = track(1)
+		AudioTrack a3 = track(1)
+		AudioTrack b1 = track(2)
+		AudioTrack c1 = track(3)
+		AudioTrack c2 = track(3)
+
+		when:
+		trackManager.putAll([a1, a2, a3])
+		trackManager.put(b1)
+		trackManager.putAll([c1, c2])
+
+		then:
+		trackManager.getView() == [a1, b1, c1, a2, c2, a3]
+	}
+
+	def "round robin: next rotates through users and drops users who run out of tracks"() {
+		given:
+		trackManager.setPlayMode(PlayMode.ROUND_ROBIN)
+		AudioTrack a1 = track(1)
+		AudioTrack a2 = track(1)
+		AudioTrack b1 = track(2)
+		AudioTrack c1 = track(3)
+		AudioTrack c2 = track(3)
+		trackManager.putAll([a1, a2, b1, c1, c2])
+
+		expect:
+		trackManager.next() == Optional.of(a1)
+		trackManager.getView() == [b1, c1, a2, c2]
+		trackManager.next() == Optional.of(b1)
+		trackManager.getView() == [c1, a2, c2]
+		trackManager.next() == Optional.of(c1)
+		trackManager.next() == Optional.of(a2)
+		trackManager.next() == Optional.of(c2)
+		trackManager.next() == Optional.empty()
+		trackManager.getView() == []
+	}
+
+	def "round robin: a new user goes last in the current rotation"() {
+		given:
+		trackManager.setPlayMode(PlayMode.ROUND_ROBIN)
+		AudioTrack a1 = track(1)
+		AudioTrack a2 = track(1)
+		AudioTrack b1 = track(2)
+		AudioTrack b2 = track(2)
+		AudioTrack c1 = track(3)
+		trackManager.putAll([a1, a2, b1, b2])
+		trackManager.next()
+
+		when:
+		trackManager.put(c1)
+
+		then:
+		trackManager.getView() == [b1, a2, c1, b2]
+	}
+
+	def "round robin: removeAll removes tracks in up next order"() {
+		given:
+		trackManager.setPlayMode(PlayMode.ROUND_ROBIN)
+		AudioTrack a1 = track(1)
+		AudioTrack a2 = track(1)
+		AudioTrack b1 = track(2)
+		AudioTrack c1 = track(3)
+		trackManager.putAll([a1, a2, b1, c1])
+
+		when:
+		List<AudioTrack> removed = trackManager.removeAll({ it -> it == a1 || it == b1 })
+
+		then:
+		removed == [a1, b1]
+		trackManager.getView() == [a2, c1]
+		trackManager.next() == Optional.of(a2)
+		trackManager.next() == Optional.of(c1)
+	}
+
+	def "round robin: slice returns part of the up next order"() {
+		given:
+		trackManager.setPlayMode(PlayMode.ROUND_ROBIN)
+		AudioTrack a1 = track(1)
+		AudioTrack a2 = track(1)
+		AudioTrack a3 = track(1)
+		AudioTrack b1 = track(2)
+		AudioTrack c1 = track(3)
+		AudioTrack c2 = track(3)
+		trackManager.putAll([a1, a2, a3, b1, c1, c2])
+
+		expect:
+		trackManager.slice(0, 2) == [a1, b1]
+		trackManager.slice(2, 3) == [c1, a2, c2]
+		trackManager.slice(5, 10) == [a3]
+		trackManager.slice(6, 10) == []
+		trackManager.getView().subList(1, 4) == trackManager.slice(1, 3)
+	}
+
+	def "round robin: stats are updated as tracks are added and removed"() {
+		given:
+		trackManager.setPlayMode(PlayMode.ROUND_ROBIN)
+		AudioTrack a1 = track(1)
+		AudioTrack a2 = track(1)
+		AudioTrack b1 = track(2)
+		trackManager.putAll([a1, a2])
+		trackManager.put(b1)
+
+		expect:
+		trackManager.size() == 3
+		trackManager.getStats() == new TrackQueueStats(3, 0, 3000)
+
+		when:
+		trackManager.next()
+		trackManager.removeAll({ it -> it == b1 })
+
+		then:
+		trackManager.size() == 1
+		trackManager.getStats() == new TrackQueueStats(1, 0, 1000)
+	}
+
+	def "removeAt removes tracks by position in up next order"() {
+		given:
+		trackManager.setPlayMode(PlayMode.ROUND_ROBIN)
+		AudioTrack a1 = track(1)
+		AudioTrack a2 = track(1)
+		AudioTrack b1 = track(2)
+		AudioTrack b2 = track(2)
+		AudioTrack c1 = track(3)
+		trackManager.putAll([a1, a2, b1, b2, c1])
+
+		when:
+		List<AudioTrack> removed = trackManager.removeAt([1, 3, 4] as int[], [b1, a2, b2])
+
+		then:
+		removed == [b1, a2, b2]
+		trackManager.getView() == [a1, c1]
+		trackManager.getStats() == new TrackQueueStats(2, 0, 2000)
+
+		when:
+		trackManager.setPlayMode(PlayMode.STANDARD)
+
+		then:
+		trackManager.getView() == [a1, c1]
+	}
+
+	def "removeRange removes a contiguous run of tracks"() {
+		given:
+		List<AudioTrack> tracks = (0..9).collect { track(1) }
+		trackManager.putAll(tracks)
+
+		when:
+		List<AudioTrack> removed = trackManager.removeRange(2, 8, tracks[2..7])
+
+		then:
+		removed == tracks[2..7]
+		trackManager.getView() == [tracks[0], tracks[1], tracks[8], tracks[9]]
+	}
+
+	def "removeAt still removes tracks which haven't moved while others were put"() {
+		given:
+		List<AudioTrack> tracks = (0..4).collect { track(1) }
+		trackManager.putAll(tracks)
+		List<AudioTrack> seen = trackManager.getView()
+		AudioTrack importedLater = track(2)
+		trackManager.put(importedLater)
+
+		when:
+		List<AudioTrack> removed = trackManager.removeAt([1, 3] as int[], [seen[1], seen[3]])
+
+		then:
+		removed == [tracks[1], tracks[3]]
+		trackManager.getView() == [tracks[0], tracks[2], tracks[4], importedLater]
+	}
+
+	def "removeAt refuses to remove tracks which have moved"() {
+		given:
+		List<AudioTrack> tracks = (0..4).collect { track(1) }
+		trackManager.putAll(tracks)
+		List<AudioTrack> seen = trackManager.getView()
+		change(trackManager)
+
+		when:
+		trackManager.removeAt([1, 4] as int[], [seen[1], seen[4]])
+
+		then:
+		thrown QueueChangedException
+		trackManager.size() == expectedSize
+
+		where:
+		change                                                                  | expectedSize
+		{ TrackStore store -> store.next() }                                    | 4
+		{ TrackStore store -> store.removeByOwner(1) }                          | 0
+		{ TrackStore store -> store.removeAt([2] as int[], store.slice(2, 1)) } | 4
+	}
+
+	def "removeByOwner removes only that user's tracks"() {
+		given:
+		AudioTrack a1 = track(1)
+		AudioTrack a2 = track(1)
+		AudioTrack b1 = track(2)
+		AudioTrack c1 = track(3)
+		trackManager.putAll([a1, b1, a2, c1])
+
+		when:
+		List<AudioTrack> removed = trackManager.removeByOwner(1)
+
+		then:
+		removed == [a1, a2]
+		trackManager.getView() == [b1, c1]
+		trackManager.getStats(1) == new TrackQueueStats(0, 0, 0)
+		trackManager.getStats(2) == new TrackQueueStats(1, 0, 1000)
+		trackManager.removeByOwner(1) == []
+
+		when:
+		trackManager.setPlayMode(PlayMode.ROUND_ROBIN)
+
+		then:
+		trackManager.getView() == [b1, c1]
+		trackManager.next() == Optional.of(b1)
+		trackManager.next() == Optional.of(c1)
+		trackManager.next() == Optional.empty()
+	}
+
+	def "every index holds the same tracks after random operations"() {
+		given:
+		Random random = new Random(seed)
+		Set<AudioTrack> expected = Collections.newSetFromMap(new IdentityHashMap<>())
+
+		when:
+		(1..300).each {
+			switch (random.nextInt(6)) {
+				case 0:
+					AudioTrack added = track(random.nextInt(5))
+					trackManager.put(added)
+					expected.add(added)
+					break
+				case 1:
+					List<AudioTrack> batch = (0..random.nextInt(5)).collect { track(random.nextInt(5)) }
+					trackManager.putAll(batch)
+					expected.addAll(batch)
+					break
+				case 2:
+					trackManager.next().ifPresent({ expected.remove(it) })
+					break
+				case 3:
+					trackManager.removeByOwner(random.nextInt(5)).each { expected.remove(it) }
+					break
+				case 4:
+					if (trackManager.size() > 0) {
+						int index = random.nextInt(trackManager.size())
+						trackManager.removeAt([index] as int[], [trackManager.slice(index, 1)[0]])
+								.each { expected.remove(it) }
+					}
+					break
+				case 5:
+					trackManager.setPlayMode(PlayMode.values()[random.nextInt(PlayMode.values().length)])
+					break
+			}
+		}
+
+		then:
+		PlayMode.values().every { mode ->
+			trackManager.setPlayMode(mode)
+			List<AudioTrack> view = trackManager.getView()
+			view.size() == expected.size() && view.every { expected.contains(it) }
+		}
+		(0..4).sum { trackManager.getStats(it).getSize() } == expected.size()
+
+		where:
+		seed << [1, 2, 3]
+	}
+
+	def "fair queue: users take turns by play time"() {
+		given:
+		trackManager.setPlayMode(PlayMode.FAIR_QUEUE)
+		AudioTrack longMix = track(1, TimeUnit.MINUTES.toMillis(20))
+		AudioTrack longMix2 = track(1, TimeUnit.MINUTES.toMillis(20))
+		List<AudioTrack> songs = (1..8).collect { track(2, TimeUnit.MINUTES.toMillis(3)) }
+
+		when:
+		trackManager.putAll([longMix, longMix2])
+		trackManager.putAll(songs)
+
+		then: "user 2 gets about 20 minutes of songs for each of user 1's mixes"
+		trackManager.getView() == [longMix, songs[0], songs[1], songs[2], songs[3], songs[4], songs[5], songs[6], longMix2, songs[7]]
+
+		and: "next plays in the same order as the view"
+		trackManager.getView() == (1..10).collect { trackManager.next().get() }
+		trackManager.next() == Optional.empty()
+	}
+
+	def "fair queue: a new user doesn't get credit for time before they joined"() {
+		given:
+		trackManager.setPlayMode(PlayMode.FAIR_QUEUE)
+		List<AudioTrack> aTracks = (1..4).collect { track(1, TimeUnit.MINUTES.toMillis(3)) }
+		trackManager.putAll(aTracks)
+		trackManager.next()
+		trackManager.next()
+
+		when:
+		AudioTrack b1 = track(2, TimeUnit.MINUTES.toMillis(3))
+		AudioTrack b2 = track(2, TimeUnit.MINUTES.toMillis(3))
+		trackManager.putAll([b1, b2])
+
+		then: "user 2 goes next, but then has to take turns"
+		trackManager.getView() == [b1, aTracks[2], b2, aTracks[3]]
+	}
+
+	def "fair queue: streams are charged a fixed amount"() {
+		given:
+		trackManager.setPlayMode(PlayMode.FAIR_QUEUE)
+		AudioTrack stream1 = track(1, Long.MAX_VALUE, true)
+		AudioTrack stream2 = track(1, Long.MAX_VALUE, true)
+		List<AudioTrack> songs = (1..3).collect { track(2, TimeUnit.MINUTES.toMillis(2)) }
+
+		when:
+		trackManager.putAll([stream1, stream2])
+		trackManager.putAll(songs)
+
+		then:
+		trackManager.getView() == [stream1, songs[0], songs[1], songs[2], stream2]
+	}
+
+	def "stats are unaffected by a track's info changing while it is queued"() {
+		given:
+		boolean resolved = false
+		AudioTrack changing = Mock()
+		changing.getUserData(ExtraTrackInfo) >> ExtraTrackInfo.builder().addedByUserId(1).build()
+		changing.getInfo() >> {
+			resolved ? new AudioTrackInfo("Live", "Author", Long.MAX_VALUE, "id", true, "http://fake.com/live")
+					: new AudioTrackInfo("Title", "Author", 1000, "id", false, "http://fake.com/resource")
+		}
+		changing.getDuration() >> { resolved ? Long.MAX_VALUE : 1000 }
+		trackManager.put(changing)
+		trackManager.put(track(1))
+
+		when:
+		resolved = true
+		trackManager.removeAll({ it.is(changing) })
+
+		then:
+		trackManager.getStats() == new TrackQueueStats(1, 0, 1000)
+		trackManager.getStats(1) == new TrackQueueStats(1, 0, 1000)
+	}
+
+	def "shuffle: up next holds every track that was put, in a random order"() {
+		given:
+		trackManager = new TrackStore(PlayMode.SHUFFLE)
+		List<AudioTrack> tracks = (1..200).collect { track(it % 3) }
+
+		when:
+		trackManager.putAll(tracks.subList(0, 100))
+		tracks.subList(100, 200).each { trackManager.put(it) }
+
+		then:
+		List<AudioTrack> view = trackManager.getView()
+		view.size() == 200
+		view.toSet() == tracks.toSet()
+		view != tracks
+	}
+
+	def "shuffle: concurrent puts and nexts neither lose nor repeat tracks"() {
+		given:
+		trackManager = new TrackStore(PlayMode.SHUFFLE)
+		List<List<AudioTrack>> batches = (1..4).collect { producer -> (1..250).collect { track(producer) } }
+		List<AudioTrack> taken = Collections.synchronizedList([])
+		AtomicBoolean producing = new AtomicBoolean(true)
+
+		when:
+		List<Thread> producers = batches.collect { batch ->
+			Thread.start {
+				batch.collate(25).eachWithIndex { chunk, i ->
+					if (i % 2 == 0) {
+						trackManager.putAll(chunk)
+					} else {
+						chunk.each { trackManager.put(it) }
+					}
+				}
+			}
+		}
+		List<Thread> consumers = (1..2).collect {
+			Thread.start {
+				while (producing.get() || trackManager.size() > 0) {
+					trackManager.next().ifPresent { taken.add(it) }
+				}
+			}
+		}
+		producers*.join(10000)
+		producing.set(false)
+		consumers*.join(10000)
+
+		then:
+		!(producers + consumers).any { it.isAlive() }
+		taken.size() == 1000
+		taken.collect { System.identityHashCode(it) }.toSet().size() == 1000
+		taken.toSet() == batches.flatten().toSet()
+		trackManager.size() == 0
+	}
+
+	def "switching play modes keeps every track"() {
+		given:
+		List<AudioTrack> tracks = (1..30).collect { track(it % 4) }
+		trackManager.putAll(tracks)
+
+		when:
+		trackManager.setPlayMode(PlayMode.ROUND_ROBIN)
+		AudioTrack first = trackManager.next().get()
+		trackManager.setPlayMode(PlayMode.SHUFFLE)
+		AudioTrack second = trackManager.next().get()
+		trackManager.setPlayMode(PlayMode.STANDARD)
+
+		then:
+		trackManager.size() == 28
+		trackManager.getView() == tracks.findAll { !it.is(first) && !it.is(second) }
+
+		when:
+		trackManager.setPlayMode(PlayMode.SHUFFLE)
+
+		then:
+		trackManager.getView().toSet() == tracks.findAll { !it.is(first) && !it.is(second) }.toSet()
+	}
+
+	def "switching shuffle on again reshuffles the tracks"() {
+		given:
+		List<AudioTrack> tracks = (1..100).collect { track(1) }
+		trackManager.putAll(tracks)
+		trackManager.setPlayMode(PlayMode.SHUFFLE)
+		List<AudioTrack> firstShuffle = trackManager.getView()
+
+		when:
+		trackManager.setPlayMode(PlayMode.STANDARD)
+		trackManager.setPlayMode(PlayMode.SHUFFLE)
+
+		then:
+		trackManager.getView() != firstShuffle
+		trackManager.getView().toSet() == tracks.toSet()
+
+		when:
+		trackManager.setPlayMode(PlayMode.STANDARD)
+
+		then:
+		trackManager.getView() == tracks
+	}
+
+	def "switching play modes changes the snapshot version"() {
+		given:
+		trackManager.put(track(1))
+		long version = trackManager.getSnapshot().getVersion()
+
+		when:
+		trackManager.setPlayMode(PlayMode.SHUFFLE)
+
+		then:
+		trackManager.getSnapshot().getVersion() != version
+	}
+
+	private AudioTrack track(long userId, long lengthMs = 1000, boolean isStream = false) {
+		ExtraTrackInfo eti = ExtraTrackInfo.builder().addedByUserId(userId).build()
+		AudioTrack mock = Mock()
+		mock.getUserData(ExtraTrackInfo) >> eti
+		mock.getInfo() >> new AudioTrackInfo("Title", "Author", lengthMs, "id", isStream, "http://fake.com/resource")
+		mock.getDuration() >> lengthMs
+		return mock
+	}
+}
@@ -0,0 +1,121 @@
+package net.tonbot.plugin.music
+
+import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
+
+import com.google.api.services.youtube.YouTube
+import com.google.api.services.youtube.model.Channel
+import com.google.api.services.youtube.model.ChannelListResponse
+import com.google.api.services.youtube.model.Video
+import com.google.api.services.youtube.model.VideoListResponse
+import com.google.api.services.youtube.model.VideoSnippet
+import com.sedmelluq.discord.lavaplayer.source.youtube.YoutubeAudioTrack
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack
+
+import spock.lang.Specification
+
+class YouTubeSnippetCacheTest extends Specification {
+
+	YouTube yt
+	YouTube.Videos videos
+	YouTube.Channels channels
+	List<String> videoRequests
+	List<String> channelRequests
+	YouTubeSnippetCache cache
+
+	def setup() {
+		this.yt = Mock(YouTube)
+		this.videos = Mock(YouTube.Videos)
+		this.channels = Mock(YouTube.Channels)
+		this.videoRequests = []
+		this.channelRequests = []
+
+		yt.videos() >> videos
+		yt.channels() >> channels
+
+		videos.list("snippet") >> {
+			YouTube.Videos.List request = Mock(YouTube.Videos.List)
+			String ids
+			request.setId(_) >> { args -> ids = args[0]; request }
+			request.execute() >> {
+				videoRequests.add(ids)
+				List<Video> items = ids.split(",").findAll { it != "missing" }.collect { video(it) }
+				new VideoListResponse().setItems(items)
+			}
+			request
+		}
+
+		channels.list("snippet") >> {
+			YouTube.Channels.List request = Mock(YouTube.Channels.List)
+			String ids
+			request.setId(_) >> { args -> ids = args[0]; request }
+			request.execute() >> {
+				channelRequests.add(ids)
+				new ChannelListResponse().setItems(ids.split(",").collect { new Channel().setId(it) })
+			}
+			request
+		}
+
+		this.cache = new YouTubeSnippetCache(yt, 1000, 1, TimeUnit.HOURS, { it.run() } as Executor)
+	}
+
+	def "prefetched snippets are fetched in batches and cached"() {
+		given:
+		List<AudioTrack> tracks = (1..60).collect { track("v" + it) }
+
+		when:
+		cache.prefetch(tracks)
+
+		then:
+		videoRequests.size() == 2
+		videoRequests[0].split(",").size() == YouTubeSnippetCache.MAX_IDS_PER_REQUEST
+		videoRequests[1].split(",").size() == 10
+		channelRequests == ["channel"]
+
+		when:
+		Video v = cache.getVideo("v42")
+		Channel c = cache.getChannel("channel")
+
+		then:
+		v.getId() == "v42"
+		c.getId() == "channel"
+		videoRequests.size() == 2
+		channelRequests.size() == 1
+	}
+
+	def "cached videos aren't prefetched again"() {
+		given:
+		cache.prefetch([track("a")])
+
+		when:
+		cache.prefetch([track("a"), track("b")])
+
+		then:
+		videoRequests == ["a", "b"]
+	}
+
+	def "snippets that aren't cached are fetched when needed"() {
+		when:
+		Video v = cache.getVideo("x")
+
+		then:
+		v.getId() == "x"
+		videoRequests == ["x"]
+
+		when:
+		cache.getVideo("missing")
+
+		then:
+		thrown IllegalArgumentException
+	}
+
+	private Video video(String id) {
+		return new Video().setId(id).setSnippet(new VideoSnippet().setChannelId("channel"))
+	}
+
+	private AudioTrack track(String videoId) {
+		YoutubeAudioTrack track = Mock(YoutubeAudioTrack)
+		track.getIdentifier() >> videoId
+		return track
+	}
+}
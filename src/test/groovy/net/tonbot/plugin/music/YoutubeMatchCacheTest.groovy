@@ -0,0 +1,171 @@
+package net.tonbot.plugin.music
+
+import java.util.function.LongSupplier
+
+import spock.lang.Specification
+
+class YoutubeMatchCacheTest extends Specification {
+
+	File dir
+	File file
+	long now
+
+	def setup() {
+		this.dir = File.createTempDir()
+		this.file = new File(dir, "matches.cache")
+		this.now = 1000000L
+	}
+
+	def cleanup() {
+		dir.deleteDir()
+	}
+
+	def "matches are found by normalized title, artist, and duration bucket"() {
+		given:
+		YoutubeMatchCache cache = newCache(10)
+		cache.load()
+		cache.put("The Sound of  Silence", "Simon & Garfunkel", 185000, "abc", "Video", "Author", 186000)
+
+		expect:
+		cache.get("the sound of silence", " SIMON & GARFUNKEL", 186000).get().getVideoId() == "abc"
+		!cache.get("the sound of silence", "Simon & Garfunkel", 190000).isPresent()
+		!cache.get("the sound of silence", "Disturbed", 185000).isPresent()
+	}
+
+	def "matches survive a reload"() {
+		given:
+		YoutubeMatchCache cache = newCache(10)
+		cache.load()
+		cache.put("a", "x", 1000, "id1", "A", "X", 1000)
+		cache.put("b", "y", 1000, "id2", "B", "Y", 1000)
+		cache.put("a", "x", 1000, "id3", "A", "X", 1000)
+		cache.close()
+
+		when:
+		YoutubeMatchCache reloaded = newCache(10)
+		reloaded.load()
+
+		then:
+		reloaded.get("a", "x", 1000).get() == new YoutubeMatchCache.Match("id3", "A", "X", 1000, now)
+		reloaded.get("b", "y", 1000).get().getVideoId() == "id2"
+	}
+
+	def "expired matches are dropped"() {
+		given:
+		YoutubeMatchCache cache = newCache(10)
+		cache.load()
+		cache.put("a", "x", 1000, "id1", "A", "X", 1000)
+		cache.close()
+
+		when:
+		now += 100
+		YoutubeMatchCache reloaded = newCache(10)
+		reloaded.load()
+
+		then:
+		!cache.get("a", "x", 1000).isPresent()
+		!reloaded.get("a", "x", 1000).isPresent()
+	}
+
+	def "least recently used matches are evicted"() {
+		given:
+		YoutubeMatchCache cache = newCache(2)
+		cache.load()
+		cache.put("a", "x", 1000, "id1", "A", "X", 1000)
+		cache.put("b", "x", 1000, "id2", "B", "X", 1000)
+
+		when:
+		cache.get("a", "x", 1000)
+		cache.put("c", "x", 1000, "id3", "C", "X", 1000)
+
+		then:
+		cache.get("a", "x", 1000).isPresent()
+		!cache.get("b", "x", 1000).isPresent()
+		cache.get("c", "x", 1000).isPresent()
+	}
+
+	def "removed matches stay removed after a reload"() {
+		given:
+		YoutubeMatchCache cache = newCache(10)
+		cache.load()
+		cache.put("a", "x", 1000, "id1", "A", "X", 1000)
+		cache.put("b", "y", 1000, "id2", "B", "Y", 1000)
+
+		when:
+		cache.remove("A", "X", 1000)
+		cache.remove("c", "z", 1000)
+
+		then:
+		!cache.get("a", "x", 1000).isPresent()
+		cache.get("b", "y", 1000).isPresent()
+
+		when:
+		cache.close()
+		YoutubeMatchCache reloaded = newCache(10)
+		reloaded.load()
+
+		then:
+		!reloaded.get("a", "x", 1000).isPresent()
+		reloaded.get("b", "y", 1000).get().getVideoId() == "id2"
+	}
+
+	def "a song can be matched again after its match was removed"() {
+		given:
+		YoutubeMatchCache cache = newCache(10)
+		cache.load()
+		cache.put("a", "x", 1000, "id1", "A", "X", 1000)
+		cache.remove("a", "x", 1000)
+		cache.put("a", "x", 1000, "id2", "A", "X", 1000)
+		cache.close()
+
+		when:
+		YoutubeMatchCache reloaded = newCache(10)
+		reloaded.load()
+
+		then:
+		reloaded.get("a", "x", 1000).get().getVideoId() == "id2"
+		dir.list() as List == ["matches.cache"]
+	}
+
+	def "a partially written record is ignored"() {
+		given:
+		YoutubeMatchCache cache = newCache(10)
+		cache.load()
+		cache.put("a", "x", 1000, "id1", "A", "X", 1000)
+		cache.put("b", "y", 1000, "id2", "B", "Y", 1000)
+		cache.close()
+
+		RandomAccessFile raf = new RandomAccessFile(file, "rw")
+		raf.setLength(raf.length() - 3)
+		raf.close()
+
+		when:
+		YoutubeMatchCache reloaded = newCache(10)
+		reloaded.load()
+
+		then:
+		reloaded.get("a", "x", 1000).isPresent()
+		!reloaded.get("b", "y", 1000).isPresent()
+	}
+
+	def "a file in an unknown format is overwritten"() {
+		given:
+		file.text = "not a cache"
+
+		when:
+		YoutubeMatchCache cache = newCache(10)
+		cache.load()
+		cache.put("a", "x", 1000, "id1", "A", "X", 1000)
+		cache.close()
+
+		YoutubeMatchCache reloaded = newCache(10)
+		reloaded.load()
+
+		then:
+		reloaded.get("a", "x", 1000).isPresent()
+	}
+
+	private YoutubeMatchCache newCache(int maxEntries) {
+		return new YoutubeMatchCache(file, maxEntries, 100, { now } as LongSupplier)
+	}
+}
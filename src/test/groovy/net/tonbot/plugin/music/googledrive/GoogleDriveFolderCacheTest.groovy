@@ -0,0 +1,96 @@
+package net.tonbot.plugin.music.googledrive
+
+import java.nio.file.Files
+import java.util.concurrent.TimeUnit
+
+import com.google.api.client.util.DateTime
+import com.google.api.services.drive.model.File
+
+import net.tonbot.plugin.music.googledrive.GoogleDriveFolderCache.FolderListing
+import spock.lang.Specification
+
+class GoogleDriveFolderCacheTest extends Specification {
+
+	java.io.File dir
+	long millis
+	GoogleDriveFolderCache cache
+	FolderListing listing
+
+	def setup() {
+		this.dir = Files.createTempDirectory("google-drive-folders").toFile()
+		this.millis = 0
+		this.cache = newCache(10)
+		this.listing = new FolderListing([
+			file("song", 0).setTitle("Song").setMimeType("audio/mpeg").setWebContentLink("https://example.com/song")
+		], [file("subfolder", 0)])
+	}
+
+	def cleanup() {
+		dir.deleteDir()
+	}
+
+	def "listings are used while the folder is unmodified"() {
+		given:
+		cache.put(file("folder", 1000), listing)
+
+		expect:
+		cache.get(file("folder", 1000)) == Optional.of(listing)
+		!cache.get(file("folder", 2000)).isPresent()
+		!cache.get(file("other", 1000)).isPresent()
+	}
+
+	def "listings expire"() {
+		given:
+		cache.put(file("folder", 1000), listing)
+
+		when:
+		millis += TimeUnit.MINUTES.toMillis(61)
+
+		then:
+		!cache.get(file("folder", 1000)).isPresent()
+		!newCache(10).get(file("folder", 1000)).isPresent()
+	}
+
+	def "listings are read back from disk"() {
+		given:
+		cache.put(file("folder", 1000), listing)
+
+		when:
+		Optional<FolderListing> readListing = newCache(10).get(file("folder", 1000))
+
+		then:
+		readListing == Optional.of(listing)
+		!newCache(10).get(file("folder", 2000)).isPresent()
+	}
+
+	def "the least recently used listings are deleted from disk when there are too many"() {
+		given:
+		cache = newCache(10)
+
+		when:
+		(0..<11).each {
+			cache.put(file("folder" + it, 1000), listing)
+			dir.listFiles().find { f -> f.getName() == "folder" + it + ".folder" }.setLastModified(it * 1000)
+		}
+
+		then:
+		dir.listFiles().collect { it.getName() }.sort() == (2..<11).collect { "folder" + it + ".folder" }.sort()
+	}
+
+	def "folders whose IDs aren't safe file names are only remembered in memory"() {
+		given:
+		cache.put(file("../folder", 1000), listing)
+
+		expect:
+		cache.get(file("../folder", 1000)) == Optional.of(listing)
+		dir.listFiles().length == 0
+	}
+
+	private GoogleDriveFolderCache newCache(long maxFolders) {
+		return new GoogleDriveFolderCache(dir, maxFolders, 60, TimeUnit.MINUTES, { millis })
+	}
+
+	private File file(String id, long modifiedDate) {
+		return new File().setId(id).setModifiedDate(new DateTime(modifiedDate))
+	}
+}
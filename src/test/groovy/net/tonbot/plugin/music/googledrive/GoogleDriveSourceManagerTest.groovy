@@ -0,0 +1,298 @@
+package net.tonbot.plugin.music.googledrive
+
+import java.nio.file.Files
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.FutureTask
+import java.util.concurrent.TimeUnit
+
+import com.google.api.client.util.DateTime
+import com.google.api.services.drive.Drive
+import com.google.api.services.drive.model.File
+import com.google.api.services.drive.model.FileList
+import com.sedmelluq.discord.lavaplayer.player.DefaultAudioPlayerManager
+import com.sedmelluq.discord.lavaplayer.source.http.HttpAudioSourceManager
+import com.sedmelluq.discord.lavaplayer.track.AudioItem
+import com.sedmelluq.discord.lavaplayer.track.AudioReference
+
+import net.tonbot.plugin.music.IncrementalAudioPlaylist
+import spock.lang.Specification
+
+class GoogleDriveSourceManagerTest extends Specification {
+
+	static final String FOLDER_MIME_TYPE = "application/vnd.google-apps.folder"
+
+	// Folder ID to the files and folders in it, in title order.
+	Map<String, List<File>> tree
+	Map<String, File> folders
+	Set<String> failingFolders
+	int pageSize
+
+	// Each request is [q, pageToken].
+	List<List<String>> listRequests
+	List<FutureTask> submitted
+	Closure<Boolean> runOnSubmit
+
+	java.io.File cacheDir
+	GoogleDriveSourceManager sourceManager
+
+	def setup() {
+		this.tree = [:]
+		this.folders = [:]
+		this.failingFolders = []
+		this.pageSize = 1000
+		this.listRequests = []
+		this.submitted = []
+		this.runOnSubmit = { true }
+
+		Drive.Files mockedFiles = Mock()
+		mockedFiles.get(_) >> { String id ->
+			Drive.Files.Get request = Mock()
+			request.setFields(_) >> request
+			request.execute() >> folders[id]
+			return request
+		}
+		mockedFiles.list() >> { listRequest() }
+
+		Drive mockedDrive = Mock()
+		mockedDrive.files() >> mockedFiles
+
+		// Listings run when the test says so, unless runOnSubmit says otherwise.
+		ExecutorService mockedExecutor = Mock()
+		mockedExecutor.submit(_ as Callable) >> { Callable task ->
+			FutureTask future = new FutureTask(task)
+			submitted.add(future)
+			if (runOnSubmit(submitted.size() - 1)) {
+				future.run()
+			}
+			return future
+		}
+
+		this.cacheDir = Files.createTempDirectory("google-drive-folders").toFile()
+		this.sourceManager = new GoogleDriveSourceManager(mockedDrive, Mock(HttpAudioSourceManager), mockedExecutor,
+				new GoogleDriveFolderCache(cacheDir, 100, 60, TimeUnit.MINUTES))
+	}
+
+	def cleanup() {
+		cacheDir.deleteDir()
+	}
+
+	def "all pages of a folder are listed"() {
+		given:
+		folder("root", null, 1000)
+		(1..5).each { file("song" + it, "root") }
+		folder("a", "root", 1000)
+		file("a1", "a")
+		pageSize = 2
+
+		when:
+		IncrementalAudioPlaylist result = load("root")
+
+		then:
+		titles(result.getTracks()) == ["song1", "song2", "song3", "song4", "song5"]
+		listRequests.findAll { it[0] == "'root' in parents" } == [
+			["'root' in parents", null],
+			["'root' in parents", "2"],
+			["'root' in parents", "4"]
+		]
+	}
+
+	def "folders are returned breadth-first, and each folder's subfolders are listed together"() {
+		given:
+		tree()
+
+		when:
+		IncrementalAudioPlaylist result = load("root")
+
+		then: "both of root's subfolders were listed before either was returned"
+		titles(result.getTracks()) == ["r1"]
+		submitted.size() == 3
+
+		when:
+		List<String> remaining = result.getRemainingChunks().collect { titles(it) }.flatten()
+
+		then:
+		remaining == ["a1", "b1", "c1"]
+		submitted.size() == 4
+	}
+
+	def "folders are returned in order even if they're listed out of order"() {
+		given:
+		folder("root", null, 1000)
+		file("r1", "root")
+		folder("a", "root", 1000)
+		folder("b", "root", 1000)
+		file("a1", "a")
+		file("b1", "b")
+
+		// Only the root is listed right away.
+		runOnSubmit = { int i -> i == 0 }
+
+		when:
+		IncrementalAudioPlaylist result = load("root")
+		Iterator chunks = result.getRemainingChunks()
+		submitted[2].run()
+		submitted[1].run()
+
+		then:
+		titles(chunks.next()) == ["a1"]
+		titles(chunks.next()) == ["b1"]
+		!chunks.hasNext()
+	}
+
+	def "a folder that can't be listed cancels the folders after it"() {
+		given:
+		folder("root", null, 1000)
+		file("r1", "root")
+		folder("a", "root", 1000)
+		folder("b", "root", 1000)
+		file("a1", "a")
+		file("b1", "b")
+		failingFolders.add("a")
+		runOnSubmit = { int i -> i == 0 }
+
+		when:
+		IncrementalAudioPlaylist result = load("root")
+		Iterator chunks = result.getRemainingChunks()
+		submitted[1].run()
+		chunks.next()
+
+		then:
+		thrown(UncheckedIOException)
+		submitted[2].isCancelled()
+		!chunks.hasNext()
+	}
+
+	def "closing the playlist cancels the folders that are still being listed"() {
+		given:
+		folder("root", null, 1000)
+		file("r1", "root")
+		folder("a", "root", 1000)
+		folder("b", "root", 1000)
+		runOnSubmit = { int i -> i == 0 }
+
+		when:
+		IncrementalAudioPlaylist result = load("root")
+		result.close()
+
+		then:
+		submitted[1].isCancelled()
+		submitted[2].isCancelled()
+		!result.getRemainingChunks().hasNext()
+	}
+
+	def "reloading an unchanged tree only lists the subfolders of folders that have them"() {
+		given:
+		tree()
+		loadAll("root")
+		listRequests.clear()
+
+		when:
+		List<String> titles = loadAll("root")
+
+		then:
+		titles == ["r1", "a1", "b1", "c1"]
+		listRequests == [
+			["'root' in parents and mimeType = '" + FOLDER_MIME_TYPE + "'", null],
+			["'a' in parents and mimeType = '" + FOLDER_MIME_TYPE + "'", null]
+		]
+	}
+
+	def "reloading a tree lists the files of the subfolders that have changed"() {
+		given:
+		tree()
+		loadAll("root")
+		listRequests.clear()
+
+		when:
+		file("c2", "c")
+		folders["c"].setModifiedDate(new DateTime(2000))
+		List<String> titles = loadAll("root")
+
+		then:
+		titles == ["r1", "a1", "b1", "c1", "c2"]
+		listRequests == [
+			["'root' in parents and mimeType = '" + FOLDER_MIME_TYPE + "'", null],
+			["'a' in parents and mimeType = '" + FOLDER_MIME_TYPE + "'", null],
+			["'c' in parents", null]
+		]
+	}
+
+	/**
+	 * root (r1) has a (a1) and b (b1). a has c (c1).
+	 */
+	private void tree() {
+		folder("root", null, 1000)
+		file("r1", "root")
+		folder("a", "root", 1000)
+		folder("b", "root", 1000)
+		file("a1", "a")
+		folder("c", "a", 1000)
+		file("c1", "c")
+		file("b1", "b")
+	}
+
+	private List<String> loadAll(String folderId) {
+		IncrementalAudioPlaylist playlist = load(folderId)
+		return titles(playlist.getTracks()) + playlist.getRemainingChunks().collect { titles(it) }.flatten()
+	}
+
+	private AudioItem load(String folderId) {
+		return sourceManager.loadItem(Mock(DefaultAudioPlayerManager),
+				new AudioReference("https://drive.google.com/open?id=" + folderId, null))
+	}
+
+	private Drive.Files.List listRequest() {
+		Map<String, Object> state = [:]
+
+		Drive.Files.List request = Mock()
+		request.setQ(_) >> { String q -> state.q = q; request }
+		request.setPageToken(_) >> { String pageToken -> state.pageToken = pageToken; request }
+		request.setOrderBy(_) >> request
+		request.setMaxResults(_) >> request
+		request.setFields(_) >> request
+		request.execute() >> { respond(state.q, state.pageToken) }
+		return request
+	}
+
+	private FileList respond(String q, String pageToken) {
+		listRequests.add([q, pageToken])
+
+		String folderId = (q =~ /^'([^']+)' in parents/)[0][1]
+		if (failingFolders.contains(folderId)) {
+			throw new IOException("Listing failed.")
+		}
+
+		List<File> items = tree[folderId]
+		if (q.contains("mimeType")) {
+			items = items.findAll { it.getMimeType() == FOLDER_MIME_TYPE }
+		}
+
+		int start = pageToken != null ? pageToken as int : 0
+		int end = Math.min(start + pageSize, items.size())
+		return new FileList().setItems(items.subList(start, end))
+				.setNextPageToken(end < items.size() ? String.valueOf(end) : null)
+	}
+
+	private File folder(String id, String parentId, long modifiedDate) {
+		File folder = new File().setId(id).setTitle(id).setMimeType(FOLDER_MIME_TYPE)
+				.setModifiedDate(new DateTime(modifiedDate))
+		folders[id] = folder
+		tree[id] = tree[id] ?: []
+		if (parentId != null) {
+			tree[parentId].add(folder)
+		}
+		return folder
+	}
+
+	private File file(String title, String parentId) {
+		File file = new File().setId(title).setTitle(title).setMimeType("audio/mpeg")
+				.setWebContentLink("https://drive.google.com/uc?id=" + title)
+		tree[parentId].add(file)
+		return file
+	}
+
+	private static List<String> titles(List tracks) {
+		return tracks.collect { it.getInfo().title }
+	}
+}
@@ -0,0 +1,69 @@
+package net.tonbot.plugin.music.itunes
+
+import org.apache.commons.csv.CSVParser
+
+import net.tonbot.plugin.music.AudioTrackFactory
+import net.tonbot.plugin.music.SongMetadata
+import spock.lang.Specification
+
+class ITunesPlaylistSourceManagerTest extends Specification {
+
+	static final String HEADER = "Name\tArtist\tComposer\tAlbum\tTime\n"
+
+	ITunesPlaylistSourceManager sourceManager
+
+	def setup() {
+		this.sourceManager = new ITunesPlaylistSourceManager(Mock(AudioTrackFactory))
+	}
+
+	def "a playlist is read in chunks of 100"() {
+		given:
+		String playlist = HEADER + (1..250).collect { "Song $it\tArtist $it\t\tAlbum\t$it\n" }.join()
+		CSVParser parser = sourceManager.parsePlaylist(new StringReader(playlist))
+
+		when:
+		List<List<SongMetadata>> chunks = sourceManager.getSongMetadataChunks(parser).collect()
+
+		then:
+		chunks*.size() == [100, 100, 50]
+		chunks[0][0] == new SongMetadata("Song 1", "Artist 1", 1000)
+		chunks[2][49] == new SongMetadata("Song 250", "Artist 250", 250000)
+	}
+
+	def "records which are missing fields or have invalid times are left out"() {
+		given:
+		String playlist = HEADER + "Song 1\tArtist 1\t\t\t1\n" + "\tArtist 2\t\t\t2\n" + "Song 3\t\t\t\t3\n" +
+				"Song 4\tArtist 4\t\t\t\n" + "Song 5\tArtist 5\t\t\tfive\n" + "Song 6\tArtist 6\t\t\t-6\n" +
+				"\n" + "Song 7\tArtist 7\t\t\t7\n"
+		CSVParser parser = sourceManager.parsePlaylist(new StringReader(playlist))
+
+		when:
+		List<List<SongMetadata>> chunks = sourceManager.getSongMetadataChunks(parser).collect()
+
+		then:
+		chunks == [[
+				new SongMetadata("Song 1", "Artist 1", 1000),
+				new SongMetadata("Song 7", "Artist 7", 7000)
+			]]
+	}
+
+	def "a file without the iTunes columns is rejected and closed"() {
+		given:
+		Reader reader = Spy(StringReader, constructorArgs: [header + "a\tb\tc\n"])
+
+		when:
+		sourceManager.parsePlaylist(reader)
+
+		then:
+		thrown ITunesPlaylistSourceManager.InvalidItunesPlaylistException
+		(1.._) * reader.close()
+
+		where:
+		header << [
+			"Artist\tTime\n",
+			"Name\tTime\n",
+			"Name\tArtist\n",
+			"Title,Artist,Time\n"
+		]
+	}
+}
@@ -0,0 +1,154 @@
+package net.tonbot.plugin.music.spotify
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CancellationException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.FutureTask
+
+import com.wrapper.spotify.models.Page
+
+import spock.lang.Specification
+
+class PageIteratorTest extends Specification {
+
+	ExecutorService mockedExecutor
+	List<FutureTask<Page<Integer>>> submitted
+	List<Integer> requestedOffsets
+	int total
+
+	def setup() {
+		this.submitted = []
+		this.requestedOffsets = []
+
+		// Pages are only fetched when the test runs them.
+		this.mockedExecutor = Mock(ExecutorService)
+		mockedExecutor.submit(_ as Callable) >> { Callable<Page<Integer>> task ->
+			FutureTask<Page<Integer>> future = new FutureTask<>(task)
+			submitted.add(future)
+			return future
+		}
+	}
+
+	def "only a window of pages is fetched ahead"() {
+		when:
+		total = 95
+		PageIterator<Integer> pages = new PageIterator<>(page(0, 10), this.&fetch, mockedExecutor, 3)
+
+		then:
+		submitted.size() == 3
+
+		when:
+		submitted.each { it.run() }
+		pages.next()
+		pages.next()
+
+		then: "taking a fetched page frees a place in the window"
+		submitted.size() == 4
+
+		when:
+		while (pages.hasNext()) {
+			submitted.each { it.run() }
+			pages.next()
+		}
+
+		then:
+		requestedOffsets == [10, 20, 30, 40, 50, 60, 70, 80, 90]
+		submitted.size() == 9
+	}
+
+	def "pages are returned in order even if they're fetched out of order"() {
+		given:
+		total = 7
+		PageIterator<Integer> pages = new PageIterator<>(page(0, 2), this.&fetch, mockedExecutor, 4)
+		submitted.reverse().each { it.run() }
+
+		when:
+		List<Page<Integer>> result = []
+		while (pages.hasNext()) {
+			result.add(pages.next())
+		}
+
+		then:
+		result*.offset == [0, 2, 4, 6]
+		result*.items.flatten() == (0..6).toList()
+		pages.isExhausted()
+	}
+
+	def "a single page needs no fetching"() {
+		given:
+		total = 3
+		PageIterator<Integer> pages = new PageIterator<>(page(0, 50), this.&fetch, mockedExecutor, 4)
+
+		expect:
+		submitted.isEmpty()
+		pages.next().items == [0, 1, 2]
+		!pages.hasNext()
+		pages.isExhausted()
+	}
+
+	def "the rest of the pages are cancelled if a page can't be fetched"() {
+		given:
+		total = 50
+		PageIterator<Integer> pages = new PageIterator<>(page(0, 10), { int offset, int limit ->
+			if (offset == 10) {
+				throw new IllegalStateException("Oh no")
+			}
+			return fetch(offset, limit)
+		} as PageIterator.PageFetcher, mockedExecutor, 3)
+		submitted[0].run()
+		pages.next()
+
+		when:
+		pages.next()
+
+		then:
+		IllegalStateException e = thrown()
+		e.message == "Oh no"
+		submitted.size() == 4
+		submitted[1..3].every { it.isCancelled() }
+		!pages.hasNext()
+		!pages.isExhausted()
+	}
+
+	def "closing cancels the pages being fetched, including the one being waited on"() {
+		given:
+		total = 50
+		PageIterator<Integer> pages = new PageIterator<>(page(0, 10), this.&fetch, mockedExecutor, 2)
+		pages.next()
+		Thread waiter = new Thread({
+			try {
+				pages.next()
+			} catch (CancellationException e) {
+				// Expected.
+			}
+		})
+
+		when:
+		waiter.start()
+		while (waiter.getState() != Thread.State.WAITING && waiter.isAlive()) {
+			Thread.sleep(10)
+		}
+		pages.close()
+		waiter.join(10000)
+
+		then:
+		!waiter.isAlive()
+		submitted.every { it.isCancelled() }
+		!pages.hasNext()
+		!pages.isExhausted()
+	}
+
+	private Page<Integer> fetch(int offset, int limit) {
+		requestedOffsets.add(offset)
+		return page(offset, limit)
+	}
+
+	private Page<Integer> page(int offset, int limit) {
+		Page<Integer> page = new Page<>()
+		page.setOffset(offset)
+		page.setLimit(limit)
+		page.setTotal(total)
+		page.setItems((offset..<Math.min(offset + limit, total)).toList())
+		return page
+	}
+}
@@ -0,0 +1,63 @@
+package net.tonbot.plugin.music.spotify
+
+import java.nio.file.Files
+
+import net.tonbot.plugin.music.SongMetadata
+import spock.lang.Specification
+
+class SpotifyPlaylistCacheTest extends Specification {
+
+	File dir
+	SpotifyPlaylistCache cache
+
+	def setup() {
+		this.dir = Files.createTempDirectory("spotify-playlists").toFile()
+		this.cache = new SpotifyPlaylistCache(dir, 2)
+	}
+
+	def cleanup() {
+		dir.deleteDir()
+	}
+
+	def "cached playlists are returned for the same snapshot"() {
+		given:
+		List<SongMetadata> tracks = [
+			new SongMetadata("Song A", "Artist A", 1000),
+			new SongMetadata("Song B", "", 2000)
+		]
+		cache.put("playlist1", "snapshot1", "My Playlist", tracks)
+
+		when:
+		Optional<SpotifyPlaylistCache.CachedPlaylist> cachedPlaylist = cache.get("playlist1", "snapshot1")
+
+		then:
+		cachedPlaylist.isPresent()
+		cachedPlaylist.get().getName() == "My Playlist"
+		cachedPlaylist.get().getTracks() == tracks
+	}
+
+	def "playlists that have changed since they were cached are not returned"() {
+		given:
+		cache.put("playlist1", "snapshot1", "My Playlist", [new SongMetadata("Song A", "Artist A", 1000)])
+
+		expect:
+		!cache.get("playlist1", "snapshot2").isPresent()
+		!cache.get("playlist2", "snapshot1").isPresent()
+	}
+
+	def "the least recently used playlists are evicted"() {
+		given:
+		cache.put("playlist1", "snapshot", "One", [])
+		new File(dir, "playlist1.playlist").setLastModified(1000)
+		cache.put("playlist2", "snapshot", "Two", [])
+		new File(dir, "playlist2.playlist").setLastModified(2000)
+
+		when:
+		cache.put("playlist3", "snapshot", "Three", [])
+
+		then:
+		!cache.get("playlist1", "snapshot").isPresent()
+		cache.get("playlist2", "snapshot").isPresent()
+		cache.get("playlist3", "snapshot").isPresent()
+	}
+}
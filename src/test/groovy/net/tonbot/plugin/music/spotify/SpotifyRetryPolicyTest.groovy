@@ -0,0 +1,57 @@
+package net.tonbot.plugin.music.spotify
+
+import com.wrapper.spotify.exceptions.BadRequestException
+import com.wrapper.spotify.exceptions.ServerErrorException
+
+import spock.lang.Specification
+
+class SpotifyRetryPolicyTest extends Specification {
+
+	SpotifyRetryPolicy retryPolicy = new SpotifyRetryPolicy(3, 1)
+
+	def "rate limited requests and server errors are retried"() {
+		given:
+		List<Exception> failures = [new BadRequestException("429"), new ServerErrorException("503")]
+
+		when:
+		String result = retryPolicy.execute({
+			if (!failures.isEmpty()) {
+				throw failures.remove(0)
+			}
+			"ok"
+		} as SpotifyRetryPolicy.SpotifyRequest)
+
+		then:
+		result == "ok"
+	}
+
+	def "other errors are not retried"() {
+		given:
+		int attempts = 0
+
+		when:
+		retryPolicy.execute({
+			attempts++
+			throw new BadRequestException("404")
+		} as SpotifyRetryPolicy.SpotifyRequest)
+
+		then:
+		thrown BadRequestException
+		attempts == 1
+	}
+
+	def "requests are given up on after too many attempts"() {
+		given:
+		int attempts = 0
+
+		when:
+		retryPolicy.execute({
+			attempts++
+			throw new BadRequestException("429")
+		} as SpotifyRetryPolicy.SpotifyRequest)
+
+		then:
+		thrown BadRequestException
+		attempts == 3
+	}
+}
@@ -0,0 +1,207 @@
+package net.tonbot.plugin.music.spotify
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutorService
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.sedmelluq.discord.lavaplayer.track.AudioReference
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack
+import com.sedmelluq.discord.lavaplayer.track.BasicAudioPlaylist
+import com.wrapper.spotify.Api
+import com.wrapper.spotify.HttpManager
+import com.wrapper.spotify.UtilProtos.Url
+
+import groovy.json.JsonOutput
+import net.tonbot.plugin.music.AudioTrackFactory
+import net.tonbot.plugin.music.SongMetadata
+import spock.lang.Specification
+
+class SpotifySourceManagerTest extends Specification {
+
+	HttpManager mockedHttpManager
+	AudioTrackFactory mockedAudioTrackFactory
+	List<Url> requests
+	List<SongMetadata> songMetadata
+
+	SpotifySourceManager sourceManager
+
+	def setup() {
+		this.requests = []
+		this.songMetadata = []
+
+		this.mockedHttpManager = Mock(HttpManager)
+
+		SpotifyTokenManager mockedTokenManager = Mock()
+		mockedTokenManager.getAccessToken() >> "token"
+
+		this.mockedAudioTrackFactory = Mock(AudioTrackFactory)
+		mockedAudioTrackFactory.getAudioTracks(_) >> { args ->
+			List<SongMetadata> metadata = args[0]
+			songMetadata.addAll(metadata)
+			return metadata.collect { Mock(AudioTrack) }
+		}
+
+		// Pages are fetched as soon as they're submitted.
+		ExecutorService mockedExecutor = Mock()
+		mockedExecutor.submit(_ as Callable) >> { Callable task -> CompletableFuture.completedFuture(task.call()) }
+
+		Api api = Api.builder().httpManager(mockedHttpManager).accessToken("token").build()
+
+		this.sourceManager = new SpotifySourceManager(api, mockedHttpManager, mockedTokenManager, "CA",
+				mockedAudioTrackFactory, mockedExecutor, Mock(SpotifyPlaylistCache), new ObjectMapper())
+	}
+
+	def "the rest of a long album's tracks are fetched a page at a time"() {
+		given:
+		mockedHttpManager.get(_) >> { Url url ->
+			requests.add(url)
+			if (url.getPath() == "/v1/albums/a1") {
+				return json(album("a1", "Long Album", page((0..<50).collect { simpleTrack(it) }, 0, 50, 120)))
+			} else if (url.getPath() == "/v1/albums/a1/tracks") {
+				int offset = param(url, "offset") as int
+				int limit = param(url, "limit") as int
+				return json(page((offset..<Math.min(offset + limit, 120)).collect { simpleTrack(it) }, offset, limit,
+						120))
+			}
+			throw new IllegalArgumentException(url.getPath())
+		}
+
+		when:
+		def result = sourceManager.loadItem(null, new AudioReference("https://open.spotify.com/album/a1", null))
+
+		then:
+		result instanceof BasicAudioPlaylist
+		songMetadata == (0..<120).collect { new SongMetadata("Track " + it, "Artist " + it, 1000 + it) }
+
+		List<Url> pageRequests = requests.findAll { it.getPath() == "/v1/albums/a1/tracks" }
+		pageRequests.collect { param(it, "offset") } == ["50", "100"]
+		pageRequests.every { param(it, "limit") == "50" && param(it, "market") == "CA" }
+		pageRequests.every { header(it, "Authorization") == "Bearer token" }
+	}
+
+	def "an album with one page of tracks needs no more requests"() {
+		given:
+		mockedHttpManager.get(_) >> { Url url ->
+			requests.add(url)
+			return json(album("a1", "Short Album", page([simpleTrack(0), simpleTrack(1)], 0, 50, 2)))
+		}
+
+		when:
+		sourceManager.loadItem(null, new AudioReference("https://open.spotify.com/album/a1", null))
+
+		then:
+		requests*.getPath() == ["/v1/albums/a1"]
+		songMetadata == [new SongMetadata("Track 0", "Artist 0", 1000), new SongMetadata("Track 1", "Artist 1", 1001)]
+	}
+
+	def "an artist's top tracks are fetched for the configured market"() {
+		given:
+		mockedHttpManager.get(_) >> { Url url ->
+			requests.add(url)
+			if (url.getPath() == "/v1/artists/r1") {
+				return json(artist("r1", "Some Artist"))
+			} else if (url.getPath() == "/v1/artists/r1/toptracks") {
+				return json([tracks: [track(0), track(1)]])
+			}
+			throw new IllegalArgumentException(url.getPath())
+		}
+
+		when:
+		def result = sourceManager.loadItem(null, new AudioReference("https://open.spotify.com/artist/r1", null))
+
+		then:
+		result instanceof BasicAudioPlaylist
+		param(requests.find { it.getPath() == "/v1/artists/r1/toptracks" }, "country") == "CA"
+		songMetadata == [new SongMetadata("Track 0", "Artist 0", 1000), new SongMetadata("Track 1", "Artist 1", 1001)]
+	}
+
+	def "several track links are loaded together, leaving out the tracks that don't exist"() {
+		given:
+		mockedHttpManager.get(_) >> { Url url ->
+			requests.add(url)
+			return json([tracks: [track(0), null, track(2)]])
+		}
+
+		when:
+		def result = sourceManager.loadItem(null, new AudioReference(
+				"https://open.spotify.com/track/t0 https://open.spotify.com/track/bad https://open.spotify.com/track/t2",
+				null))
+
+		then:
+		result instanceof BasicAudioPlaylist
+		requests.size() == 1
+		param(requests[0], "ids") == "t0,bad,t2"
+		songMetadata == [new SongMetadata("Track 0", "Artist 0", 1000), new SongMetadata("Track 2", "Artist 2", 1002)]
+	}
+
+	def "several track links where none exist load nothing"() {
+		given:
+		mockedHttpManager.get(_) >> json([tracks: [null, null]])
+
+		when:
+		def result = sourceManager.loadItem(null, new AudioReference(
+				"https://open.spotify.com/track/bad1 https://open.spotify.com/track/bad2", null))
+
+		then:
+		result == AudioReference.NO_TRACK
+	}
+
+	def "several links are not loaded if any of them isn't a track link"() {
+		when:
+		def result = sourceManager.loadItem(null, new AudioReference(
+				"https://open.spotify.com/track/t0 https://open.spotify.com/album/a1", null))
+
+		then:
+		result == null
+		0 * mockedHttpManager._
+	}
+
+	private static String param(Url url, String name) {
+		return url.getParametersList().find { it.getName() == name }?.getValue()
+	}
+
+	private static String header(Url url, String name) {
+		return url.getHeaderParametersList().find { it.getName() == name }?.getValue()
+	}
+
+	private static String json(Object object) {
+		return JsonOutput.toJson(object)
+	}
+
+	private static Map page(List items, int offset, int limit, int total) {
+		return [href: "https://api.spotify.com/page", items: items, limit: limit, next: null, offset: offset,
+			previous: null, total: total]
+	}
+
+	private static Map simpleArtist(String id, String name) {
+		return [external_urls: [:], href: "https://api.spotify.com/v1/artists/" + id, id: id, name: name,
+			type: "artist", uri: "spotify:artist:" + id]
+	}
+
+	private static Map simpleTrack(int i) {
+		return [artists: [simpleArtist("r" + i, "Artist " + i)], available_markets: ["CA"], disc_number: 1,
+			duration_ms: 1000 + i, explicit: false, external_urls: [:], href: "https://api.spotify.com/v1/tracks/t" + i,
+			id: "t" + i, name: "Track " + i, preview_url: "https://p.scdn.co/t" + i, track_number: i + 1,
+			type: "track", uri: "spotify:track:t" + i]
+	}
+
+	private static Map simpleAlbum(String id, String name) {
+		return [album_type: "album", artists: [simpleArtist("r0", "Artist 0")], available_markets: ["CA"],
+			external_urls: [:], href: "https://api.spotify.com/v1/albums/" + id, id: id, images: [], name: name,
+			type: "album", uri: "spotify:album:" + id]
+	}
+
+	private static Map track(int i) {
+		return simpleTrack(i) + [album: simpleAlbum("a0", "Album"), external_ids: [:], popularity: 50]
+	}
+
+	private static Map album(String id, String name, Map tracks) {
+		return simpleAlbum(id, name) + [copyrights: [], external_ids: [:], genres: [], popularity: 50,
+			release_date: "2017", release_date_precision: "year", tracks: tracks]
+	}
+
+	private static Map artist(String id, String name) {
+		return simpleArtist(id, name) + [followers: [href: null, total: 1], genres: [], images: [], popularity: 50]
+	}
+}
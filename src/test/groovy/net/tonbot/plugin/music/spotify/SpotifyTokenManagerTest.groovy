@@ -0,0 +1,150 @@
+package net.tonbot.plugin.music.spotify
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.TimeUnit
+import java.util.function.Consumer
+import java.util.function.LongSupplier
+
+import com.wrapper.spotify.exceptions.BadRequestException
+import com.wrapper.spotify.models.ClientCredentials
+
+import spock.lang.Specification
+
+class SpotifyTokenManagerTest extends Specification {
+
+	List<String> tokens
+	ScheduledExecutorService scheduler
+	Executor fetchExecutor
+	long nanos
+	int grants
+	Closure<ClientCredentials> grant
+
+	def setup() {
+		this.tokens = []
+		this.scheduler = Mock(ScheduledExecutorService)
+		scheduler.schedule(_, _, _) >> Mock(ScheduledFuture)
+		this.fetchExecutor = Mock(Executor)
+		this.nanos = 0
+		this.grants = 0
+		this.grant = {
+			grants++
+			credentials("token" + grants, 3600)
+		}
+	}
+
+	def "a token is fetched when there isn't one yet"() {
+		given:
+		SpotifyTokenManager tokenManager = newTokenManager()
+
+		when:
+		tokenManager.ensureValidToken()
+
+		then:
+		tokens == ["token1"]
+		1 * scheduler.schedule(_, TimeUnit.MINUTES.toNanos(55), TimeUnit.NANOSECONDS) >> Mock(ScheduledFuture)
+	}
+
+	def "a valid token is reused until it's about to expire"() {
+		given:
+		SpotifyTokenManager tokenManager = newTokenManager()
+		tokenManager.ensureValidToken()
+
+		when:
+		nanos += TimeUnit.MINUTES.toNanos(58)
+		tokenManager.ensureValidToken()
+
+		then:
+		grants == 1
+
+		when:
+		nanos += TimeUnit.MINUTES.toNanos(1)
+		tokenManager.ensureValidToken()
+
+		then:
+		grants == 2
+		tokens == ["token1", "token2"]
+		tokenManager.getAccessToken() == "token2"
+	}
+
+	def "concurrent callers share one fetch"() {
+		given:
+		CountDownLatch fetchStarted = new CountDownLatch(1)
+		CountDownLatch fetchMayFinish = new CountDownLatch(1)
+		this.grant = {
+			grants++
+			fetchStarted.countDown()
+			fetchMayFinish.await()
+			credentials("token", 3600)
+		}
+		SpotifyTokenManager tokenManager = newTokenManager()
+
+		when:
+		Thread first = Thread.start { tokenManager.ensureValidToken() }
+		fetchStarted.await()
+		Thread second = Thread.start { tokenManager.ensureValidToken() }
+		Thread.sleep(100)
+		fetchMayFinish.countDown()
+		first.join()
+		second.join()
+
+		then:
+		grants == 1
+	}
+
+	def "background refreshes are fetched on the fetch executor, not the scheduler"() {
+		given:
+		SpotifyTokenManager tokenManager = newTokenManager()
+		Runnable scheduledRefresh = null
+		Runnable fetch = null
+
+		when:
+		tokenManager.ensureValidToken()
+
+		then:
+		1 * scheduler.schedule(_, _, _) >> { args ->
+			scheduledRefresh = args[0]
+			Mock(ScheduledFuture)
+		}
+
+		when:
+		scheduledRefresh.run()
+
+		then:
+		grants == 1
+		1 * fetchExecutor.execute(_) >> { args -> fetch = args[0] }
+
+		when:
+		fetch.run()
+
+		then:
+		grants == 2
+		tokens == ["token1", "token2"]
+	}
+
+	def "failures are thrown to the caller"() {
+		given:
+		this.grant = { throw new BadRequestException("400") }
+		SpotifyTokenManager tokenManager = newTokenManager()
+
+		when:
+		tokenManager.ensureValidToken()
+
+		then:
+		thrown BadRequestException
+	}
+
+	private SpotifyTokenManager newTokenManager() {
+		return new SpotifyTokenManager(grant as SpotifyRetryPolicy.SpotifyRequest, { tokens.add(it) } as Consumer,
+				scheduler, fetchExecutor, { nanos } as LongSupplier)
+	}
+
+	private ClientCredentials credentials(String token, int expiresIn) {
+		ClientCredentials credentials = new ClientCredentials()
+		credentials.setAccessToken(token)
+		credentials.setExpiresIn(expiresIn)
+		return credentials
+	}
+}